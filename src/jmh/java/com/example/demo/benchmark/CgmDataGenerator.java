@@ -0,0 +1,62 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.Patient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic CGM-like traces: one reading every five minutes with a circadian baseline,
+ * post-meal excursions and sensor noise. Every fourth patient reports in mmol/L.
+ */
+public final class CgmDataGenerator {
+
+    public static final int READING_INTERVAL_MINUTES = 5;
+    public static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static final int[] MEAL_HOURS = {7, 12, 19};
+
+    private CgmDataGenerator() {
+        // Prevent instantiation
+    }
+
+    public static Patient patient(int index) {
+        return new Patient("Bench" + index, "Patient" + index, LocalDate.of(1960 + index % 50, 1 + index % 12, 1));
+    }
+
+    public static String unitFor(int patientIndex) {
+        return patientIndex % 4 == 3 ? ApiConstants.Units.MMOL_L : ApiConstants.Units.MG_DL;
+    }
+
+    public static List<BloodSugarReading> readings(int patientIndex, int count) {
+        Random random = new Random(patientIndex);
+        String unit = unitFor(patientIndex);
+        List<BloodSugarReading> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime timestamp = START.plusMinutes((long) i * READING_INTERVAL_MINUTES);
+            double mgDl = levelMgDl(timestamp, random);
+            double level = ApiConstants.Units.MMOL_L.equals(unit) ? mgDl / 18.0182 : mgDl;
+            readings.add(new BloodSugarReading(timestamp, level, unit));
+        }
+        return readings;
+    }
+
+    static double levelMgDl(LocalDateTime timestamp, Random random) {
+        double hour = timestamp.getHour() + timestamp.getMinute() / 60.0;
+        // Dawn phenomenon peaking around 6am
+        double level = 120 + 15 * Math.cos((hour - 6) / 24 * 2 * Math.PI);
+        for (int meal : MEAL_HOURS) {
+            double sinceMeal = hour - meal;
+            if (sinceMeal > 0 && sinceMeal < 3) {
+                level += 70 * Math.sin(sinceMeal / 3 * Math.PI);
+            }
+        }
+        level += random.nextGaussian() * 8;
+        return Math.max(40, Math.min(400, level));
+    }
+}
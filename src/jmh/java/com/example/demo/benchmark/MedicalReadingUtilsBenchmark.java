@@ -0,0 +1,92 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.utils.MedicalReadingUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Per-reading utility calls against their primitive-array batch variants
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedicalReadingUtilsBenchmark {
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private LocalDateTime[] timestamps;
+    private double[] levels;
+    private long[] epochSeconds;
+    private long[] previousEpochSeconds;
+    private double[] previousLevels;
+    private double[] doubleOut;
+    private long[] longOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<BloodSugarReading> readings = CgmDataGenerator.readings(0, size + 1);
+        timestamps = new LocalDateTime[size + 1];
+        levels = new double[size];
+        epochSeconds = new long[size];
+        previousEpochSeconds = new long[size];
+        previousLevels = new double[size];
+        for (int i = 0; i <= size; i++) {
+            timestamps[i] = readings.get(i).getTimestamp();
+        }
+        for (int i = 0; i < size; i++) {
+            levels[i] = readings.get(i + 1).getLevelMgDl();
+            previousLevels[i] = readings.get(i).getLevelMgDl();
+            epochSeconds[i] = timestamps[i + 1].toEpochSecond(ZoneOffset.UTC);
+            previousEpochSeconds[i] = timestamps[i].toEpochSecond(ZoneOffset.UTC);
+        }
+        doubleOut = new double[size];
+        longOut = new long[size];
+    }
+
+    @Benchmark
+    public void adjustedReading(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(MedicalReadingUtils.calculateAdjustedReading(timestamps[i + 1], levels[i]));
+        }
+    }
+
+    @Benchmark
+    public double[] adjustedReadingsBatch() {
+        MedicalReadingUtils.calculateAdjustedReadings(epochSeconds, levels, doubleOut, size);
+        return doubleOut;
+    }
+
+    @Benchmark
+    public void difference(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(MedicalReadingUtils.calculateDifference(previousLevels[i], levels[i]));
+        }
+    }
+
+    @Benchmark
+    public double[] differencesBatch() {
+        MedicalReadingUtils.calculateDifferences(previousLevels, levels, doubleOut, size);
+        return doubleOut;
+    }
+
+    @Benchmark
+    public void timeDifferenceMinutes(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(MedicalReadingUtils.calculateTimeDifferenceMinutes(timestamps[i], timestamps[i + 1]));
+        }
+    }
+
+    @Benchmark
+    public long[] timeDifferencesMinutesBatch() {
+        MedicalReadingUtils.calculateTimeDifferencesMinutes(previousEpochSeconds, epochSeconds, longOut, size);
+        return longOut;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.archive.ArchivedReading;
+import com.example.demo.archive.ReadingArchive;
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.GlucoseUnit;
+import com.example.demo.patient.ReadingCursor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// The queries of ReadingRepositoryBenchmark against the same data held in the memory-mapped archive segments
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadingArchiveBenchmark {
+
+    private static final int PATIENTS = 20;
+    private static final int READINGS_PER_PATIENT = 14 * 24 * 60 / CgmDataGenerator.READING_INTERVAL_MINUTES;
+    private static final int PAGE_SIZE = 500;
+    private static final LocalDateTime END = CgmDataGenerator.START.plusDays(14);
+
+    private Path directory;
+    private ReadingArchive archive;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("reading-archive-benchmark");
+        archive = new ReadingArchive(directory);
+
+        List<ArchivedReading> readings = new ArrayList<>(PATIENTS * READINGS_PER_PATIENT);
+        long id = 1;
+        for (int p = 0; p < PATIENTS; p++) {
+            for (BloodSugarReading reading : CgmDataGenerator.readings(p, READINGS_PER_PATIENT)) {
+                GlucoseUnit unit = GlucoseUnit.fromSymbol(reading.getUnit());
+                readings.add(new ArchivedReading(id++, p + 1L, reading.getTimestamp(),
+                        unit.toTenthsMgDl(reading.getLevel()), unit, "cgm-" + p, 0L));
+            }
+        }
+        archive.merge(YearMonth.from(CgmDataGenerator.START), readings.iterator());
+
+        System.out.printf("%nArchive holds %d readings in %d bytes (%.2f bytes per reading)%n",
+                readings.size(), directorySize(), (double) directorySize() / readings.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private long directorySize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long size = 0;
+            for (Path file : files.toList()) {
+                size += Files.size(file);
+            }
+            return size;
+        }
+    }
+
+    private long nextPatientId() {
+        next = (next + 1) % PATIENTS;
+        return next + 1L;
+    }
+
+    @Benchmark
+    public List<ArchivedReading> firstPage() {
+        return archive.findPage(nextPatientId(), CgmDataGenerator.START, null, END, PAGE_SIZE + 1);
+    }
+
+    @Benchmark
+    public List<ArchivedReading> pageAfterMidHistory() {
+        return archive.findPage(nextPatientId(), CgmDataGenerator.START,
+                new ReadingCursor(CgmDataGenerator.START.plusDays(7), Long.MAX_VALUE), END, PAGE_SIZE + 1);
+    }
+
+    @Benchmark
+    public long oneDayOfSamples() {
+        long[] sum = new long[1];
+        archive.forEach(nextPatientId(), CgmDataGenerator.START.plusDays(3), CgmDataGenerator.START.plusDays(4),
+                reading -> sum[0] += reading.levelTenthsMgDl());
+        return sum[0];
+    }
+
+    @Benchmark
+    public long streamTwoWeeksOfSamples() {
+        long[] sum = new long[1];
+        archive.forEach(nextPatientId(), CgmDataGenerator.START, END, reading -> sum[0] += reading.levelTenthsMgDl());
+        return sum[0];
+    }
+}
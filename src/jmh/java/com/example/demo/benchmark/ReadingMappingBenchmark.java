@@ -0,0 +1,116 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientDTO;
+import com.example.demo.json.CompactReadingsHttpMessageConverter;
+import com.example.demo.json.ReadingJsonModule;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// DTO mapping and JSON serialisation of a patient's reading history
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadingMappingBenchmark {
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private List<BloodSugarReading> readings;
+    private Patient patient;
+    private List<BloodSugarReadingDTO> readingDTOs;
+    private ObjectWriter writer;
+    private ObjectWriter fastWriter;
+    private ObjectWriter patientWriter;
+    private ObjectWriter fastPatientWriter;
+    private PatientDTO patientDTO;
+    private final CompactReadingsHttpMessageConverter compactConverter = new CompactReadingsHttpMessageConverter();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        patient = CgmDataGenerator.patient(0);
+        patient.setId(1L);
+        readings = CgmDataGenerator.readings(0, size);
+        long id = 1;
+        for (BloodSugarReading reading : readings) {
+            reading.setId(id++);
+            patient.addBloodSugarReading(reading);
+        }
+        readingDTOs = mapReadings();
+        // Same Jackson setup as the application's HTTP message converters, which Spring Boot has write dates as text
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        ObjectMapper fastMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new ReadingJsonModule())
+                .build();
+        writer = mapper.writerFor(new TypeReference<List<BloodSugarReadingDTO>>() { });
+        fastWriter = fastMapper.writerFor(new TypeReference<List<BloodSugarReadingDTO>>() { });
+        patientWriter = mapper.writerFor(PatientDTO.class);
+        fastPatientWriter = fastMapper.writerFor(PatientDTO.class);
+        patientDTO = mapPatientWithReadings();
+    }
+
+    @Benchmark
+    public List<BloodSugarReadingDTO> mapReadings() {
+        List<BloodSugarReadingDTO> dtos = new ArrayList<>(readings.size());
+        for (BloodSugarReading reading : readings) {
+            dtos.add(BloodSugarReadingDTO.fromEntity(reading));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public PatientDTO mapPatientWithReadings() {
+        return PatientDTO.fromEntity(patient);
+    }
+
+    @Benchmark
+    public byte[] serializeReadings() throws JsonProcessingException {
+        return writer.writeValueAsBytes(readingDTOs);
+    }
+
+    @Benchmark
+    public byte[] serializeReadingsFastPath() throws JsonProcessingException {
+        return fastWriter.writeValueAsBytes(readingDTOs);
+    }
+
+    @Benchmark
+    public byte[] serializeReadingsCompact() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compactConverter.writeTo(readingDTOs, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializePatientWithReadings() throws JsonProcessingException {
+        return patientWriter.writeValueAsBytes(patientDTO);
+    }
+
+    @Benchmark
+    public byte[] serializePatientWithReadingsFastPath() throws JsonProcessingException {
+        return fastPatientWriter.writeValueAsBytes(patientDTO);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializeReadings() throws JsonProcessingException {
+        return writer.writeValueAsBytes(mapReadings());
+    }
+}
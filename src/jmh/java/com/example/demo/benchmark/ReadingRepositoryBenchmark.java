@@ -0,0 +1,109 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import com.example.demo.patient.ReadingSample;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Repository queries against an embedded H2 seeded with two weeks of five-minute CGM data per patient
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadingRepositoryBenchmark {
+
+    private static final int PATIENTS = 20;
+    private static final int READINGS_PER_PATIENT = 14 * 24 * 60 / CgmDataGenerator.READING_INTERVAL_MINUTES;
+    private static final int PAGE_SIZE = 500;
+    private static final LocalDateTime END = CgmDataGenerator.START.plusDays(14);
+
+    private ConfigurableApplicationContext context;
+    private BloodSugarReadingRepository readingRepository;
+    private TransactionTemplate transactionTemplate;
+    private long[] patientIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+        PatientRepository patientRepository = context.getBean(PatientRepository.class);
+        readingRepository = context.getBean(BloodSugarReadingRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        patientIds = new long[PATIENTS];
+        for (int p = 0; p < PATIENTS; p++) {
+            int index = p;
+            patientIds[p] = transactionTemplate.execute(status -> {
+                Patient patient = patientRepository.save(CgmDataGenerator.patient(index));
+                List<BloodSugarReading> readings = CgmDataGenerator.readings(index, READINGS_PER_PATIENT);
+                readings.forEach(patient::addBloodSugarReading);
+                readingRepository.saveAll(readings);
+                return patient.getId();
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long nextPatientId() {
+        next = (next + 1) % PATIENTS;
+        return patientIds[next];
+    }
+
+    @Benchmark
+    public List<BloodSugarReading> findByPatientId() {
+        return readingRepository.findByPatientId(nextPatientId());
+    }
+
+    @Benchmark
+    public List<BloodSugarReading> firstPage() {
+        return readingRepository.findByPatientIdAndTimestampBetweenOrderByTimestampAscIdAsc(
+                nextPatientId(), CgmDataGenerator.START, END, Limit.of(PAGE_SIZE + 1));
+    }
+
+    @Benchmark
+    public List<BloodSugarReading> pageAfterMidHistory() {
+        return readingRepository.findPageAfter(nextPatientId(), CgmDataGenerator.START.plusDays(7), Long.MAX_VALUE,
+                END, Limit.of(PAGE_SIZE + 1));
+    }
+
+    @Benchmark
+    public List<ReadingSample> oneDayOfSamples() {
+        return readingRepository.findSamples(nextPatientId(), CgmDataGenerator.START.plusDays(3),
+                CgmDataGenerator.START.plusDays(4));
+    }
+
+    @Benchmark
+    public long streamTwoWeeksOfSamples() {
+        long patientId = nextPatientId();
+        return transactionTemplate.execute(status -> {
+            try (Stream<ReadingSample> samples = readingRepository.streamSamples(patientId, CgmDataGenerator.START, END)) {
+                return samples.mapToLong(ReadingSample::levelTenthsMgDl).sum();
+            }
+        });
+    }
+}
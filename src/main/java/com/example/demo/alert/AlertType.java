@@ -0,0 +1,10 @@
+package com.example.demo.alert;
+
+public enum AlertType {
+    // Level below the urgent-low threshold
+    URGENT_LOW,
+    // Level above the high threshold for the whole sustained-high duration
+    SUSTAINED_HIGH,
+    // Level falling faster than the fall-rate threshold
+    RAPID_FALL
+}
@@ -0,0 +1,48 @@
+package com.example.demo.alert;
+
+import com.example.demo.constants.ApiConstants;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An alert raised by {@link GlycemicAlertEngine}, pointing at the reading that triggered it.
+ * The rule value is rule specific: the level for an urgent low, the minutes spent high for a sustained high
+ * and the rate in mg/dL per minute for a rapid fall.
+ */
+@Entity
+@Table(name = ApiConstants.Tables.GLYCEMIC_ALERTS, indexes = {
+        @Index(name = ApiConstants.Indexes.ALERTS_PATIENT_TRIGGERED_AT,
+                columnList = ApiConstants.Indexes.ALERTS_PATIENT_TRIGGERED_AT_COLUMNS)
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class GlycemicAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = ApiConstants.Columns.PATIENT_ID, nullable = false)
+    private Long patientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private AlertType type;
+
+    @Column(nullable = false)
+    private LocalDateTime triggeredAt;
+
+    private Long readingId;
+
+    private double levelMgDl;
+
+    private double ruleValue;
+}
@@ -0,0 +1,39 @@
+package com.example.demo.alert;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.PatientExistenceCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@RestController
+@RequestMapping(ApiConstants.Paths.API_PATIENTS_READINGS)
+@RequiredArgsConstructor
+public class GlycemicAlertController {
+
+    private final GlycemicAlertEngine glycemicAlertEngine;
+    private final PatientExistenceCache patientExistenceCache;
+
+    @GetMapping(ApiConstants.Paths.ALERTS)
+    public ResponseEntity<List<GlycemicAlertDTO>> getAlerts(
+            @PathVariable Long patientId,
+            @RequestParam(name = ApiConstants.QueryParams.FROM)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = ApiConstants.QueryParams.TO)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_TIME_RANGE);
+        }
+        patientExistenceCache.ensureExists(patientId);
+
+        List<GlycemicAlertDTO> alertDTOs = glycemicAlertEngine.findAlerts(patientId, from, to).stream()
+                .map(GlycemicAlertDTO::fromEntity)
+                .toList();
+        return ResponseEntity.ok(alertDTOs);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.alert;
+
+import com.example.demo.constants.ApiConstants;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+@ToString
+public class GlycemicAlertDTO {
+    private Long id;
+    private Long patientId;
+    private AlertType type;
+    private LocalDateTime triggeredAt;
+    private Long readingId;
+    private double level;
+    private double value;
+    private String unit;
+
+    // Static factory method to convert from Entity to DTO
+    public static GlycemicAlertDTO fromEntity(GlycemicAlert alert) {
+        if (alert == null) {
+            return null;
+        }
+        return new GlycemicAlertDTO(
+            alert.getId(),
+            alert.getPatientId(),
+            alert.getType(),
+            alert.getTriggeredAt(),
+            alert.getReadingId(),
+            alert.getLevelMgDl(),
+            alert.getRuleValue(),
+            ApiConstants.Units.MG_DL
+        );
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.alert;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.PatientDeletedEvent;
+import com.example.demo.patient.ReadingSnapshot;
+import com.example.demo.patient.ReadingsChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Evaluates the alert rules on every newly created reading as its transaction commits, instead of re-querying
+ * the patient's history. Each patient's recent readings live in a small in-memory {@link PatientAlertState};
+ * states of idle patients are dropped and rebuilt from the next readings, so a sustained high that started
+ * before a restart or an eviction is only detected once it has lasted the full duration again.
+ * <p>
+ * Readings taken more than {@code max-gap} before now are not fed to the rules: an import of history, or a device
+ * syncing after a long time offline, describes episodes that are over, and alerting on them now would only page
+ * someone needlessly. A later reading would start every rule afresh after such a gap anyway.
+ */
+@Slf4j
+@Service
+public class GlycemicAlertEngine {
+
+    private final GlycemicAlertRepository glycemicAlertRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final GlycemicAlertRules rules;
+    private final int windowCapacity;
+    private final Duration horizon;
+    private final Cache<Long, PatientAlertState> states;
+    private final List<GlycemicAlertListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<AlertType, Counter> raisedByType = new EnumMap<>(AlertType.class);
+
+    public GlycemicAlertEngine(GlycemicAlertRepository glycemicAlertRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               ObjectProvider<GlycemicAlertListener> listenerBeans,
+                               @Value("${readings.alerts.urgent-low:54}") double urgentLowMgDl,
+                               @Value("${readings.alerts.high:180}") double highMgDl,
+                               @Value("${readings.alerts.sustained-high:2h}") Duration sustainedHigh,
+                               @Value("${readings.alerts.fall-rate:2.0}") double fallRateMgDlPerMinute,
+                               @Value("${readings.alerts.fall-rate-window:15m}") Duration fallRateWindow,
+                               @Value("${readings.alerts.max-gap:30m}") Duration maxGap,
+                               @Value("${readings.alerts.window-capacity:16}") int windowCapacity,
+                               @Value("${readings.alerts.max-patients:100000}") long maxPatients,
+                               @Value("${readings.alerts.idle-expiry:6h}") Duration idleExpiry) {
+        this.glycemicAlertRepository = glycemicAlertRepository;
+        // The triggering transaction has already committed, so alerts are stored in a new one
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rules = new GlycemicAlertRules(urgentLowMgDl, highMgDl, sustainedHigh.toMinutes(),
+                fallRateMgDlPerMinute, fallRateWindow.toMinutes(), maxGap.toMinutes());
+        this.windowCapacity = windowCapacity;
+        this.horizon = maxGap;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(maxPatients)
+                .expireAfterAccess(idleExpiry)
+                .build();
+        listenerBeans.orderedStream().forEach(listeners::add);
+        for (AlertType type : AlertType.values()) {
+            raisedByType.put(type, Counter.builder(ApiConstants.Metrics.ALERTS_RAISED)
+                    .description("Glycemic alerts raised, by rule")
+                    .tag(ApiConstants.Metrics.TAG_TYPE, type.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public void addListener(GlycemicAlertListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GlycemicAlertListener listener) {
+        listeners.remove(listener);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReadingsChanged(ReadingsChangedEvent event) {
+        if (event.added().isEmpty() || !event.removed().isEmpty()) {
+            // Only newly created readings feed the rules; edits to history do not raise alerts
+            return;
+        }
+        List<ReadingSnapshot> readings = event.added();
+        if (readings.size() > 1) {
+            readings = new ArrayList<>(readings);
+            readings.sort(Comparator.comparing(ReadingSnapshot::timestamp).thenComparing(ReadingSnapshot::id));
+        }
+        LocalDateTime oldestCurrent = LocalDateTime.now().minus(horizon);
+        if (readings.get(0).timestamp().isBefore(oldestCurrent)) {
+            readings = readings.stream().filter(reading -> !reading.timestamp().isBefore(oldestCurrent)).toList();
+            if (readings.isEmpty()) {
+                return;
+            }
+        }
+
+        List<GlycemicAlert> raised = evaluate(event.patientId(), readings);
+        if (raised.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> glycemicAlertRepository.saveAll(raised));
+        for (GlycemicAlert alert : raised) {
+            raisedByType.get(alert.getType()).increment();
+            notifyListeners(GlycemicAlertDTO.fromEntity(alert));
+        }
+    }
+
+    @EventListener
+    @Transactional
+    public void onPatientDeleted(PatientDeletedEvent event) {
+        glycemicAlertRepository.deleteByPatientId(event.patientId());
+        states.invalidate(event.patientId());
+    }
+
+    @Transactional(readOnly = true)
+    public List<GlycemicAlert> findAlerts(Long patientId, LocalDateTime from, LocalDateTime to) {
+        return glycemicAlertRepository.findByPatientIdAndTriggeredAtBetweenOrderByTriggeredAtAscIdAsc(patientId, from, to);
+    }
+
+    private List<GlycemicAlert> evaluate(Long patientId, List<ReadingSnapshot> readings) {
+        PatientAlertState state = states.get(patientId, id -> new PatientAlertState(rules, windowCapacity));
+        List<GlycemicAlert> raised = List.of();
+        // Commits for the same patient can arrive on several threads at once
+        synchronized (state) {
+            for (ReadingSnapshot reading : readings) {
+                double levelMgDl = reading.levelMgDl();
+                for (PatientAlertState.TriggeredAlert triggered : state.accept(reading.timestamp(), levelMgDl)) {
+                    if (raised.isEmpty()) {
+                        raised = new ArrayList<>();
+                    }
+                    raised.add(GlycemicAlert.builder()
+                            .patientId(patientId)
+                            .type(triggered.type())
+                            .triggeredAt(reading.timestamp())
+                            .readingId(reading.id())
+                            .levelMgDl(levelMgDl)
+                            .ruleValue(triggered.value())
+                            .build());
+                }
+            }
+        }
+        return raised;
+    }
+
+    private void notifyListeners(GlycemicAlertDTO alert) {
+        for (GlycemicAlertListener listener : listeners) {
+            try {
+                listener.onAlert(alert);
+            } catch (RuntimeException e) {
+                log.warn("Alert listener {} failed for alert {}", listener, alert.getId(), e);
+            }
+        }
+    }
+}
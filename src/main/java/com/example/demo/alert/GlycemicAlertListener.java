@@ -0,0 +1,12 @@
+package com.example.demo.alert;
+
+/**
+ * In-process subscriber to raised alerts. Beans implementing this interface are registered automatically;
+ * others can be added through {@link GlycemicAlertEngine#addListener}. Called once the alert is stored,
+ * on the thread that committed the triggering readings, so implementations should hand off slow work.
+ */
+@FunctionalInterface
+public interface GlycemicAlertListener {
+
+    void onAlert(GlycemicAlertDTO alert);
+}
@@ -0,0 +1,22 @@
+package com.example.demo.alert;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface GlycemicAlertRepository extends JpaRepository<GlycemicAlert, Long> {
+
+    // Range scan on the (patient_id, triggered_at) index
+    List<GlycemicAlert> findByPatientIdAndTriggeredAtBetweenOrderByTriggeredAtAscIdAsc(
+            Long patientId, LocalDateTime start, LocalDateTime end);
+
+    @Modifying
+    @Query("delete from GlycemicAlert a where a.patientId = :patientId")
+    void deleteByPatientId(@Param("patientId") Long patientId);
+}
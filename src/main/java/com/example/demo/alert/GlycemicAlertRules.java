@@ -0,0 +1,15 @@
+package com.example.demo.alert;
+
+/**
+ * Thresholds of the alert rules, levels in mg/dL and durations in minutes.
+ *
+ * @param urgentLowMgDl         an urgent low is raised when a level falls below this
+ * @param highMgDl              levels above this count towards a sustained high
+ * @param sustainedHighMinutes  how long levels must stay high before a sustained high is raised
+ * @param fallRateMgDlPerMinute a rapid fall is raised when the level drops faster than this
+ * @param fallRateWindowMinutes span of recent readings the fall rate is measured over
+ * @param maxGapMinutes         a longer gap between readings starts every rule afresh
+ */
+public record GlycemicAlertRules(double urgentLowMgDl, double highMgDl, long sustainedHighMinutes,
+                                 double fallRateMgDlPerMinute, long fallRateWindowMinutes, long maxGapMinutes) {
+}
@@ -0,0 +1,129 @@
+package com.example.demo.alert;
+
+import com.example.demo.utils.MedicalReadingUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sliding-window state of one patient's recent readings. Each reading is evaluated against every rule in O(1):
+ * the fall rate compares it with the oldest reading still inside the rate window of a fixed-size ring buffer,
+ * and the sustained high only tracks when the current high run started.
+ * <p>
+ * Alerts are edge triggered: a rule fires when its condition starts to hold and re-arms once it stops.
+ * Readings not newer than the latest one seen (backfill, replays) are ignored. Not thread-safe.
+ */
+final class PatientAlertState {
+
+    // Readings closer together than this are too noisy for a rate
+    private static final long MIN_RATE_SPAN_MINUTES = 5;
+
+    record TriggeredAlert(AlertType type, double value) {
+    }
+
+    private final GlycemicAlertRules rules;
+    private final LocalDateTime[] timestamps;
+    private final double[] levels;
+    private int head;
+    private int size;
+
+    private boolean inUrgentLow;
+    private LocalDateTime highSince;
+    private boolean sustainedHighRaised;
+    private boolean falling;
+
+    PatientAlertState(GlycemicAlertRules rules, int capacity) {
+        this.rules = rules;
+        this.timestamps = new LocalDateTime[capacity];
+        this.levels = new double[capacity];
+    }
+
+    List<TriggeredAlert> accept(LocalDateTime timestamp, double levelMgDl) {
+        if (size > 0) {
+            LocalDateTime latest = timestamps[index(size - 1)];
+            if (!timestamp.isAfter(latest)) {
+                return List.of();
+            }
+            if (MedicalReadingUtils.calculateTimeDifferenceMinutes(latest, timestamp) > rules.maxGapMinutes()) {
+                reset();
+            }
+        }
+
+        List<TriggeredAlert> triggered = null;
+
+        boolean urgentLow = levelMgDl < rules.urgentLowMgDl();
+        if (urgentLow && !inUrgentLow) {
+            triggered = add(triggered, new TriggeredAlert(AlertType.URGENT_LOW, levelMgDl));
+        }
+        inUrgentLow = urgentLow;
+
+        if (levelMgDl > rules.highMgDl()) {
+            if (highSince == null) {
+                highSince = timestamp;
+            }
+            long minutesHigh = MedicalReadingUtils.calculateTimeDifferenceMinutes(highSince, timestamp);
+            if (!sustainedHighRaised && minutesHigh >= rules.sustainedHighMinutes()) {
+                sustainedHighRaised = true;
+                triggered = add(triggered, new TriggeredAlert(AlertType.SUSTAINED_HIGH, minutesHigh));
+            }
+        } else {
+            highSince = null;
+            sustainedHighRaised = false;
+        }
+
+        push(timestamp, levelMgDl);
+        // Each reading is evicted at most once, so this stays O(1) amortised
+        while (size > 1 && MedicalReadingUtils.calculateTimeDifferenceMinutes(timestamps[head], timestamp)
+                > rules.fallRateWindowMinutes()) {
+            evictOldest();
+        }
+        long spanMinutes = MedicalReadingUtils.calculateTimeDifferenceMinutes(timestamps[head], timestamp);
+        if (spanMinutes >= MIN_RATE_SPAN_MINUTES) {
+            double rate = MedicalReadingUtils.calculateDifference(levels[head], levelMgDl) / spanMinutes;
+            boolean fallingFast = rate < -rules.fallRateMgDlPerMinute();
+            if (fallingFast && !falling) {
+                triggered = add(triggered, new TriggeredAlert(AlertType.RAPID_FALL, rate));
+            }
+            falling = fallingFast;
+        }
+
+        return triggered == null ? List.of() : triggered;
+    }
+
+    private void push(LocalDateTime timestamp, double levelMgDl) {
+        if (size == timestamps.length) {
+            evictOldest();
+        }
+        int tail = index(size);
+        timestamps[tail] = timestamp;
+        levels[tail] = levelMgDl;
+        size++;
+    }
+
+    private void evictOldest() {
+        timestamps[head] = null;
+        head = (head + 1) % timestamps.length;
+        size--;
+    }
+
+    private int index(int offset) {
+        return (head + offset) % timestamps.length;
+    }
+
+    private void reset() {
+        while (size > 0) {
+            evictOldest();
+        }
+        inUrgentLow = false;
+        highSince = null;
+        sustainedHighRaised = false;
+        falling = false;
+    }
+
+    private static List<TriggeredAlert> add(List<TriggeredAlert> triggered, TriggeredAlert alert) {
+        List<TriggeredAlert> result = triggered == null ? new ArrayList<>(2) : triggered;
+        result.add(alert);
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.analytics;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.PatientExistenceCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+
+@RestController
+@RequiredArgsConstructor
+public class GlycemicMetricsController {
+
+    private final GlycemicMetricsService glycemicMetricsService;
+    private final PatientExistenceCache patientExistenceCache;
+
+    @GetMapping(ApiConstants.Paths.API_PATIENTS_READINGS + ApiConstants.Paths.METRICS)
+    public ResponseEntity<GlycemicMetricsDTO> getPatientMetrics(
+            @PathVariable Long patientId,
+            @RequestParam(name = ApiConstants.QueryParams.FROM)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = ApiConstants.QueryParams.TO)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        validateWindow(from, to);
+        patientExistenceCache.ensureExists(patientId);
+        return ResponseEntity.ok(glycemicMetricsService.computeForPatient(patientId, from, to));
+    }
+
+    @GetMapping(ApiConstants.Paths.API_PATIENTS_METRICS)
+    public ResponseEntity<List<GlycemicMetricsDTO>> getCohortMetrics(
+            @RequestParam(name = ApiConstants.QueryParams.FROM)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = ApiConstants.QueryParams.TO)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        validateWindow(from, to);
+        List<GlycemicMetricsDTO> metrics = new ArrayList<>();
+        glycemicMetricsService.computeForAllPatients(from, to, metrics::add);
+        return ResponseEntity.ok(metrics);
+    }
+
+    private static void validateWindow(LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_TIME_RANGE);
+        }
+    }
+}
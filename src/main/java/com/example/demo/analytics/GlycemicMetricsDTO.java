@@ -0,0 +1,49 @@
+package com.example.demo.analytics;
+
+import com.example.demo.utils.GlycemicMetrics;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GlycemicMetricsDTO {
+    private Long patientId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long count;
+    private Double meanGlucose;
+    private Double standardDeviation;
+    private Double coefficientOfVariation;
+    private Double glucoseManagementIndicator;
+    private Double estimatedA1c;
+    private Double timeBelowRange;
+    private Double timeInRange;
+    private Double timeAboveRange;
+
+    // Static factory method; metrics may be null for a window without readings
+    public static GlycemicMetricsDTO from(Long patientId, LocalDateTime from, LocalDateTime to, GlycemicMetrics metrics) {
+        GlycemicMetricsDTO dto = new GlycemicMetricsDTO();
+        dto.setPatientId(patientId);
+        dto.setFrom(from);
+        dto.setTo(to);
+        if (metrics != null) {
+            dto.setCount(metrics.count());
+            dto.setMeanGlucose(metrics.meanGlucose());
+            dto.setStandardDeviation(metrics.standardDeviation());
+            dto.setCoefficientOfVariation(metrics.coefficientOfVariation());
+            dto.setGlucoseManagementIndicator(metrics.glucoseManagementIndicator());
+            dto.setEstimatedA1c(metrics.estimatedA1c());
+            dto.setTimeBelowRange(metrics.timeBelowRange());
+            dto.setTimeInRange(metrics.timeInRange());
+            dto.setTimeAboveRange(metrics.timeAboveRange());
+        }
+        return dto;
+    }
+}
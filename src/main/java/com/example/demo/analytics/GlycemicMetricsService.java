@@ -0,0 +1,103 @@
+package com.example.demo.analytics;
+
+import com.example.demo.archive.ArchivedReading;
+import com.example.demo.archive.ReadingArchive;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.ReadingSample;
+import com.example.demo.utils.GlycemicMetricsAccumulator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Computes glycemic metrics in one forward pass over reading projections; no reading entities are
+ * loaded and memory use does not depend on the number of readings.
+ */
+@Service
+@RequiredArgsConstructor
+public class GlycemicMetricsService {
+
+    private final BloodSugarReadingRepository bloodSugarReadingRepository;
+    private final ReadingArchive readingArchive;
+
+    @Transactional(readOnly = true)
+    public GlycemicMetricsDTO computeForPatient(Long patientId, LocalDateTime from, LocalDateTime to) {
+        GlycemicMetricsAccumulator accumulator = new GlycemicMetricsAccumulator();
+        try (Stream<ReadingSample> samples = bloodSugarReadingRepository.streamSamples(patientId, from, to)) {
+            samples.forEach(sample -> accumulator.addMgDl(sample.levelMgDl()));
+        }
+        // The metrics do not depend on order, so archived months are simply added
+        forEachArchivedNotInTable(patientId, from, to, reading -> accumulator.addMgDl(reading.levelMgDl()));
+        return GlycemicMetricsDTO.from(patientId, from, to, accumulator.result());
+    }
+
+    /**
+     * Streams the window for every patient in patient order and hands each patient's metrics to the
+     * consumer as soon as that patient is complete. Patients without readings in the window are skipped.
+     * Patients with archived readings in the window are merged in by id from the archive's partition indexes.
+     * A reading in both places, because its month is being archived, counts once, with the table's values.
+     */
+    @Transactional(readOnly = true)
+    public void computeForAllPatients(LocalDateTime from, LocalDateTime to, Consumer<GlycemicMetricsDTO> consumer) {
+        GlycemicMetricsAccumulator accumulator = new GlycemicMetricsAccumulator();
+        long[] archivedPatientIds = readingArchive.patientIds(from, to);
+        int nextArchived = 0;
+        Long currentPatientId = null;
+        try (Stream<ReadingSample> samples = bloodSugarReadingRepository.streamSamplesByPatient(from, to)) {
+            for (ReadingSample sample : (Iterable<ReadingSample>) samples::iterator) {
+                if (!Objects.equals(currentPatientId, sample.patientId())) {
+                    if (currentPatientId != null) {
+                        consumer.accept(GlycemicMetricsDTO.from(currentPatientId, from, to, accumulator.result()));
+                    }
+                    while (nextArchived < archivedPatientIds.length && archivedPatientIds[nextArchived] < sample.patientId()) {
+                        computeArchived(archivedPatientIds[nextArchived++], from, to, accumulator, consumer);
+                    }
+                    accumulator.reset();
+                    currentPatientId = sample.patientId();
+                    if (nextArchived < archivedPatientIds.length && archivedPatientIds[nextArchived] == currentPatientId) {
+                        forEachArchivedNotInTable(archivedPatientIds[nextArchived++], from, to,
+                                reading -> accumulator.addMgDl(reading.levelMgDl()));
+                    }
+                }
+                accumulator.addMgDl(sample.levelMgDl());
+            }
+        }
+        if (currentPatientId != null) {
+            consumer.accept(GlycemicMetricsDTO.from(currentPatientId, from, to, accumulator.result()));
+        }
+        while (nextArchived < archivedPatientIds.length) {
+            computeArchived(archivedPatientIds[nextArchived++], from, to, accumulator, consumer);
+        }
+    }
+
+    // While a month is being archived its readings are in both places; the table's copy wins
+    private void forEachArchivedNotInTable(Long patientId, LocalDateTime from, LocalDateTime to,
+                                           Consumer<ArchivedReading> action) {
+        if (!readingArchive.overlaps(from, to)) {
+            return;
+        }
+        Set<Long> storedIds = new HashSet<>(bloodSugarReadingRepository.findIds(patientId, from, readingArchive.archivedBefore()));
+        readingArchive.forEach(patientId, from, to, reading -> {
+            if (!storedIds.contains(reading.id())) {
+                action.accept(reading);
+            }
+        });
+    }
+
+    // A patient whose readings in the window are all archived
+    private void computeArchived(long patientId, LocalDateTime from, LocalDateTime to,
+                                 GlycemicMetricsAccumulator accumulator, Consumer<GlycemicMetricsDTO> consumer) {
+        accumulator.reset();
+        readingArchive.forEach(patientId, from, to, reading -> accumulator.addMgDl(reading.levelMgDl()));
+        if (accumulator.getCount() > 0) {
+            consumer.accept(GlycemicMetricsDTO.from(patientId, from, to, accumulator.result()));
+        }
+    }
+}
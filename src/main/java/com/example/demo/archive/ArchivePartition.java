@@ -0,0 +1,289 @@
+package com.example.demo.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * One month of archived readings in an immutable, memory-mapped file. Each patient's readings are cut into
+ * segments of up to {@value #SEGMENT_SIZE} readings in (timestamp, id) order and bit-packed by
+ * {@link ReadingSegmentCodec}; the segments are followed by an index sorted by patient id and then time, and a
+ * fixed-size trailer. Each index entry carries the segment's first and last timestamp, so a range query decodes
+ * only the segments it overlaps.
+ * <p>
+ * The whole file is mapped when the partition is opened. A partition is replaced by writing a new generation and
+ * deleting the old file; the old mapping stays readable until the last reader holding it lets go.
+ */
+final class ArchivePartition {
+
+    static final int SEGMENT_SIZE = 1024;
+
+    private static final int MAGIC = 0x42535241; // "BSRA"
+    private static final int FORMAT_VERSION = 2;
+    private static final int INDEX_ENTRY_SIZE = 40;
+    private static final int TRAILER_SIZE = 20;
+
+    private final YearMonth month;
+    private final long generation;
+    private final Path file;
+    private final MappedByteBuffer data;
+    // Distinct patients, ascending, and the position of each one's first segment (plus one past the last)
+    private final long[] patientIds;
+    private final int[] firstSegments;
+    private final long[] firstSeconds;
+    private final long[] lastSeconds;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] counts;
+
+    private ArchivePartition(YearMonth month, long generation, Path file, MappedByteBuffer data, long[] patientIds,
+                             int[] firstSegments, long[] firstSeconds, long[] lastSeconds, long[] offsets,
+                             int[] lengths, int[] counts) {
+        this.month = month;
+        this.generation = generation;
+        this.file = file;
+        this.data = data;
+        this.patientIds = patientIds;
+        this.firstSegments = firstSegments;
+        this.firstSeconds = firstSeconds;
+        this.lastSeconds = lastSeconds;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.counts = counts;
+    }
+
+    static ArchivePartition open(YearMonth month, long generation, Path file) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < TRAILER_SIZE) {
+                throw new IOException("Archive partition " + file + " is truncated");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archive partition " + file + " is too large to map");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer trailer = data.slice(data.capacity() - TRAILER_SIZE, TRAILER_SIZE);
+        long indexOffset = trailer.getLong();
+        int segmentCount = trailer.getInt();
+        if (trailer.getInt() != FORMAT_VERSION || trailer.getInt() != MAGIC) {
+            throw new IOException(file + " is not an archive partition");
+        }
+
+        ByteBuffer index = data.slice((int) indexOffset, segmentCount * INDEX_ENTRY_SIZE);
+        long[] segmentPatients = new long[segmentCount];
+        long[] firstSeconds = new long[segmentCount];
+        long[] lastSeconds = new long[segmentCount];
+        long[] offsets = new long[segmentCount];
+        int[] lengths = new int[segmentCount];
+        int[] counts = new int[segmentCount];
+        int patientCount = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            segmentPatients[i] = index.getLong();
+            firstSeconds[i] = index.getLong();
+            lastSeconds[i] = index.getLong();
+            offsets[i] = index.getLong();
+            lengths[i] = index.getInt();
+            counts[i] = index.getInt();
+            if (i == 0 || segmentPatients[i] != segmentPatients[i - 1]) {
+                patientCount++;
+            }
+        }
+        long[] patientIds = new long[patientCount];
+        int[] firstSegments = new int[patientCount + 1];
+        for (int i = 0, patient = -1; i < segmentCount; i++) {
+            if (i == 0 || segmentPatients[i] != segmentPatients[i - 1]) {
+                patientIds[++patient] = segmentPatients[i];
+                firstSegments[patient] = i;
+            }
+        }
+        firstSegments[patientCount] = segmentCount;
+        return new ArchivePartition(month, generation, file, data, patientIds, firstSegments, firstSeconds,
+                lastSeconds, offsets, lengths, counts);
+    }
+
+    YearMonth month() {
+        return month;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int patientCount() {
+        return patientIds.length;
+    }
+
+    long patientIdAt(int position) {
+        return patientIds[position];
+    }
+
+    boolean contains(long patientId) {
+        return Arrays.binarySearch(patientIds, patientId) >= 0;
+    }
+
+    long readingCount() {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    long sizeInBytes() {
+        return data.capacity();
+    }
+
+    // The patient's readings of the month in (timestamp, id) order
+    List<ArchivedReading> read(long patientId) {
+        int position = Arrays.binarySearch(patientIds, patientId);
+        return position < 0 ? List.of() : readAt(position);
+    }
+
+    List<ArchivedReading> readAt(int position) {
+        List<ArchivedReading> readings = new ArrayList<>();
+        for (int segment = firstSegments[position]; segment < firstSegments[position + 1]; segment++) {
+            ReadingSegmentCodec.decode(segment(segment), patientIds[position], counts[segment], readings::add);
+        }
+        return readings;
+    }
+
+    /**
+     * Hands the patient's readings between {@code start} and {@code end} (inclusive) to the action in
+     * (timestamp, id) order, decoding only the segments that overlap the range, until the action returns false.
+     *
+     * @return false if the action stopped the read
+     */
+    boolean read(long patientId, LocalDateTime start, LocalDateTime end, Predicate<ArchivedReading> action) {
+        int position = Arrays.binarySearch(patientIds, patientId);
+        if (position < 0) {
+            return true;
+        }
+        // Index bounds are whole seconds, so compare against the seconds the range starts and ends in
+        long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+        long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+        boolean[] stopped = new boolean[1];
+        for (int segment = firstSegments[position]; segment < firstSegments[position + 1]; segment++) {
+            if (lastSeconds[segment] < startSecond) {
+                continue;
+            }
+            if (firstSeconds[segment] > endSecond) {
+                return true;
+            }
+            if (!ReadingSegmentCodec.decode(segment(segment), patientId, counts[segment], reading -> {
+                if (reading.timestamp().isBefore(start)) {
+                    return true;
+                }
+                if (reading.timestamp().isAfter(end)) {
+                    return false;
+                }
+                stopped[0] = !action.test(reading);
+                return !stopped[0];
+            })) {
+                return !stopped[0];
+            }
+        }
+        return true;
+    }
+
+    private ByteBuffer segment(int segment) {
+        return data.slice((int) offsets[segment], lengths[segment]);
+    }
+
+    /** Writes a new partition file; patients must be written in ascending id order. */
+    static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final List<long[]> index = new ArrayList<>();
+        private long position;
+        private int patientCount;
+        private long lastPatientId = Long.MIN_VALUE;
+
+        Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+
+        int patientCount() {
+            return patientCount;
+        }
+
+        // Readings must be in (timestamp, id) order
+        void write(long patientId, List<ArchivedReading> readings) throws IOException {
+            if (readings.isEmpty()) {
+                return;
+            }
+            startPatient(patientId);
+            for (int from = 0; from < readings.size(); from += SEGMENT_SIZE) {
+                List<ArchivedReading> segment = readings.subList(from, Math.min(from + SEGMENT_SIZE, readings.size()));
+                append(patientId,
+                        segment.get(0).timestamp().toEpochSecond(ZoneOffset.UTC),
+                        segment.get(segment.size() - 1).timestamp().toEpochSecond(ZoneOffset.UTC),
+                        ByteBuffer.wrap(ReadingSegmentCodec.encode(segment)), segment.size());
+            }
+        }
+
+        // Copies a patient's segments from another partition without decoding them
+        void copy(ArchivePartition source, int position) throws IOException {
+            startPatient(source.patientIds[position]);
+            for (int segment = source.firstSegments[position]; segment < source.firstSegments[position + 1]; segment++) {
+                append(source.patientIds[position], source.firstSeconds[segment], source.lastSeconds[segment],
+                        source.segment(segment), source.counts[segment]);
+            }
+        }
+
+        private void startPatient(long patientId) {
+            if (patientId <= lastPatientId) {
+                throw new IllegalStateException("Archive partitions must be written in ascending patient order");
+            }
+            lastPatientId = patientId;
+            patientCount++;
+        }
+
+        private void append(long patientId, long firstSecond, long lastSecond, ByteBuffer segment, int count)
+                throws IOException {
+            int length = segment.remaining();
+            writeFully(segment);
+            index.add(new long[]{patientId, firstSecond, lastSecond, position, length, count});
+            position += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                ByteBuffer footer = ByteBuffer.allocate(index.size() * INDEX_ENTRY_SIZE + TRAILER_SIZE);
+                for (long[] entry : index) {
+                    footer.putLong(entry[0]).putLong(entry[1]).putLong(entry[2]).putLong(entry[3])
+                            .putInt((int) entry[4]).putInt((int) entry[5]);
+                }
+                footer.putLong(position).putInt(index.size()).putInt(FORMAT_VERSION).putInt(MAGIC);
+                writeFully(footer.flip());
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
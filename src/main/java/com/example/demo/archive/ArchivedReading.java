@@ -0,0 +1,20 @@
+package com.example.demo.archive;
+
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.GlucoseUnit;
+
+import java.time.LocalDateTime;
+
+// A reading as moved into the archive; also the projection the archival job and the history export read from the table
+public record ArchivedReading(Long id, Long patientId, LocalDateTime timestamp, int levelTenthsMgDl,
+                              GlucoseUnit entryUnit, String deviceId, Long version) {
+
+    public double levelMgDl() {
+        return levelTenthsMgDl / 10.0;
+    }
+
+    public BloodSugarReadingDTO toDTO() {
+        return new BloodSugarReadingDTO(id, timestamp, entryUnit.fromTenthsMgDl(levelTenthsMgDl),
+                entryUnit.getSymbol(), patientId, deviceId);
+    }
+}
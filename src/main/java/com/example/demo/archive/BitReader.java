@@ -0,0 +1,34 @@
+package com.example.demo.archive;
+
+import java.nio.ByteBuffer;
+
+// Reads what a BitWriter wrote from a buffer, using absolute gets only so the buffer can be shared between threads
+final class BitReader {
+
+    private final ByteBuffer buffer;
+    private int nextByte;
+    private long pending;
+    private int pendingBits;
+
+    BitReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    boolean readBit() {
+        return readBits(1) == 1;
+    }
+
+    // 1 to 64 bits
+    long readBits(int bits) {
+        if (bits > 32) {
+            long high = readBits(bits - 32);
+            return (high << 32) | readBits(32);
+        }
+        while (pendingBits < bits) {
+            pending = (pending << 8) | (buffer.get(nextByte++) & 0xFF);
+            pendingBits += 8;
+        }
+        pendingBits -= bits;
+        return (pending >>> pendingBits) & ((1L << bits) - 1);
+    }
+}
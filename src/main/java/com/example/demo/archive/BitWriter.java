@@ -0,0 +1,51 @@
+package com.example.demo.archive;
+
+import java.util.Arrays;
+
+// Appends values of arbitrary bit width, most significant bit first
+final class BitWriter {
+
+    private byte[] bytes;
+    private int size;
+    private long pending;
+    private int pendingBits;
+
+    BitWriter(int expectedBytes) {
+        this.bytes = new byte[Math.max(16, expectedBytes)];
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    // The low {@code bits} bits of the value, 1 to 64
+    void writeBits(long value, int bits) {
+        if (bits > 32) {
+            writeBits(value >>> 32, bits - 32);
+            writeBits(value, 32);
+            return;
+        }
+        pending = (pending << bits) | (value & ((1L << bits) - 1));
+        pendingBits += bits;
+        while (pendingBits >= 8) {
+            pendingBits -= 8;
+            append((byte) (pending >>> pendingBits));
+        }
+    }
+
+    // Pads the last byte with zero bits
+    byte[] toByteArray() {
+        if (pendingBits > 0) {
+            append((byte) (pending << (8 - pendingBits)));
+            pendingBits = 0;
+        }
+        return Arrays.copyOf(bytes, size);
+    }
+
+    private void append(byte value) {
+        if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, size * 2);
+        }
+        bytes[size++] = value;
+    }
+}
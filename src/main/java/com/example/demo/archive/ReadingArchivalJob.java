@@ -0,0 +1,179 @@
+package com.example.demo.archive;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Periodically moves months that ended more than {@code readings.archive.after-months} ago from the readings
+ * table into the {@link ReadingArchive}.
+ * <p>
+ * A month is first merged into its archive partition, then its rows are deleted in chunks, each only if the
+ * row still has the archived version. Until then the table's copy takes precedence in queries. A row changed
+ * meanwhile stays in the table and is folded in by the next run; a row deleted meanwhile is taken out of the
+ * archive again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "readings.archive.enabled", havingValue = "true")
+public class ReadingArchivalJob {
+
+    private static final String DELETE_ARCHIVED = "delete from " + ApiConstants.Tables.BLOOD_SUGAR_READINGS
+            + " where id = ? and version = ?";
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final BloodSugarReadingRepository bloodSugarReadingRepository;
+    private final ReadingArchive readingArchive;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int afterMonths;
+    private final ScheduledExecutorService scheduler;
+    private final Counter archived;
+
+    public ReadingArchivalJob(BloodSugarReadingRepository bloodSugarReadingRepository, ReadingArchive readingArchive,
+                              JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${readings.archive.after-months:12}") int afterMonths,
+                              @Value("${readings.archive.initial-delay:10m}") Duration initialDelay,
+                              @Value("${readings.archive.interval:1d}") Duration interval) {
+        this.bloodSugarReadingRepository = bloodSugarReadingRepository;
+        this.readingArchive = readingArchive;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.afterMonths = afterMonths;
+        this.archived = Counter.builder(ApiConstants.Metrics.READINGS_ARCHIVED)
+                .description("Readings moved from the readings table into the archive")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("reading-archival").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::archiveDue, initialDelay.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /** Archives every reading dated before the given month, one month at a time, and returns how many moved. */
+    public synchronized long archiveBefore(YearMonth cutoff) {
+        LocalDateTime oldest = bloodSugarReadingRepository.findOldestTimestampBefore(cutoff.atDay(1).atStartOfDay());
+        long moved = 0;
+        if (oldest == null) {
+            return moved;
+        }
+        for (YearMonth month = YearMonth.from(oldest); month.isBefore(cutoff); month = month.plusMonths(1)) {
+            moved += archiveMonth(month);
+        }
+        return moved;
+    }
+
+    private void archiveDue() {
+        try {
+            archiveBefore(YearMonth.now().minusMonths(afterMonths));
+        } catch (RuntimeException e) {
+            log.warn("Archiving readings failed, retrying on the next run", e);
+        }
+    }
+
+    private long archiveMonth(YearMonth month) {
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        ArchivedRows rows = new ArchivedRows();
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<ArchivedReading> readings = bloodSugarReadingRepository.streamForArchive(start, end)) {
+                readingArchive.merge(month, readings.peek(rows::add).iterator());
+            }
+        });
+        if (rows.size() == 0) {
+            return 0;
+        }
+
+        Map<Long, Set<Long>> vanished = new HashMap<>();
+        for (int from = 0; from < rows.size(); from += DELETE_CHUNK_SIZE) {
+            int to = Math.min(from + DELETE_CHUNK_SIZE, rows.size());
+            List<Integer> chunk = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                chunk.add(i);
+            }
+            int[][] deleted = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(DELETE_ARCHIVED, chunk,
+                    chunk.size(), (statement, i) -> {
+                        statement.setLong(1, rows.ids[i]);
+                        statement.setLong(2, rows.versions[i]);
+                    }));
+            List<Long> kept = new ArrayList<>();
+            for (int j = 0; j < chunk.size(); j++) {
+                if (deleted[0][j] == 0) {
+                    kept.add(rows.ids[chunk.get(j)]);
+                }
+            }
+            if (!kept.isEmpty()) {
+                Set<Long> existing = new HashSet<>(bloodSugarReadingRepository.findExistingIds(kept));
+                for (int j = 0; j < chunk.size(); j++) {
+                    int i = chunk.get(j);
+                    if (deleted[0][j] == 0 && !existing.contains(rows.ids[i])) {
+                        vanished.computeIfAbsent(rows.patientIds[i], id -> new HashSet<>()).add(rows.ids[i]);
+                    }
+                }
+            }
+        }
+        if (!vanished.isEmpty()) {
+            readingArchive.remove(month, vanished);
+        }
+
+        long moved = rows.size() - vanished.values().stream().mapToLong(Set::size).sum();
+        archived.increment(moved);
+        log.info("Archived {} readings of {}", moved, month);
+        return moved;
+    }
+
+    // Identity of the archived rows in primitive arrays, so a month of readings costs 24 bytes each
+    private static final class ArchivedRows {
+        private long[] ids = new long[1024];
+        private long[] versions = new long[1024];
+        private long[] patientIds = new long[1024];
+        private int size;
+
+        void add(ArchivedReading reading) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                versions = Arrays.copyOf(versions, size * 2);
+                patientIds = Arrays.copyOf(patientIds, size * 2);
+            }
+            ids[size] = reading.id();
+            versions[size] = reading.version() == null ? 0 : reading.version();
+            patientIds[size] = reading.patientId();
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
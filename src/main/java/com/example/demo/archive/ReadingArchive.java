@@ -0,0 +1,316 @@
+package com.example.demo.archive;
+
+import com.example.demo.patient.PatientDeletedEvent;
+import com.example.demo.patient.ReadingCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage for readings older than the archival cutoff, one memory-mapped {@link ArchivePartition} file per
+ * month. Queries only touch the partitions of the months their time range overlaps, and within those only decode
+ * the requested patient's segments that overlap the range.
+ * <p>
+ * Partitions are immutable. A change writes the month's next generation beside the current one and swaps it in,
+ * so readers never see a partly written month; after a crash only the newest complete generation is used.
+ */
+@Slf4j
+@Component
+public class ReadingArchive {
+
+    private static final String PARTITION_PREFIX = "readings-";
+    private static final String PARTITION_SUFFIX = ".archive";
+    private static final String STAGING_SUFFIX = ".tmp";
+    private static final Comparator<ArchivedReading> READING_ORDER =
+            Comparator.comparing(ArchivedReading::timestamp).thenComparing(ArchivedReading::id);
+
+    private final Path directory;
+    private final ConcurrentNavigableMap<YearMonth, ArchivePartition> partitions = new ConcurrentSkipListMap<>();
+
+    public ReadingArchive(@Value("${readings.archive.dir:data/archive}") Path directory) throws IOException {
+        this.directory = directory;
+        if (Files.isDirectory(directory)) {
+            load();
+        }
+    }
+
+    /** Start of the month after the newest archived one, or null when nothing is archived. */
+    public LocalDateTime archivedBefore() {
+        return partitions.isEmpty() ? null : partitions.lastKey().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime archivedBefore = archivedBefore();
+        return archivedBefore != null && start.isBefore(archivedBefore) && !end.isBefore(start);
+    }
+
+    public Set<YearMonth> months() {
+        return partitions.keySet();
+    }
+
+    public long readingCount(YearMonth month) {
+        ArchivePartition partition = partitions.get(month);
+        return partition == null ? 0 : partition.readingCount();
+    }
+
+    /**
+     * Returns up to {@code limit} of the patient's archived readings in (timestamp, id) order, from {@code start}
+     * (or after the cursor, when given) through {@code end}.
+     */
+    public List<ArchivedReading> findPage(Long patientId, LocalDateTime start, ReadingCursor after,
+                                          LocalDateTime end, int limit) {
+        List<ArchivedReading> page = new ArrayList<>();
+        LocalDateTime from = after != null ? after.timestamp() : start;
+        for (ArchivePartition partition : overlappingPartitions(from, end)) {
+            boolean more = partition.read(patientId, from, end, reading -> {
+                if (after == null || isAfter(reading, after)) {
+                    page.add(reading);
+                }
+                return page.size() < limit;
+            });
+            if (!more) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    /** Hands the patient's archived readings between {@code start} and {@code end} (inclusive) to the action. */
+    public void forEach(Long patientId, LocalDateTime start, LocalDateTime end, Consumer<ArchivedReading> action) {
+        for (ArchivePartition partition : overlappingPartitions(start, end)) {
+            partition.read(patientId, start, end, reading -> {
+                action.accept(reading);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Hands all of the patient's archived readings to the action, merged in (timestamp, id) order with the given
+     * readings the table still holds for archived months. While a month is being archived its readings are in
+     * both places; the table's copy wins.
+     */
+    public void forEach(Long patientId, List<ArchivedReading> late, Consumer<ArchivedReading> action) {
+        Set<Long> lateIds = new HashSet<>();
+        late.forEach(reading -> lateIds.add(reading.id()));
+        Iterator<ArchivedReading> pending = late.iterator();
+        ArchivedReading[] nextLate = {pending.hasNext() ? pending.next() : null};
+        for (ArchivePartition partition : partitions.values()) {
+            partition.read(patientId, LocalDateTime.MIN, LocalDateTime.MAX, reading -> {
+                while (nextLate[0] != null && READING_ORDER.compare(nextLate[0], reading) < 0) {
+                    action.accept(nextLate[0]);
+                    nextLate[0] = pending.hasNext() ? pending.next() : null;
+                }
+                if (!lateIds.contains(reading.id())) {
+                    action.accept(reading);
+                }
+                return true;
+            });
+        }
+        for (ArchivedReading reading = nextLate[0]; reading != null; reading = pending.hasNext() ? pending.next() : null) {
+            action.accept(reading);
+        }
+    }
+
+    /** Ids of the patients with archived readings in the months overlapping the range, ascending. */
+    public long[] patientIds(LocalDateTime start, LocalDateTime end) {
+        LongStream ids = LongStream.empty();
+        for (ArchivePartition partition : overlappingPartitions(start, end)) {
+            ids = LongStream.concat(ids, IntStream.range(0, partition.patientCount()).mapToLong(partition::patientIdAt));
+        }
+        return ids.sorted().distinct().toArray();
+    }
+
+    /**
+     * Adds readings of the month to its partition, replacing archived readings with the same id. The readings
+     * must arrive in ascending patient order; the new partition is visible to queries when this returns.
+     */
+    public synchronized void merge(YearMonth month, Iterator<ArchivedReading> readings) {
+        if (!readings.hasNext()) {
+            return;
+        }
+        ArchivePartition current = partitions.get(month);
+        rewrite(month, writer -> {
+            int position = 0;
+            ArchivedReading next = readings.hasNext() ? readings.next() : null;
+            while (next != null || (current != null && position < current.patientCount())) {
+                long patientId = next == null ? current.patientIdAt(position)
+                        : current == null || position >= current.patientCount() ? next.patientId()
+                        : Math.min(next.patientId(), current.patientIdAt(position));
+                boolean archived = current != null && position < current.patientCount()
+                        && current.patientIdAt(position) == patientId;
+                if (next == null || next.patientId() != patientId) {
+                    // Nothing new for this patient
+                    writer.copy(current, position++);
+                    continue;
+                }
+                Map<Long, ArchivedReading> byId = new HashMap<>();
+                if (archived) {
+                    current.readAt(position++).forEach(reading -> byId.put(reading.id(), reading));
+                }
+                while (next != null && next.patientId() == patientId) {
+                    byId.put(next.id(), next);
+                    next = readings.hasNext() ? readings.next() : null;
+                }
+                if (next != null && next.patientId() < patientId) {
+                    throw new IllegalStateException("Readings to archive must be ordered by patient");
+                }
+                List<ArchivedReading> merged = new ArrayList<>(byId.values());
+                merged.sort(READING_ORDER);
+                writer.write(patientId, merged);
+            }
+        });
+    }
+
+    /** Rewrites the month without the given readings, e.g. readings deleted while they were being archived. */
+    public synchronized void remove(YearMonth month, Map<Long, Set<Long>> readingIdsByPatient) {
+        ArchivePartition current = partitions.get(month);
+        if (current == null) {
+            return;
+        }
+        rewrite(month, writer -> {
+            for (int position = 0; position < current.patientCount(); position++) {
+                Set<Long> removed = readingIdsByPatient.get(current.patientIdAt(position));
+                if (removed == null) {
+                    writer.copy(current, position);
+                } else {
+                    List<ArchivedReading> kept = new ArrayList<>(current.readAt(position));
+                    kept.removeIf(reading -> removed.contains(reading.id()));
+                    writer.write(current.patientIdAt(position), kept);
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPatientDeleted(PatientDeletedEvent event) {
+        for (ArchivePartition current : List.copyOf(partitions.values())) {
+            if (!current.contains(event.patientId())) {
+                continue;
+            }
+            rewrite(current.month(), writer -> {
+                for (int position = 0; position < current.patientCount(); position++) {
+                    if (current.patientIdAt(position) != event.patientId()) {
+                        writer.copy(current, position);
+                    }
+                }
+            });
+        }
+    }
+
+    // A partition swapped out while a query holds it stays readable through its mapping
+    private Collection<ArchivePartition> overlappingPartitions(LocalDateTime start, LocalDateTime end) {
+        if (partitions.isEmpty() || end.isBefore(start)) {
+            return List.of();
+        }
+        return partitions.subMap(YearMonth.from(start), true, YearMonth.from(end), true).values();
+    }
+
+    private static boolean isAfter(ArchivedReading reading, ReadingCursor cursor) {
+        int compared = reading.timestamp().compareTo(cursor.timestamp());
+        return compared > 0 || (compared == 0 && reading.id() > cursor.id());
+    }
+
+    private interface PartitionContent {
+        void writeTo(ArchivePartition.Writer writer) throws IOException;
+    }
+
+    private void rewrite(YearMonth month, PartitionContent content) {
+        ArchivePartition current = partitions.get(month);
+        long generation = current == null ? 1 : current.generation() + 1;
+        Path target = partitionPath(month, generation);
+        Path staging = target.resolveSibling(target.getFileName() + STAGING_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            int patients;
+            try (ArchivePartition.Writer writer = new ArchivePartition.Writer(staging)) {
+                content.writeTo(writer);
+                patients = writer.patientCount();
+            }
+            if (patients == 0) {
+                Files.delete(staging);
+                partitions.remove(month);
+            } else {
+                Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+                partitions.put(month, ArchivePartition.open(month, generation, target));
+            }
+            if (current != null) {
+                Files.deleteIfExists(current.file());
+            }
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(staging);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Keeps the newest complete generation of every month and removes leftovers of interrupted rewrites
+    private void load() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (!name.startsWith(PARTITION_PREFIX)) {
+                    continue;
+                }
+                if (name.endsWith(STAGING_SUFFIX)) {
+                    Files.delete(file);
+                    continue;
+                }
+                if (!name.endsWith(PARTITION_SUFFIX)) {
+                    continue;
+                }
+                String[] parts = name.substring(PARTITION_PREFIX.length(), name.length() - PARTITION_SUFFIX.length()).split("\\.");
+                try {
+                    YearMonth month = YearMonth.parse(parts[0]);
+                    long generation = Long.parseLong(parts[1]);
+                    ArchivePartition existing = partitions.get(month);
+                    if (existing == null || existing.generation() < generation) {
+                        partitions.put(month, ArchivePartition.open(month, generation, file));
+                        if (existing != null) {
+                            Files.delete(existing.file());
+                        }
+                    } else {
+                        Files.delete(file);
+                    }
+                } catch (DateTimeParseException | ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                    log.warn("Ignoring unexpected file {} in the reading archive", file);
+                }
+            }
+        }
+        if (!partitions.isEmpty()) {
+            log.info("Reading archive holds {} months, {} through {}", partitions.size(), partitions.firstKey(), partitions.lastKey());
+        }
+    }
+
+    private Path partitionPath(YearMonth month, long generation) {
+        return directory.resolve(PARTITION_PREFIX + month + "." + String.format("%06d", generation) + PARTITION_SUFFIX);
+    }
+}
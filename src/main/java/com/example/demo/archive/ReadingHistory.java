@@ -0,0 +1,85 @@
+package com.example.demo.archive;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.ReadingCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Routes reading history queries across the partitions: the readings table holds the recent months (and late
+ * readings of archived months until the next archival run folds them in), the {@link ReadingArchive} one
+ * partition per older month. The archive is only consulted when the range reaches before its cutoff.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadingHistory {
+
+    private static final Comparator<BloodSugarReadingDTO> READING_ORDER =
+            Comparator.comparing(BloodSugarReadingDTO::getTimestamp).thenComparing(BloodSugarReadingDTO::getId);
+    private static final LocalDateTime EARLIEST_TIMESTAMP = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+    private final BloodSugarReadingRepository bloodSugarReadingRepository;
+    private final ReadingArchive readingArchive;
+
+    /**
+     * Returns up to {@code limit} of the patient's readings in (timestamp, id) order, from {@code start}
+     * (or after the cursor, when given) through {@code end}.
+     */
+    public List<BloodSugarReadingDTO> findPage(Long patientId, LocalDateTime start, LocalDateTime end,
+                                               ReadingCursor after, int limit) {
+        List<BloodSugarReading> stored = after == null
+                ? bloodSugarReadingRepository.findByPatientIdAndTimestampBetweenOrderByTimestampAscIdAsc(
+                        patientId, start, end, Limit.of(limit))
+                : bloodSugarReadingRepository.findPageAfter(patientId, after.timestamp(), after.id(), end, Limit.of(limit));
+        List<BloodSugarReadingDTO> page = new ArrayList<>(stored.size());
+        stored.forEach(reading -> page.add(BloodSugarReadingDTO.fromEntity(reading)));
+        if (!readingArchive.overlaps(after != null ? after.timestamp() : start, end)) {
+            return page;
+        }
+
+        List<ArchivedReading> archived = readingArchive.findPage(patientId, start, after, end, limit);
+        if (archived.isEmpty()) {
+            return page;
+        }
+        // While a month is being archived its readings are in both places; the table's copy wins
+        Set<Long> storedIds = new HashSet<>();
+        page.forEach(reading -> storedIds.add(reading.getId()));
+        for (ArchivedReading reading : archived) {
+            if (!storedIds.contains(reading.id())) {
+                page.add(reading.toDTO());
+            }
+        }
+        page.sort(READING_ORDER);
+        return page.size() > limit ? page.subList(0, limit) : page;
+    }
+
+    /**
+     * Hands the patient's whole history to the action in (timestamp, id) order: the archived months, merged with
+     * the table's late readings of those months, then the table's readings from the archive cutoff on as a
+     * forward-only cursor. Only the late readings are held in memory.
+     */
+    @Transactional(readOnly = true)
+    public void forEach(Long patientId, Consumer<ArchivedReading> action) {
+        LocalDateTime archivedBefore = readingArchive.archivedBefore();
+        if (archivedBefore != null) {
+            readingArchive.forEach(patientId, bloodSugarReadingRepository.findForExportBefore(patientId, archivedBefore), action);
+        }
+        try (Stream<ArchivedReading> readings = bloodSugarReadingRepository.streamForExport(patientId,
+                archivedBefore != null ? archivedBefore : EARLIEST_TIMESTAMP)) {
+            readings.forEach(action);
+        }
+    }
+}
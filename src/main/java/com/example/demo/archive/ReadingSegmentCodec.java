@@ -0,0 +1,177 @@
+package com.example.demo.archive;
+
+import com.example.demo.patient.GlucoseUnit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Column-wise bit packing of one patient's readings in the style of Gorilla (Pelkonen et al., VLDB 2015).
+ * Each reading is a run of fields, each encoded against the same field of the previous reading:
+ * <ul>
+ *     <li>timestamp seconds and id: delta-of-delta, so a steady five-minute series costs one bit each</li>
+ *     <li>level in tenths of mg/dL: delta, typically 10 to 12 bits for CGM noise</li>
+ *     <li>sub-second nanos, entry unit, version and device id: one bit when unchanged</li>
+ * </ul>
+ * Variable-width values use the bucket prefixes {@code 0}, {@code 10}, {@code 110}, {@code 1110} and {@code 1111}
+ * for 0, 7, 9, 12 and 64 bit zigzag-encoded payloads.
+ */
+final class ReadingSegmentCodec {
+
+    private ReadingSegmentCodec() {
+        // Prevent instantiation
+    }
+
+    // Readings must belong to one patient and be in (timestamp, id) order
+    static byte[] encode(List<ArchivedReading> readings) {
+        BitWriter out = new BitWriter(readings.size() * 3);
+        long previousSecond = 0;
+        long previousSecondDelta = 0;
+        int previousNanos = 0;
+        long previousId = 0;
+        long previousIdDelta = 0;
+        int previousLevel = 0;
+        byte previousUnit = GlucoseUnit.MG_DL.getCode();
+        long previousVersion = 0;
+        String previousDevice = null;
+        for (ArchivedReading reading : readings) {
+            long second = reading.timestamp().toEpochSecond(ZoneOffset.UTC);
+            long secondDelta = second - previousSecond;
+            writeVarying(out, secondDelta - previousSecondDelta);
+            previousSecond = second;
+            previousSecondDelta = secondDelta;
+
+            int nanos = reading.timestamp().getNano();
+            out.writeBit(nanos != previousNanos);
+            if (nanos != previousNanos) {
+                out.writeBits(nanos, 30);
+                previousNanos = nanos;
+            }
+
+            long idDelta = reading.id() - previousId;
+            writeVarying(out, idDelta - previousIdDelta);
+            previousId = reading.id();
+            previousIdDelta = idDelta;
+
+            writeVarying(out, reading.levelTenthsMgDl() - previousLevel);
+            previousLevel = reading.levelTenthsMgDl();
+
+            byte unit = reading.entryUnit().getCode();
+            out.writeBit(unit != previousUnit);
+            if (unit != previousUnit) {
+                out.writeBits(unit, 8);
+                previousUnit = unit;
+            }
+
+            long version = reading.version() == null ? 0 : reading.version();
+            out.writeBit(version != previousVersion);
+            if (version != previousVersion) {
+                out.writeBits(version, 64);
+                previousVersion = version;
+            }
+
+            boolean deviceChanged = !Objects.equals(reading.deviceId(), previousDevice);
+            out.writeBit(deviceChanged);
+            if (deviceChanged) {
+                // Device ids are 1 to 64 ASCII characters; length 0 stands for none
+                byte[] device = reading.deviceId() == null ? new byte[0] : reading.deviceId().getBytes(StandardCharsets.US_ASCII);
+                out.writeBits(device.length, 8);
+                for (byte b : device) {
+                    out.writeBits(b, 8);
+                }
+                previousDevice = reading.deviceId();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes up to {@code count} readings and hands them to the action in order, stopping without decoding the
+     * rest once the action returns false.
+     *
+     * @return false if the action stopped the decoding
+     */
+    static boolean decode(ByteBuffer segment, long patientId, int count, Predicate<ArchivedReading> action) {
+        BitReader in = new BitReader(segment);
+        long previousSecond = 0;
+        long previousSecondDelta = 0;
+        int previousNanos = 0;
+        long previousId = 0;
+        long previousIdDelta = 0;
+        int previousLevel = 0;
+        GlucoseUnit previousUnit = GlucoseUnit.MG_DL;
+        long previousVersion = 0;
+        String previousDevice = null;
+        for (int i = 0; i < count; i++) {
+            previousSecondDelta += readVarying(in);
+            previousSecond += previousSecondDelta;
+            if (in.readBit()) {
+                previousNanos = (int) in.readBits(30);
+            }
+            previousIdDelta += readVarying(in);
+            previousId += previousIdDelta;
+            previousLevel += (int) readVarying(in);
+            if (in.readBit()) {
+                previousUnit = GlucoseUnit.fromCode((byte) in.readBits(8));
+            }
+            if (in.readBit()) {
+                previousVersion = in.readBits(64);
+            }
+            if (in.readBit()) {
+                byte[] device = new byte[(int) in.readBits(8)];
+                for (int b = 0; b < device.length; b++) {
+                    device[b] = (byte) in.readBits(8);
+                }
+                previousDevice = device.length == 0 ? null : new String(device, StandardCharsets.US_ASCII);
+            }
+
+            LocalDateTime timestamp = LocalDateTime.ofEpochSecond(previousSecond, previousNanos, ZoneOffset.UTC);
+            if (!action.test(new ArchivedReading(previousId, patientId, timestamp, previousLevel, previousUnit,
+                    previousDevice, previousVersion))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeVarying(BitWriter out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        if (zigzag == 0) {
+            out.writeBits(0b0, 1);
+        } else if (zigzag < 1 << 7) {
+            out.writeBits(0b10, 2);
+            out.writeBits(zigzag, 7);
+        } else if (zigzag < 1 << 9) {
+            out.writeBits(0b110, 3);
+            out.writeBits(zigzag, 9);
+        } else if (zigzag < 1 << 12) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(zigzag, 12);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(zigzag, 64);
+        }
+    }
+
+    private static long readVarying(BitReader in) {
+        int bits;
+        if (!in.readBit()) {
+            return 0;
+        } else if (!in.readBit()) {
+            bits = 7;
+        } else if (!in.readBit()) {
+            bits = 9;
+        } else if (!in.readBit()) {
+            bits = 12;
+        } else {
+            bits = 64;
+        }
+        long zigzag = in.readBits(bits);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
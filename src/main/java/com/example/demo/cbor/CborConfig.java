@@ -0,0 +1,17 @@
+package com.example.demo.cbor;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class CborConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Only chosen when application/cbor is asked for or sent; JSON stays the default
+        converters.add(new CborReadingsHttpMessageConverter());
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.demo.cbor;
+
+import com.example.demo.constants.ApiConstants;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads CBOR data items (RFC 8949) one at a time. Containers may be definite or indefinite length, as
+ * general-purpose encoders write either. Anything the caller does not expect, or that could make the reader
+ * allocate or recurse without bound, is rejected with an IllegalArgumentException.
+ */
+final class CborReader {
+
+    // Longer than any key, unit or device id; a larger claimed length is not buffered
+    private static final int MAX_TEXT_LENGTH = 4096;
+    private static final int MAX_SKIP_DEPTH = 16;
+    private static final int BREAK = 0xff;
+    private static final int INDEFINITE = 31;
+    private static final int NONE = -1;
+
+    private final InputStream in;
+    private int initialByte = NONE;
+
+    CborReader(InputStream in) {
+        this.in = in;
+    }
+
+    boolean atEnd() throws IOException {
+        if (initialByte == NONE) {
+            initialByte = in.read();
+        }
+        return initialByte == NONE;
+    }
+
+    int peekMajorType() throws IOException {
+        return peek() >>> 5;
+    }
+
+    // The end of an indefinite-length container
+    boolean readBreakIfPresent() throws IOException {
+        if (peek() != BREAK) {
+            return false;
+        }
+        initialByte = NONE;
+        return true;
+    }
+
+    boolean readNullIfPresent() throws IOException {
+        // Undefined is taken as null, like general-purpose decoders do
+        if (peek() != CborWriter.NULL && peek() != CborWriter.NULL + 1) {
+            return false;
+        }
+        initialByte = NONE;
+        return true;
+    }
+
+    // The number of entries, or -1 when the array is closed by a break
+    long readArrayHeader() throws IOException {
+        return readContainerHeader(CborWriter.MAJOR_ARRAY);
+    }
+
+    // The number of key/value pairs, or -1 when the map is closed by a break
+    long readMapHeader() throws IOException {
+        return readContainerHeader(CborWriter.MAJOR_MAP);
+    }
+
+    long readTag() throws IOException {
+        return readArgument(expect(CborWriter.MAJOR_TAG));
+    }
+
+    long readLong() throws IOException {
+        int initial = next();
+        int major = initial >>> 5;
+        if (major != CborWriter.MAJOR_UNSIGNED && major != CborWriter.MAJOR_NEGATIVE) {
+            throw invalid();
+        }
+        long argument = readArgument(initial);
+        if (argument < 0) {
+            // Beyond the range of a long
+            throw invalid();
+        }
+        return major == CborWriter.MAJOR_UNSIGNED ? argument : -1 - argument;
+    }
+
+    // Any number: integers are widened, half and single precision floats converted exactly
+    double readDouble() throws IOException {
+        int initial = peek();
+        return switch (initial) {
+            case CborWriter.FLOAT16 -> {
+                next();
+                yield Float.float16ToFloat((short) readBytes(2));
+            }
+            case CborWriter.FLOAT32 -> {
+                next();
+                yield Float.intBitsToFloat((int) readBytes(4));
+            }
+            case CborWriter.FLOAT64 -> {
+                next();
+                yield Double.longBitsToDouble(readBytes(8));
+            }
+            default -> readLong();
+        };
+    }
+
+    String readText() throws IOException {
+        int initial = expect(CborWriter.MAJOR_TEXT);
+        if ((initial & 0x1f) != INDEFINITE) {
+            return new String(readChunk(readArgument(initial)), StandardCharsets.UTF_8);
+        }
+        StringBuilder text = new StringBuilder();
+        while (!readBreakIfPresent()) {
+            int chunk = expect(CborWriter.MAJOR_TEXT);
+            if ((chunk & 0x1f) == INDEFINITE) {
+                throw invalid();
+            }
+            text.append(new String(readChunk(readArgument(chunk)), StandardCharsets.UTF_8));
+            if (text.length() > MAX_TEXT_LENGTH) {
+                throw invalid();
+            }
+        }
+        return text.toString();
+    }
+
+    // Passes over one complete data item, e.g. the value of a key the caller does not know
+    void skipValue() throws IOException {
+        skipValue(0);
+    }
+
+    private void skipValue(int depth) throws IOException {
+        if (depth > MAX_SKIP_DEPTH) {
+            throw invalid();
+        }
+        int initial = next();
+        int major = initial >>> 5;
+        boolean indefinite = (initial & 0x1f) == INDEFINITE;
+        switch (major) {
+            case CborWriter.MAJOR_UNSIGNED, CborWriter.MAJOR_NEGATIVE -> readArgument(initial);
+            case CborWriter.MAJOR_BYTES, CborWriter.MAJOR_TEXT -> {
+                if (indefinite) {
+                    while (!readBreakIfPresent()) {
+                        skipValue(depth + 1);
+                    }
+                } else {
+                    long length = readArgument(initial);
+                    if (length < 0) {
+                        throw invalid();
+                    }
+                    in.skipNBytes(length);
+                }
+            }
+            case CborWriter.MAJOR_ARRAY, CborWriter.MAJOR_MAP -> {
+                int itemsPerEntry = major == CborWriter.MAJOR_MAP ? 2 : 1;
+                if (indefinite) {
+                    while (!readBreakIfPresent()) {
+                        for (int i = 0; i < itemsPerEntry; i++) {
+                            skipValue(depth + 1);
+                        }
+                    }
+                } else {
+                    for (long entries = readArgument(initial); entries > 0; entries--) {
+                        for (int i = 0; i < itemsPerEntry; i++) {
+                            skipValue(depth + 1);
+                        }
+                    }
+                }
+            }
+            case CborWriter.MAJOR_TAG -> {
+                readArgument(initial);
+                skipValue(depth + 1);
+            }
+            default -> {
+                // Simple values and floats carry their payload in the argument
+                if (initial == BREAK) {
+                    throw invalid();
+                }
+                readArgument(initial);
+            }
+        }
+    }
+
+    private long readContainerHeader(int majorType) throws IOException {
+        int initial = expect(majorType);
+        if ((initial & 0x1f) == INDEFINITE) {
+            return -1;
+        }
+        long size = readArgument(initial);
+        if (size < 0) {
+            throw invalid();
+        }
+        return size;
+    }
+
+    private int expect(int majorType) throws IOException {
+        int initial = next();
+        if (initial >>> 5 != majorType) {
+            throw invalid();
+        }
+        return initial;
+    }
+
+    private long readArgument(int initial) throws IOException {
+        int info = initial & 0x1f;
+        if (info < 24) {
+            return info;
+        }
+        return switch (info) {
+            case 24 -> readBytes(1);
+            case 25 -> readBytes(2);
+            case 26 -> readBytes(4);
+            case 27 -> readBytes(8);
+            default -> throw invalid();
+        };
+    }
+
+    private byte[] readChunk(long length) throws IOException {
+        if (length < 0 || length > MAX_TEXT_LENGTH) {
+            throw invalid();
+        }
+        byte[] bytes = in.readNBytes((int) length);
+        if (bytes.length < length) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+
+    private long readBytes(int count) throws IOException {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    private int peek() throws IOException {
+        if (atEnd()) {
+            throw new EOFException();
+        }
+        return initialByte;
+    }
+
+    private int next() throws IOException {
+        int initial = peek();
+        initialByte = NONE;
+        return initial;
+    }
+
+    private static IllegalArgumentException invalid() {
+        return new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_CBOR);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.cbor;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads and writes readings and reading lists as {@code application/cbor}, in the shape of
+ * {@code schema/blood-sugar-reading.cddl}. Keys, timestamps and levels travel as numbers instead of text, which
+ * makes a reading list about a third of its JSON and spares both sides the text parsing. Encoded by hand: no CBOR
+ * library is on the classpath, and the record is small enough not to need one.
+ */
+public class CborReadingsHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    public CborReadingsHttpMessageConverter() {
+        super(MediaType.APPLICATION_CBOR);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BloodSugarReadingDTO.class == clazz || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isReadingOrList(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isReadingOrList(type != null ? type : clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return decode(ResolvableType.forType(type).resolve(), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return decode(clazz, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        // Flushed, not closed: the response stream belongs to the container
+        OutputStream out = new BufferedOutputStream(outputMessage.getBody(), BUFFER_SIZE);
+        CborWriter writer = new CborWriter(out);
+        if (value instanceof BloodSugarReadingDTO reading) {
+            ReadingCbor.write(reading, writer);
+        } else {
+            @SuppressWarnings("unchecked")
+            List<BloodSugarReadingDTO> readings = (List<BloodSugarReadingDTO>) value;
+            ReadingCbor.writeList(readings, writer);
+        }
+        out.flush();
+    }
+
+    private static Object decode(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        InputStream in = new BufferedInputStream(inputMessage.getBody(), BUFFER_SIZE);
+        CborReader reader = new CborReader(in);
+        try {
+            Object value = clazz == BloodSugarReadingDTO.class ? ReadingCbor.read(reader) : ReadingCbor.readList(reader);
+            if (!reader.atEnd()) {
+                throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_CBOR);
+            }
+            return value;
+        } catch (IllegalArgumentException | EOFException e) {
+            throw new HttpMessageNotReadableException(ApiConstants.ExceptionMessage.INVALID_CBOR, e, inputMessage);
+        }
+    }
+
+    private static boolean isReadingOrList(Type type) {
+        ResolvableType resolvable = ResolvableType.forType(type);
+        if (resolvable.resolve() == BloodSugarReadingDTO.class) {
+            return true;
+        }
+        return resolvable.asCollection().resolveGeneric(0) == BloodSugarReadingDTO.class
+                && resolvable.resolve() != null && resolvable.resolve().isAssignableFrom(List.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.cbor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Writes CBOR data items (RFC 8949) in preferred serialization: shortest argument, shortest exact float
+final class CborWriter {
+
+    static final int MAJOR_UNSIGNED = 0;
+    static final int MAJOR_NEGATIVE = 1;
+    static final int MAJOR_BYTES = 2;
+    static final int MAJOR_TEXT = 3;
+    static final int MAJOR_ARRAY = 4;
+    static final int MAJOR_MAP = 5;
+    static final int MAJOR_TAG = 6;
+    static final int MAJOR_SIMPLE = 7;
+
+    static final int NULL = 0xf6;
+    static final int FLOAT16 = 0xf9;
+    static final int FLOAT32 = 0xfa;
+    static final int FLOAT64 = 0xfb;
+
+    private final OutputStream out;
+
+    CborWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    void writeArrayHeader(int size) throws IOException {
+        writeHead(MAJOR_ARRAY, size);
+    }
+
+    void writeMapHeader(int size) throws IOException {
+        writeHead(MAJOR_MAP, size);
+    }
+
+    void writeTag(long tag) throws IOException {
+        writeHead(MAJOR_TAG, tag);
+    }
+
+    void writeLong(long value) throws IOException {
+        if (value >= 0) {
+            writeHead(MAJOR_UNSIGNED, value);
+        } else {
+            writeHead(MAJOR_NEGATIVE, -1 - value);
+        }
+    }
+
+    void writeDouble(double value) throws IOException {
+        float single = (float) value;
+        if (single == value || Double.isNaN(value)) {
+            short half = Float.floatToFloat16(single);
+            if (Float.float16ToFloat(half) == single || Float.isNaN(single)) {
+                out.write(FLOAT16);
+                writeBytes(half, 2);
+            } else {
+                out.write(FLOAT32);
+                writeBytes(Float.floatToIntBits(single), 4);
+            }
+        } else {
+            out.write(FLOAT64);
+            writeBytes(Double.doubleToLongBits(value), 8);
+        }
+    }
+
+    void writeText(String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeHead(MAJOR_TEXT, utf8.length);
+        out.write(utf8);
+    }
+
+    void writeNull() throws IOException {
+        out.write(NULL);
+    }
+
+    private void writeHead(int majorType, long argument) throws IOException {
+        int major = majorType << 5;
+        if (argument < 24) {
+            out.write(major | (int) argument);
+        } else if (argument <= 0xff) {
+            out.write(major | 24);
+            out.write((int) argument);
+        } else if (argument <= 0xffff) {
+            out.write(major | 25);
+            writeBytes(argument, 2);
+        } else if (argument <= 0xffffffffL) {
+            out.write(major | 26);
+            writeBytes(argument, 4);
+        } else {
+            out.write(major | 27);
+            writeBytes(argument, 8);
+        }
+    }
+
+    private void writeBytes(long value, int count) throws IOException {
+        for (int shift = (count - 1) * 8; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.demo.cbor;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.BloodSugarReadingDTO;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CBOR form of a {@link BloodSugarReadingDTO}, as described by {@code schema/blood-sugar-reading.cddl}:
+ * a map keyed by small integers standing for the JSON properties, where the timestamp is an epoch-based
+ * date/time (tag 1, whole seconds) or an extended time (tag 1001, RFC 9581) when it has a fraction, both in UTC
+ * like stored timestamps. Readers also accept the JSON property names as keys and ISO-8601 text timestamps,
+ * which is what general-purpose encoders produce from a JSON-shaped object.
+ */
+final class ReadingCbor {
+
+    // Keys of the reading map; text keys cost more than the values they name
+    static final int ID = 1;
+    static final int TIMESTAMP = 2;
+    static final int LEVEL = 3;
+    static final int UNIT = 4;
+    static final int PATIENT_ID = 5;
+    static final int DEVICE_ID = 6;
+    private static final int UNKNOWN = 0;
+
+    static final long TAG_DATE_TIME_TEXT = 0;
+    static final long TAG_EPOCH_SECONDS = 1;
+    static final long TAG_EXTENDED_TIME = 1001;
+
+    // Keys of the extended time map
+    private static final long BASE_TIME = 1;
+    private static final long MILLISECONDS = -3;
+    private static final long MICROSECONDS = -6;
+    private static final long NANOSECONDS = -9;
+
+    // A claimed array size is only trusted this far when allocating
+    private static final int MAX_PREALLOCATED = 1024;
+
+    private ReadingCbor() {
+        // Prevent instantiation
+    }
+
+    static void writeList(List<BloodSugarReadingDTO> readings, CborWriter writer) throws IOException {
+        writer.writeArrayHeader(readings.size());
+        for (BloodSugarReadingDTO reading : readings) {
+            if (reading == null) {
+                writer.writeNull();
+            } else {
+                write(reading, writer);
+            }
+        }
+    }
+
+    // Null properties are left out, as in the JSON representation
+    static void write(BloodSugarReadingDTO reading, CborWriter writer) throws IOException {
+        int size = count(reading.getId()) + count(reading.getTimestamp()) + count(reading.getLevel())
+                + count(reading.getUnit()) + count(reading.getPatientId()) + count(reading.getDeviceId());
+        writer.writeMapHeader(size);
+        if (reading.getId() != null) {
+            writer.writeLong(ID);
+            writer.writeLong(reading.getId());
+        }
+        if (reading.getTimestamp() != null) {
+            writer.writeLong(TIMESTAMP);
+            writeTimestamp(reading.getTimestamp(), writer);
+        }
+        if (reading.getLevel() != null) {
+            writer.writeLong(LEVEL);
+            writer.writeDouble(reading.getLevel());
+        }
+        if (reading.getUnit() != null) {
+            writer.writeLong(UNIT);
+            writer.writeText(reading.getUnit());
+        }
+        if (reading.getPatientId() != null) {
+            writer.writeLong(PATIENT_ID);
+            writer.writeLong(reading.getPatientId());
+        }
+        if (reading.getDeviceId() != null) {
+            writer.writeLong(DEVICE_ID);
+            writer.writeText(reading.getDeviceId());
+        }
+    }
+
+    static List<BloodSugarReadingDTO> readList(CborReader reader) throws IOException {
+        long size = reader.readArrayHeader();
+        List<BloodSugarReadingDTO> readings = new ArrayList<>((int) Math.min(Math.max(size, 0), MAX_PREALLOCATED));
+        for (long i = 0; size < 0 ? !reader.readBreakIfPresent() : i < size; i++) {
+            readings.add(reader.readNullIfPresent() ? null : read(reader));
+        }
+        return readings;
+    }
+
+    static BloodSugarReadingDTO read(CborReader reader) throws IOException {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO();
+        long size = reader.readMapHeader();
+        for (long i = 0; size < 0 ? !reader.readBreakIfPresent() : i < size; i++) {
+            int key = readKey(reader);
+            if (reader.readNullIfPresent()) {
+                continue;
+            }
+            switch (key) {
+                case ID -> reading.setId(reader.readLong());
+                case TIMESTAMP -> reading.setTimestamp(readTimestamp(reader));
+                case LEVEL -> reading.setLevel(reader.readDouble());
+                case UNIT -> reading.setUnit(reader.readText());
+                case PATIENT_ID -> reading.setPatientId(reader.readLong());
+                case DEVICE_ID -> reading.setDeviceId(reader.readText());
+                // Unknown properties are ignored, as the JSON binding does
+                default -> reader.skipValue();
+            }
+        }
+        return reading;
+    }
+
+    private static int readKey(CborReader reader) throws IOException {
+        if (reader.peekMajorType() != CborWriter.MAJOR_TEXT) {
+            long key = reader.readLong();
+            return key >= ID && key <= DEVICE_ID ? (int) key : UNKNOWN;
+        }
+        return switch (reader.readText()) {
+            case "id" -> ID;
+            case "timestamp" -> TIMESTAMP;
+            case "level" -> LEVEL;
+            case "unit" -> UNIT;
+            case "patientId" -> PATIENT_ID;
+            case "deviceId" -> DEVICE_ID;
+            default -> UNKNOWN;
+        };
+    }
+
+    private static void writeTimestamp(LocalDateTime timestamp, CborWriter writer) throws IOException {
+        long seconds = timestamp.toEpochSecond(ZoneOffset.UTC);
+        if (timestamp.getNano() == 0) {
+            writer.writeTag(TAG_EPOCH_SECONDS);
+            writer.writeLong(seconds);
+            return;
+        }
+        writer.writeTag(TAG_EXTENDED_TIME);
+        writer.writeMapHeader(2);
+        writer.writeLong(BASE_TIME);
+        writer.writeLong(seconds);
+        writer.writeLong(NANOSECONDS);
+        writer.writeLong(timestamp.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(CborReader reader) throws IOException {
+        if (reader.peekMajorType() == CborWriter.MAJOR_TEXT) {
+            return parseText(reader.readText());
+        }
+        long tag = reader.readTag();
+        if (tag == TAG_DATE_TIME_TEXT) {
+            return parseText(reader.readText());
+        }
+        if (tag == TAG_EPOCH_SECONDS) {
+            if (reader.peekMajorType() == CborWriter.MAJOR_SIMPLE) {
+                double seconds = reader.readDouble();
+                long whole = (long) Math.floor(seconds);
+                // A double has no more than microsecond precision at today's epoch seconds
+                return ofEpoch(whole, Math.min(Math.round((seconds - whole) * 1_000_000), 999_999) * 1_000);
+            }
+            return ofEpoch(reader.readLong(), 0);
+        }
+        if (tag == TAG_EXTENDED_TIME) {
+            return readExtendedTime(reader);
+        }
+        throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_CBOR);
+    }
+
+    private static LocalDateTime readExtendedTime(CborReader reader) throws IOException {
+        Long seconds = null;
+        long nanos = 0;
+        long size = reader.readMapHeader();
+        for (long i = 0; size < 0 ? !reader.readBreakIfPresent() : i < size; i++) {
+            long key = reader.readLong();
+            if (key == BASE_TIME) {
+                seconds = reader.readLong();
+            } else if (key == MILLISECONDS) {
+                nanos = fraction(reader.readLong(), 1_000_000);
+            } else if (key == MICROSECONDS) {
+                nanos = fraction(reader.readLong(), 1_000);
+            } else if (key == NANOSECONDS) {
+                nanos = fraction(reader.readLong(), 1);
+            } else {
+                reader.skipValue();
+            }
+        }
+        if (seconds == null) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_CBOR);
+        }
+        return ofEpoch(seconds, nanos);
+    }
+
+    private static long fraction(long value, long nanosPerUnit) {
+        if (value < 0 || value >= 1_000_000_000 / nanosPerUnit) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_CBOR);
+        }
+        return value * nanosPerUnit;
+    }
+
+    private static LocalDateTime ofEpoch(long seconds, long nanos) {
+        try {
+            return LocalDateTime.ofEpochSecond(seconds, (int) nanos, ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_CBOR, e);
+        }
+    }
+
+    // Local date-times as the JSON API takes them, or RFC 3339 with an offset, converted to UTC
+    private static LocalDateTime parseText(String text) {
+        try {
+            if (text.endsWith("Z") || text.lastIndexOf('+') > 0 || text.lastIndexOf('-') > 9) {
+                return OffsetDateTime.parse(text).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+            }
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_CBOR, e);
+        }
+    }
+
+    private static int count(Object value) {
+        return value == null ? 0 : 1;
+    }
+}
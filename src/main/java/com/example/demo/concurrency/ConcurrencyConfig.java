@@ -0,0 +1,22 @@
+package com.example.demo.concurrency;
+
+import com.example.demo.constants.ApiConstants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class ConcurrencyConfig implements WebMvcConfigurer {
+
+    private final RequestBulkhead requestBulkhead;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Reading streams stay open for minutes and would pin a permit each for their whole life
+        registry.addInterceptor(requestBulkhead)
+                .addPathPatterns(ApiConstants.Paths.API_ALL)
+                .excludePathPatterns(ApiConstants.Paths.API_PATIENTS_READINGS_STREAM);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.concurrency;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of API requests handled at once. With virtual threads Tomcat no longer bounds concurrency,
+ * so without this thousands of requests would queue on the connection pool and time out together.
+ * Waiting requests are admitted in arrival order; those still waiting after the timeout get a 503.
+ * <p>
+ * The permits are sized against the connection pool: every admitted request must be able to get the connections
+ * it needs while the background jobs hold the reserved ones, so requests wait here rather than on the pool.
+ */
+@Component
+public class RequestBulkhead implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = RequestBulkhead.class.getName() + ".PERMIT";
+    // Thrown for every rejected request while overloaded; stackless, so one instance serves all of them
+    private static final ServiceUnavailableException FULL =
+            new ServiceUnavailableException(ApiConstants.ExceptionMessage.BULKHEAD_FULL);
+    // A request that raises alerts stores them in a new transaction as its own commits, still holding its connection
+    static final int CONNECTIONS_PER_REQUEST = 2;
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+
+    public RequestBulkhead(@Value("${api.bulkhead.max-concurrent:6}") int maxConcurrent,
+                           @Value("${api.bulkhead.acquire-timeout:5s}") Duration acquireTimeout,
+                           @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                           @Value("${api.bulkhead.reserved-connections:8}") int reservedConnections,
+                           MeterRegistry meterRegistry) {
+        if (maxConcurrent <= 0 || maxConcurrent * CONNECTIONS_PER_REQUEST + reservedConnections > poolSize) {
+            throw new IllegalArgumentException("API bulkhead of " + maxConcurrent + " requests needs "
+                    + (maxConcurrent * CONNECTIONS_PER_REQUEST + reservedConnections) + " connections, pool has " + poolSize);
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.rejected = Counter.builder(ApiConstants.Metrics.BULKHEAD_REJECTED)
+                .description("API requests rejected because the bulkhead stayed full")
+                .register(meterRegistry);
+        Gauge.builder(ApiConstants.Metrics.BULKHEAD_ACTIVE, permits, p -> maxConcurrent - p.availablePermits())
+                .description("API requests currently holding a bulkhead permit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // An async re-dispatch still holds the permit taken by the original dispatch
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw FULL;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw FULL;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+}
@@ -15,6 +15,8 @@ public final class ApiConstants {
     public static final String BAD_REQUEST = "Bad Request";
     public static final String INTERNAL_SERVER_ERROR = "Internal Server Error";
     public static final String UNEXPECTED_ERROR_OCCURRED = "An unexpected error occurred";
+    public static final String SERVICE_UNAVAILABLE = "Service Unavailable";
+    public static final String CONFLICT = "Conflict";
     
     // Resource Names
     public static final String PATIENT = "Patient";
@@ -42,6 +44,9 @@ public final class ApiConstants {
         public static final String UNIT_REQUIRED = "Unit is required";
         public static final String UNIT_PATTERN = "Unit must be either 'mg/dL' or 'mmol/L'";
         public static final String PATIENT_ID_REQUIRED = "Patient ID is required";
+        public static final String READINGS_REQUIRED = "At least one reading is required";
+        public static final String RECORD_MALFORMED = "Record could not be parsed";
+        public static final String DEVICE_ID_PATTERN = "Device ID must be 1 to 64 letters, digits, '.', '_', ':' or '-'";
     }
     
     // Exception Messages
@@ -54,6 +59,19 @@ public final class ApiConstants {
         public static final String READING_NOT_BELONG = "Reading does not belong to the specified patient";
         public static final String ID_MISMATCH = "ID in the path does not match the ID in the request body";
         public static final String PATIENT_ID_MISMATCH = "Patient ID in the path does not match the patient ID in the request body";
+        public static final String INVALID_CURSOR = "Cursor is invalid";
+        public static final String INVALID_TIME_RANGE = "'from' must not be after 'to'";
+        public static final String INVALID_PAGE = "Page must not be negative";
+        public static final String INVALID_EXPAND = "Unsupported expand value: ";
+        public static final String INVALID_GRANULARITY = "Granularity must be either 'hour' or 'day'";
+        public static final String INVALID_PAGE_SIZE = "Limit must be between 1 and ";
+        public static final String BULKHEAD_FULL = "Too many concurrent requests, retry later";
+        public static final String WRITE_BEHIND_FULL = "Too many readings waiting to be stored, retry later";
+        public static final String READING_KEY_CONFLICT = "Idempotency-Key and device timestamp match different stored readings";
+        public static final String INVALID_IDEMPOTENCY_KEY = "Idempotency-Key must be 1 to 64 visible ASCII characters";
+        public static final String INVALID_EXPORT_FORMAT = "Format must be either 'csv' or 'ndjson'";
+        public static final String INVALID_CBOR = "Request body is not a valid CBOR reading or reading list";
+        public static final String COMPACT_READINGS_WRITE_ONLY = "Compact reading lists are a response format only";
     }
     
     // API Paths
@@ -61,8 +79,69 @@ public final class ApiConstants {
         private Paths() {
             // Private constructor to prevent instantiation
         }
+        public static final String API_ALL = "/api/**";
         public static final String API_PATIENTS = "/api/patients";
         public static final String API_PATIENTS_READINGS = "/api/patients/{patientId}/readings";
+        public static final String API_PATIENTS_READINGS_BATCH = "/api/patients/{patientId}/readings:batch";
+        public static final String ROLLUPS = "/rollups";
+        public static final String METRICS = "/metrics";
+        public static final String STREAM = "/stream";
+        public static final String ALERTS = "/alerts";
+        public static final String EXPORT = "/export";
+        public static final String API_PATIENTS_READINGS_STREAM = "/api/patients/*/readings/stream";
+        public static final String API_PATIENTS_METRICS = "/api/patients/metrics";
+    }
+    
+    // Paging
+    public static final class Paging {
+        private Paging() {
+            // Private constructor to prevent instantiation
+        }
+        public static final String CURSOR = "cursor";
+        public static final String LIMIT = "limit";
+        public static final String DEFAULT_PAGE_SIZE = "500";
+        public static final int MAX_PAGE_SIZE = 1000;
+        public static final String PAGE = "page";
+        public static final String SIZE = "size";
+        public static final String DEFAULT_PATIENT_PAGE_SIZE = "50";
+        // Readings embedded per patient by expand=readings; older ones are paged from the patient's readings endpoint
+        public static final int MAX_EXPANDED_READINGS = 100;
+    }
+    
+    // Query Parameters
+    public static final class QueryParams {
+        private QueryParams() {
+            // Private constructor to prevent instantiation
+        }
+        public static final String FROM = "from";
+        public static final String TO = "to";
+        public static final String EXPAND = "expand";
+        public static final String EXPAND_READINGS = "readings";
+        public static final String GRANULARITY = "granularity";
+        public static final String FORMAT = "format";
+    }
+    
+    // Headers
+    public static final class Headers {
+        private Headers() {
+            // Private constructor to prevent instantiation
+        }
+        public static final String NEXT_CURSOR = "X-Next-Cursor";
+        public static final String RETRY_AFTER_SECONDS = "1";
+        public static final String LAST_EVENT_ID = "Last-Event-ID";
+        public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+        public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+        public static final String GZIP = "gzip";
+    }
+    
+    // Media Types
+    public static final class MediaTypes {
+        private MediaTypes() {
+            // Private constructor to prevent instantiation
+        }
+        public static final String TEXT_CSV = "text/csv";
+        // Deliberately no +json suffix, so the JSON converter never claims it for plain Accept headers
+        public static final String READINGS_COMPACT = "application/vnd.bloodsugar.readings-compact";
     }
     
     // Table Names
@@ -72,6 +151,18 @@ public final class ApiConstants {
         }
         public static final String PATIENTS = "patients";
         public static final String BLOOD_SUGAR_READINGS = "blood_sugar_readings";
+        public static final String READING_ROLLUPS = "blood_sugar_reading_rollups";
+        public static final String GLYCEMIC_ALERTS = "glycemic_alerts";
+        public static final String READING_JOURNAL_CHECKPOINTS = "reading_journal_checkpoints";
+    }
+    
+    // Sequence Names
+    public static final class Sequences {
+        private Sequences() {
+            // Private constructor to prevent instantiation
+        }
+        public static final String BLOOD_SUGAR_READINGS_SEQ = "blood_sugar_readings_seq";
+        public static final int ALLOCATION_SIZE = 50;
     }
     
     // Column Names
@@ -80,6 +171,24 @@ public final class ApiConstants {
             // Private constructor to prevent instantiation
         }
         public static final String PATIENT_ID = "patient_id";
+        public static final String LEVEL_TENTHS_MG_DL = "level_tenths_mg_dl";
+        public static final String UNIT_CODE = "unit_code";
+        public static final String TIMESTAMP = "timestamp";
+        public static final String DEVICE_ID = "device_id";
+        public static final String IDEMPOTENCY_KEY = "idempotency_key";
+    }
+    
+    // Index Names
+    public static final class Indexes {
+        private Indexes() {
+            // Private constructor to prevent instantiation
+        }
+        public static final String READINGS_PATIENT_TIMESTAMP_ID = "idx_blood_sugar_readings_patient_timestamp_id";
+        public static final String READINGS_PATIENT_TIMESTAMP_ID_COLUMNS = "patient_id, timestamp, id";
+        public static final String READINGS_PATIENT_IDEMPOTENCY_KEY = "uk_blood_sugar_readings_patient_idempotency_key";
+        public static final String READINGS_PATIENT_TIMESTAMP_DEVICE = "uk_blood_sugar_readings_patient_timestamp_device";
+        public static final String ALERTS_PATIENT_TRIGGERED_AT = "idx_glycemic_alerts_patient_triggered_at";
+        public static final String ALERTS_PATIENT_TRIGGERED_AT_COLUMNS = "patient_id, triggered_at";
     }
     
     // Units
@@ -91,6 +200,49 @@ public final class ApiConstants {
         public static final String MMOL_L = "mmol/L";
     }
     
+    // Server-Sent Events
+    public static final class Events {
+        private Events() {
+            // Private constructor to prevent instantiation
+        }
+        public static final String READING = "reading";
+        public static final String READING_UPDATED = "reading-updated";
+        public static final String RESET = "reset";
+        public static final String HEARTBEAT = "heartbeat";
+    }
+    
+    // Metric Names and Tags
+    public static final class Metrics {
+        private Metrics() {
+            // Private constructor to prevent instantiation
+        }
+        public static final String READINGS_INGESTED = "readings.ingested";
+        public static final String READINGS_PAYLOAD_SIZE = "readings.payload.size";
+        public static final String REQUEST_QUERIES = "http.server.requests.queries";
+        public static final String TAG_UNIT = "unit";
+        public static final String TAG_URI = "uri";
+        public static final String TAG_METHOD = "method";
+        public static final String TAG_DIRECTION = "direction";
+        public static final String DIRECTION_REQUEST = "request";
+        public static final String DIRECTION_RESPONSE = "response";
+        public static final String UNKNOWN_URI = "UNKNOWN";
+        public static final String BULKHEAD_ACTIVE = "http.server.bulkhead.active";
+        public static final String BULKHEAD_REJECTED = "http.server.bulkhead.rejected";
+        public static final String PATIENT_EXISTENCE_CACHE = "patients.existence";
+        public static final String STREAM_SUBSCRIBERS = "readings.stream.subscribers";
+        public static final String STREAM_SLOW_CONSUMERS = "readings.stream.slow.consumers";
+        public static final String ALERTS_RAISED = "glycemic.alerts.raised";
+        public static final String TAG_TYPE = "type";
+        public static final String WRITE_BEHIND_DEPTH = "readings.write.behind.depth";
+        public static final String WRITE_BEHIND_LAG = "readings.write.behind.lag";
+        public static final String WRITE_BEHIND_DRAINED = "readings.write.behind.drained";
+        public static final String WRITE_BEHIND_SET_ASIDE = "readings.write.behind.set.aside";
+        public static final String READING_KEY_CACHE = "readings.keys";
+        public static final String READINGS_DUPLICATE = "readings.duplicate";
+        public static final String READINGS_ARCHIVED = "readings.archived";
+        public static final String READINGS_COHORT_EXPORTED = "readings.cohort.exported";
+    }
+    
     private ApiConstants() {
         // Private constructor to prevent instantiation
     }
@@ -0,0 +1,42 @@
+package com.example.demo.exception;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Body of the error responses written by {@link GlobalExceptionHandler}. Absent properties are left out, so
+ * each response carries the same keys the handler has always written. Timestamps have second resolution and
+ * come from a per-second cache rather than a clock read and date computation per error.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ErrorBody(LocalDateTime timestamp, int status, String error, String message, List<String> errors) {
+
+    private static volatile CachedSecond current = new CachedSecond(Long.MIN_VALUE, null);
+
+    static ErrorBody of(HttpStatusCode status, String error, String message) {
+        return new ErrorBody(now(), status.value(), error, message, null);
+    }
+
+    static ErrorBody ofErrors(HttpStatusCode status, String error, List<String> errors) {
+        return new ErrorBody(now(), status.value(), error, null, errors);
+    }
+
+    static LocalDateTime now() {
+        long second = Math.floorDiv(System.currentTimeMillis(), 1000L);
+        CachedSecond cached = current;
+        if (cached.epochSecond() != second) {
+            cached = new CachedSecond(second,
+                    LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault()));
+            current = cached;
+        }
+        return cached.time();
+    }
+
+    private record CachedSecond(long epochSecond, LocalDateTime time) {
+    }
+}
@@ -12,24 +12,27 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
-import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Turns exceptions into {@link ErrorBody} responses. Not-found, bad-request and overload answers are expected
+ * under load, so they are built without logging and with as little work as the body needs; unexpected errors
+ * are logged at a bounded rate.
+ */
 @ControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private static final int UNEXPECTED_ERRORS_LOGGED_PER_MINUTE = 20;
+
+    private final LogRateLimiter unexpectedErrorLog =
+            new LogRateLimiter(UNEXPECTED_ERRORS_LOGGED_PER_MINUTE, Duration.ofMinutes(1));
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex, HttpHeaders headers, 
             HttpStatusCode status, WebRequest request) {
         
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put(ApiConstants.TIMESTAMP, LocalDateTime.now());
-        body.put(ApiConstants.STATUS, status.value());
-        body.put(ApiConstants.ERROR, ApiConstants.VALIDATION_FAILED);
-        
         // Get all validation errors
         List<String> errors = ex.getBindingResult()
                 .getFieldErrors()
@@ -37,52 +40,64 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                 .map(FieldError::getDefaultMessage)
                 .toList();
         
-        body.put(ApiConstants.ERRORS, errors);
-        
-        return new ResponseEntity<>(body, headers, status);
+        return new ResponseEntity<>(ErrorBody.ofErrors(status, ApiConstants.VALIDATION_FAILED, errors), headers, status);
     }
 
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Object> handleResourceNotFoundException(
             ResourceNotFoundException ex, WebRequest request) {
         
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put(ApiConstants.TIMESTAMP, LocalDateTime.now());
-        body.put(ApiConstants.STATUS, HttpStatus.NOT_FOUND.value());
-        body.put(ApiConstants.ERROR, ApiConstants.RESOURCE_NOT_FOUND);
-        body.put(ApiConstants.MESSAGE, ex.getMessage());
-        
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+        return new ResponseEntity<>(
+                ErrorBody.of(HttpStatus.NOT_FOUND, ApiConstants.RESOURCE_NOT_FOUND, ex.getMessage()),
+                HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Object> handleIllegalArgumentException(
             IllegalArgumentException ex, WebRequest request) {
         
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put(ApiConstants.TIMESTAMP, LocalDateTime.now());
-        body.put(ApiConstants.STATUS, HttpStatus.BAD_REQUEST.value());
-        body.put(ApiConstants.ERROR, ApiConstants.BAD_REQUEST);
-        body.put(ApiConstants.MESSAGE, ex.getMessage());
+        return new ResponseEntity<>(
+                ErrorBody.of(HttpStatus.BAD_REQUEST, ApiConstants.BAD_REQUEST, ex.getMessage()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Object> handleConflictException(
+            ConflictException ex, WebRequest request) {
         
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(
+                ErrorBody.of(HttpStatus.CONFLICT, ApiConstants.CONFLICT, ex.getMessage()),
+                HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Object> handleServiceUnavailableException(
+            ServiceUnavailableException ex, WebRequest request) {
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, ApiConstants.Headers.RETRY_AFTER_SECONDS)
+                .body(ErrorBody.of(HttpStatus.SERVICE_UNAVAILABLE, ApiConstants.SERVICE_UNAVAILABLE, ex.getMessage()));
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleAllExceptions(Exception ex, WebRequest request) {
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put(ApiConstants.TIMESTAMP, LocalDateTime.now());
-        body.put(ApiConstants.STATUS, HttpStatus.INTERNAL_SERVER_ERROR.value());
-        body.put(ApiConstants.ERROR, ApiConstants.INTERNAL_SERVER_ERROR);
-        body.put(ApiConstants.MESSAGE, ApiConstants.UNEXPECTED_ERROR_OCCURRED);
-        
-        // Log the full stack trace only in debug mode
-        if (logger.isDebugEnabled()) {
-            logger.error("Unexpected error occurred: " + ex.getMessage(), ex);
-        } else {
-            logger.error("Unexpected error occurred: " + ex.getMessage());
+        // A failing dependency fails every request; a few lines a minute and a count say as much
+        long heldBack = unexpectedErrorLog.tryAcquire();
+        if (heldBack >= 0) {
+            String text = heldBack == 0
+                    ? "Unexpected error occurred: " + ex.getMessage()
+                    : "Unexpected error occurred: " + ex.getMessage() + " (" + heldBack + " more not logged)";
+            // Log the full stack trace only in debug mode
+            if (logger.isDebugEnabled()) {
+                logger.error(text, ex);
+            } else {
+                logger.error(text);
+            }
         }
         
-        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(
+                ErrorBody.of(HttpStatus.INTERNAL_SERVER_ERROR, ApiConstants.INTERNAL_SERVER_ERROR,
+                        ApiConstants.UNEXPECTED_ERROR_OCCURRED),
+                HttpStatus.INTERNAL_SERVER_ERROR);
     }
 }
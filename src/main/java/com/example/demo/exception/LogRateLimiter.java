@@ -0,0 +1,49 @@
+package com.example.demo.exception;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets a fixed number of log lines through per interval and counts the ones it holds back, so a burst of
+ * failures shows up in the log as a few lines and a count instead of one line per request.
+ */
+final class LogRateLimiter {
+
+    private final int permitsPerInterval;
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+    private long intervalStart;
+    private int permitsUsed;
+    private long suppressed;
+
+    LogRateLimiter(int permitsPerInterval, Duration interval) {
+        this(permitsPerInterval, interval, System::nanoTime);
+    }
+
+    LogRateLimiter(int permitsPerInterval, Duration interval, LongSupplier nanoClock) {
+        this.permitsPerInterval = permitsPerInterval;
+        this.intervalNanos = interval.toNanos();
+        this.nanoClock = nanoClock;
+        this.intervalStart = nanoClock.getAsLong() - intervalNanos;
+    }
+
+    /**
+     * @return -1 when the line should not be logged, otherwise how many lines were held back since the last
+     * one let through
+     */
+    synchronized long tryAcquire() {
+        long now = nanoClock.getAsLong();
+        if (now - intervalStart >= intervalNanos) {
+            intervalStart = now;
+            permitsUsed = 0;
+        }
+        if (permitsUsed >= permitsPerInterval) {
+            suppressed++;
+            return -1;
+        }
+        permitsUsed++;
+        long heldBack = suppressed;
+        suppressed = 0;
+        return heldBack;
+    }
+}
@@ -3,14 +3,41 @@ package com.example.demo.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * Thrown for an id that matches nothing. This is an expected answer rather than a failure, and a misconfigured
+ * client can ask for missing ids thousands of times a second, so the exception records no stack trace and only
+ * builds its message when it is read.
+ */
 @ResponseStatus(value = HttpStatus.NOT_FOUND) // Optional: for Spring to automatically map this exception to a 404 if not handled by @ControllerAdvice
 public class ResourceNotFoundException extends RuntimeException {
 
+    private final String resourceName;
+    private final String fieldName;
+    private final Object fieldValue;
+    private String message;
+
     public ResourceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.resourceName = null;
+        this.fieldName = null;
+        this.fieldValue = null;
+        this.message = message;
     }
 
     public ResourceNotFoundException(String resourceName, String fieldName, Object fieldValue) {
-        super(String.format("%s not found with %s : '%s'", resourceName, fieldName, fieldValue));
+        super(null, null, false, false);
+        this.resourceName = resourceName;
+        this.fieldName = fieldName;
+        this.fieldValue = fieldValue;
+    }
+
+    @Override
+    public String getMessage() {
+        String result = message;
+        if (result == null && resourceName != null) {
+            result = resourceName + " not found with " + fieldName + " : '" + fieldValue + "'";
+            message = result;
+        }
+        return result;
     }
 }
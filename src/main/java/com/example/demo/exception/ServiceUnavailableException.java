@@ -0,0 +1,16 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the service sheds load. Raised most often exactly when the service is busiest, so it records no
+ * stack trace; with a fixed message one instance can be created up front and thrown from any thread.
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message, null, false, false);
+    }
+}
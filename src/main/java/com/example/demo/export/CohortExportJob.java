@@ -0,0 +1,340 @@
+package com.example.demo.export;
+
+import com.example.demo.archive.ArchivedReading;
+import com.example.demo.archive.ReadingArchive;
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.PatientRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Exports every patient's readings for the warehouse load. The patient id space is cut into ranges of
+ * {@code readings.cohort-export.partition-size} ids, and a pool of {@code readings.cohort-export.workers} threads
+ * scans the ranges in parallel, each on its own connection, writing one gzip-compressed CSV segment per range into
+ * a run directory. Archived months are merged in, so a segment holds its patients' whole history.
+ * <p>
+ * The run's {@link CohortExportManifest} records each partition as it completes. A run interrupted by a failure
+ * or restart is resumed by the next invocation, which only redoes the partitions not yet done; partitions are
+ * scanned independently, so they are not one consistent snapshot of the table. After
+ * {@code readings.cohort-export.max-attempts} invocations without finishing, a run is marked failed, its unfinished
+ * partitions are logged, and a new run is planned, so one partition that always fails cannot pin every later
+ * invocation to an ever older run.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "readings.cohort-export.enabled", havingValue = "true")
+public class CohortExportJob {
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String STAGING_SUFFIX = ".tmp";
+    private static final DateTimeFormatter RUN_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS");
+
+    private final BloodSugarReadingRepository bloodSugarReadingRepository;
+    private final PatientRepository patientRepository;
+    private final ReadingArchive readingArchive;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Path directory;
+    private final long partitionSize;
+    private final int maxAttempts;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler;
+    private final Counter exported;
+
+    public CohortExportJob(BloodSugarReadingRepository bloodSugarReadingRepository,
+                           PatientRepository patientRepository, ReadingArchive readingArchive,
+                           ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${readings.cohort-export.dir:data/export}") Path directory,
+                           @Value("${readings.cohort-export.partition-size:10000}") long partitionSize,
+                           @Value("${readings.cohort-export.workers:4}") int workers,
+                           @Value("${readings.cohort-export.max-attempts:3}") int maxAttempts,
+                           @Value("${readings.cohort-export.initial-delay:1h}") Duration initialDelay,
+                           @Value("${readings.cohort-export.interval:1d}") Duration interval) {
+        if (partitionSize < 1 || workers < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Cohort export partition size, workers and attempts must be positive");
+        }
+        this.bloodSugarReadingRepository = bloodSugarReadingRepository;
+        this.patientRepository = patientRepository;
+        this.readingArchive = readingArchive;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.directory = directory;
+        this.partitionSize = partitionSize;
+        this.maxAttempts = maxAttempts;
+        this.exported = Counter.builder(ApiConstants.Metrics.READINGS_COHORT_EXPORTED)
+                .description("Readings written to cohort export segments")
+                .register(meterRegistry);
+        this.workers = Executors.newFixedThreadPool(workers,
+                Thread.ofPlatform().name("cohort-export-", 0).daemon().factory());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("cohort-export-scheduler").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::exportDue, initialDelay.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Resumes the newest unfinished run, or starts a new one, and returns its completed manifest. If a partition
+     * fails the others still finish, and the run is left for the next invocation to resume, up to the allowed
+     * number of attempts.
+     */
+    public synchronized CohortExportManifest run() {
+        try {
+            CohortExportManifest manifest = findUnfinished().orElse(null);
+            if (manifest != null && manifest.attempts() >= maxAttempts) {
+                abandon(manifest);
+                manifest = null;
+            }
+            if (manifest == null) {
+                manifest = plan();
+            } else {
+                log.info("Resuming cohort export {}", manifest.runId());
+            }
+            manifest = manifest.attempted();
+            Path runDirectory = directory.resolve(manifest.runId());
+            Files.createDirectories(runDirectory);
+            writeManifest(runDirectory, manifest);
+
+            long startNanos = System.nanoTime();
+            CompletionService<CohortExportManifest.Partition> completed = new ExecutorCompletionService<>(workers);
+            int submitted = 0;
+            for (CohortExportManifest.Partition partition : manifest.partitions()) {
+                if (!partition.done() || !Files.exists(runDirectory.resolve(partition.file()))) {
+                    completed.submit(() -> exportPartition(runDirectory, partition));
+                    submitted++;
+                }
+            }
+
+            long rows = 0;
+            ExecutionException failure = null;
+            for (int i = 0; i < submitted; i++) {
+                try {
+                    CohortExportManifest.Partition partition = completed.take().get();
+                    rows += partition.rows();
+                    manifest = manifest.withPartition(partition);
+                    writeManifest(runDirectory, manifest);
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Cohort export " + manifest.runId() + " did not finish", failure.getCause());
+            }
+
+            double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+            manifest = manifest.completed(LocalDateTime.now(), rows / seconds);
+            writeManifest(runDirectory, manifest);
+            log.info("Cohort export {} wrote {} readings in {} partitions, {} rows/s", manifest.runId(), rows,
+                    submitted, Math.round(manifest.rowsPerSecond()));
+            return manifest;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cohort export interrupted", e);
+        }
+    }
+
+    private void exportDue() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            log.warn("Cohort export failed, resuming on the next run", e);
+        }
+    }
+
+    private CohortExportManifest plan() {
+        Long min = patientRepository.findMinId();
+        Long max = patientRepository.findMaxId();
+        List<CohortExportManifest.Partition> partitions = new ArrayList<>();
+        if (min != null) {
+            for (long first = min; first <= max; first += partitionSize) {
+                int index = partitions.size();
+                partitions.add(new CohortExportManifest.Partition(index, first, Math.min(first + partitionSize, max + 1),
+                        String.format("part-%05d.csv.gz", index), 0, 0, false));
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return new CohortExportManifest(now.format(RUN_ID_FORMAT), now, null, null, 0, 0, 0, partitions);
+    }
+
+    private void abandon(CohortExportManifest manifest) throws IOException {
+        List<String> stuck = manifest.partitions().stream()
+                .filter(partition -> !partition.done())
+                .map(partition -> partition.index() + " (patients " + partition.firstPatientId() + " to "
+                        + (partition.endPatientId() - 1) + ")")
+                .toList();
+        log.error("Cohort export {} did not finish in {} attempts and is abandoned; partitions never done: {}",
+                manifest.runId(), manifest.attempts(), stuck);
+        writeManifest(directory.resolve(manifest.runId()), manifest.failed(LocalDateTime.now()));
+    }
+
+    private CohortExportManifest.Partition exportPartition(Path runDirectory, CohortExportManifest.Partition partition)
+            throws IOException {
+        Path target = runDirectory.resolve(partition.file());
+        Path staging = target.resolveSibling(partition.file() + STAGING_SUFFIX);
+        LocalDateTime archivedBefore = readingArchive.archivedBefore();
+        long[] archivedPatients = archivedBefore == null ? new long[0]
+                : Arrays.stream(readingArchive.patientIds(LocalDateTime.MIN, archivedBefore))
+                .filter(id -> id >= partition.firstPatientId() && id < partition.endPatientId())
+                .toArray();
+        long rows;
+        try (CohortSegmentWriter writer = new CohortSegmentWriter(staging)) {
+            RangeMerge merge = new RangeMerge(archivedPatients, archivedBefore, writer);
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ArchivedReading> readings = bloodSugarReadingRepository.streamPatientRange(
+                        partition.firstPatientId(), partition.endPatientId())) {
+                    readings.forEach(merge::accept);
+                }
+            });
+            merge.finish();
+            rows = writer.rows();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staging);
+            throw e;
+        }
+        Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        exported.increment(rows);
+        return partition.done(rows, Files.size(target));
+    }
+
+    private Optional<CohortExportManifest> findUnfinished() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> runs = Files.list(directory)) {
+            List<Path> manifests = runs.map(run -> run.resolve(MANIFEST)).filter(Files::isRegularFile)
+                    .sorted(Comparator.reverseOrder()).toList();
+            for (Path manifest : manifests) {
+                CohortExportManifest candidate = objectMapper.readValue(manifest.toFile(), CohortExportManifest.class);
+                if (candidate.completedAt() == null && candidate.failedAt() == null) {
+                    return Optional.of(candidate);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Replaced atomically, so a crash leaves either the previous or the new manifest
+    private void writeManifest(Path runDirectory, CohortExportManifest manifest) throws IOException {
+        Path target = runDirectory.resolve(MANIFEST);
+        Path staging = runDirectory.resolve(MANIFEST + STAGING_SUFFIX);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(staging.toFile(), manifest);
+        Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Interleaves a partition's table rows, which arrive in (patient, timestamp, id) order, with its patients'
+     * archived readings. A patient's table rows from before the archive cutoff are held back and merged into the
+     * archived ones; the rest follow them.
+     */
+    private final class RangeMerge {
+
+        private final long[] archivedPatients;
+        private final LocalDateTime archivedBefore;
+        private final CohortSegmentWriter writer;
+        private final List<ArchivedReading> late = new ArrayList<>();
+        private int nextArchived;
+        private long patientId = Long.MIN_VALUE;
+        private boolean archivePending;
+
+        RangeMerge(long[] archivedPatients, LocalDateTime archivedBefore, CohortSegmentWriter writer) {
+            this.archivedPatients = archivedPatients;
+            this.archivedBefore = archivedBefore;
+            this.writer = writer;
+        }
+
+        void accept(ArchivedReading reading) {
+            if (reading.patientId() != patientId) {
+                finishPatient();
+                startPatient(reading.patientId());
+            }
+            if (archivePending) {
+                if (reading.timestamp().isBefore(archivedBefore)) {
+                    late.add(reading);
+                    return;
+                }
+                writeArchived();
+            }
+            write(reading);
+        }
+
+        void finish() {
+            finishPatient();
+            startPatient(Long.MAX_VALUE);
+        }
+
+        // Patients with only archived readings come before the next patient the table has rows for
+        private void startPatient(long nextPatientId) {
+            while (nextArchived < archivedPatients.length && archivedPatients[nextArchived] < nextPatientId) {
+                readingArchive.forEach(archivedPatients[nextArchived++], List.of(), this::write);
+            }
+            archivePending = nextArchived < archivedPatients.length && archivedPatients[nextArchived] == nextPatientId;
+            if (archivePending) {
+                nextArchived++;
+            }
+            patientId = nextPatientId;
+        }
+
+        private void finishPatient() {
+            if (archivePending) {
+                writeArchived();
+            }
+        }
+
+        private void writeArchived() {
+            readingArchive.forEach(patientId, late, this::write);
+            late.clear();
+            archivePending = false;
+        }
+
+        private void write(ArchivedReading reading) {
+            try {
+                writer.write(reading);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
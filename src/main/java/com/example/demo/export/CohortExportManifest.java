@@ -0,0 +1,44 @@
+package com.example.demo.export;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The plan and progress of one cohort export run, kept as {@code manifest.json} beside its segment files.
+ * A warehouse loader picks up a run once {@code completedAt} is set; until then a restarted job resumes it,
+ * redoing only the partitions not marked done. {@code attempts} counts the invocations that worked on the run;
+ * a run that still did not finish after the allowed attempts gets {@code failedAt} and is never resumed.
+ */
+public record CohortExportManifest(String runId, LocalDateTime startedAt, LocalDateTime completedAt,
+                                   LocalDateTime failedAt, int attempts, long rows, double rowsPerSecond,
+                                   List<Partition> partitions) {
+
+    /** Readings of the patients with ids from {@code firstPatientId} up to, not including, {@code endPatientId}. */
+    public record Partition(int index, long firstPatientId, long endPatientId, String file, long rows, long bytes,
+                            boolean done) {
+
+        Partition done(long rows, long bytes) {
+            return new Partition(index, firstPatientId, endPatientId, file, rows, bytes, true);
+        }
+    }
+
+    CohortExportManifest withPartition(Partition partition) {
+        List<Partition> updated = new ArrayList<>(partitions);
+        updated.set(partition.index(), partition);
+        return new CohortExportManifest(runId, startedAt, completedAt, failedAt, attempts, rows, rowsPerSecond, updated);
+    }
+
+    CohortExportManifest attempted() {
+        return new CohortExportManifest(runId, startedAt, completedAt, failedAt, attempts + 1, rows, rowsPerSecond, partitions);
+    }
+
+    CohortExportManifest failed(LocalDateTime failedAt) {
+        return new CohortExportManifest(runId, startedAt, completedAt, failedAt, attempts, rows, rowsPerSecond, partitions);
+    }
+
+    CohortExportManifest completed(LocalDateTime completedAt, double rowsPerSecond) {
+        long total = partitions.stream().mapToLong(Partition::rows).sum();
+        return new CohortExportManifest(runId, startedAt, completedAt, failedAt, attempts, total, rowsPerSecond, partitions);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.export;
+
+import com.example.demo.archive.ArchivedReading;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+// One partition of a cohort export as gzip-compressed CSV, rows in (patient, timestamp, id) order
+final class CohortSegmentWriter implements Closeable {
+
+    static final String HEADER = "patientId,id,timestamp,level,unit,deviceId\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final Writer writer;
+    private long rows;
+
+    CohortSegmentWriter(Path file) throws IOException {
+        this.file = file;
+        this.writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(HEADER);
+    }
+
+    void write(ArchivedReading reading) throws IOException {
+        writer.write(Long.toString(reading.patientId()));
+        writer.write(',');
+        writer.write(Long.toString(reading.id()));
+        writer.write(',');
+        DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(reading.timestamp(), writer);
+        writer.write(',');
+        writer.write(Double.toString(reading.entryUnit().fromTenthsMgDl(reading.levelTenthsMgDl())));
+        writer.write(',');
+        writer.write(reading.entryUnit().getSymbol());
+        writer.write(',');
+        // Device ids are restricted to characters that need no quoting
+        if (reading.deviceId() != null) {
+            writer.write(reading.deviceId());
+        }
+        writer.write('\n');
+        rows++;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    // Finishes the gzip stream and forces the file to disk, so a segment recorded as done survives a crash
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+}
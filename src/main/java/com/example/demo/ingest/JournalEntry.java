@@ -0,0 +1,8 @@
+package com.example.demo.ingest;
+
+import java.time.LocalDateTime;
+
+// One accepted reading as stored in the journal, with the level exactly as submitted
+public record JournalEntry(long sequence, long patientId, LocalDateTime timestamp, double level, byte unitCode,
+                           String deviceId, String idempotencyKey, long appendedAtMillis) {
+}
@@ -0,0 +1,244 @@
+package com.example.demo.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of accepted readings in memory-mapped segment files of fixed-size records.
+ * <p>
+ * Records carry consecutive sequence numbers; a segment is named after its first sequence, so the position
+ * of any record is computed rather than indexed. An append is durable against a process crash as soon as it
+ * returns, because the mapped pages belong to the OS; {@code forceOnAppend} also flushes them to the device
+ * to survive power loss. A record torn by a crash fails its checksum and is overwritten by the next append.
+ * <p>
+ * Appends are serialised; reads of already appended sequences may run concurrently with them.
+ */
+class ReadingJournal implements AutoCloseable {
+
+    static final int RECORD_SIZE = 184;
+    // Device ids and idempotency keys are ASCII of at most this many characters
+    static final int MAX_KEY_LENGTH = 64;
+
+    private static final int SEQUENCE = 0;
+    private static final int PATIENT_ID = 8;
+    private static final int EPOCH_SECOND = 16;
+    private static final int NANOS = 24;
+    private static final int UNIT_CODE = 28;
+    private static final int DEVICE_ID_LENGTH = 29;
+    private static final int IDEMPOTENCY_KEY_LENGTH = 30;
+    private static final int LEVEL = 32;
+    private static final int APPENDED_AT = 40;
+    private static final int DEVICE_ID = 48;
+    private static final int IDEMPOTENCY_KEY = DEVICE_ID + MAX_KEY_LENGTH;
+    private static final int CHECKSUM = IDEMPOTENCY_KEY + MAX_KEY_LENGTH;
+
+    private static final String SEGMENT_PREFIX = "readings-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final boolean forceOnAppend;
+    private final ConcurrentNavigableMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private volatile long lastSequence;
+
+    ReadingJournal(Path directory, int segmentRecords, boolean forceOnAppend) throws IOException {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.forceOnAppend = forceOnAppend;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(ReadingJournal::isSegment).toList()) {
+                segments.put(firstSequence(file), map(file));
+            }
+        }
+        this.lastSequence = recoverLastSequence();
+    }
+
+    /** Sequence of the latest appended record, or of the start position when the journal is empty. */
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Makes the next append use a sequence after the given one. Only moves forward, and only while the
+     * journal holds nothing after it, e.g. when the journal directory was lost but the store kept its checkpoint.
+     */
+    synchronized void startAfter(long sequence) {
+        if (sequence > lastSequence) {
+            lastSequence = sequence;
+        }
+    }
+
+    synchronized long append(long patientId, LocalDateTime timestamp, double level, byte unitCode,
+                             String deviceId, String idempotencyKey, long appendedAtMillis) {
+        long sequence = lastSequence + 1;
+        MappedByteBuffer segment = segmentFor(sequence);
+        if (segment == null) {
+            segment = createSegment(sequence);
+        }
+        int offset = offset(sequence);
+        segment.putLong(offset + SEQUENCE, sequence);
+        segment.putLong(offset + PATIENT_ID, patientId);
+        segment.putLong(offset + EPOCH_SECOND, timestamp.toEpochSecond(ZoneOffset.UTC));
+        segment.putInt(offset + NANOS, timestamp.getNano());
+        segment.put(offset + UNIT_CODE, unitCode);
+        segment.put(offset + DEVICE_ID_LENGTH, putAscii(segment, offset + DEVICE_ID, deviceId));
+        segment.put(offset + IDEMPOTENCY_KEY_LENGTH, putAscii(segment, offset + IDEMPOTENCY_KEY, idempotencyKey));
+        segment.putDouble(offset + LEVEL, level);
+        segment.putLong(offset + APPENDED_AT, appendedAtMillis);
+        segment.putInt(offset + CHECKSUM, checksum(segment, offset));
+        if (forceOnAppend) {
+            segment.force(offset, RECORD_SIZE);
+        }
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /** Reads up to {@code max} records starting at {@code fromSequence}, stopping at the latest append. */
+    List<JournalEntry> read(long fromSequence, int max) {
+        long last = Math.min(lastSequence, fromSequence + max - 1);
+        List<JournalEntry> entries = new ArrayList<>((int) Math.max(0, last - fromSequence + 1));
+        for (long sequence = fromSequence; sequence <= last; sequence++) {
+            MappedByteBuffer segment = segmentFor(sequence);
+            if (segment == null) {
+                throw new IllegalStateException("Journal record " + sequence + " is missing");
+            }
+            entries.add(readRecord(segment, offset(sequence)));
+        }
+        return entries;
+    }
+
+    /** Deletes the segments whose records all have a sequence up to the given one. */
+    void releaseUpTo(long sequence) {
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.entrySet()) {
+            long segmentLast = segment.getKey() + segmentRecords - 1;
+            if (segmentLast > sequence || segmentLast >= lastSequence) {
+                break;
+            }
+            segments.remove(segment.getKey());
+            try {
+                Files.deleteIfExists(segmentPath(segment.getKey()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        segments.values().forEach(MappedByteBuffer::force);
+        segments.clear();
+    }
+
+    private long recoverLastSequence() {
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        Map.Entry<Long, MappedByteBuffer> tail = segments.lastEntry();
+        long sequence = tail.getKey() - 1;
+        // Older segments are complete; only the tail can end in unwritten or torn records
+        for (int i = 0; i < segmentRecords; i++) {
+            int offset = i * RECORD_SIZE;
+            if (tail.getValue().getLong(offset + SEQUENCE) != sequence + 1
+                    || tail.getValue().getInt(offset + CHECKSUM) != checksum(tail.getValue(), offset)) {
+                break;
+            }
+            sequence++;
+        }
+        return sequence;
+    }
+
+    private MappedByteBuffer segmentFor(long sequence) {
+        Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(sequence);
+        return segment != null && sequence - segment.getKey() < segmentRecords ? segment.getValue() : null;
+    }
+
+    private MappedByteBuffer createSegment(long firstSequence) {
+        try {
+            MappedByteBuffer segment = map(segmentPath(firstSequence));
+            segments.put(firstSequence, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+        }
+    }
+
+    private int offset(long sequence) {
+        return (int) ((sequence - segments.floorKey(sequence)) * RECORD_SIZE);
+    }
+
+    private static JournalEntry readRecord(ByteBuffer segment, int offset) {
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(segment.getLong(offset + EPOCH_SECOND),
+                segment.getInt(offset + NANOS), ZoneOffset.UTC);
+        return new JournalEntry(segment.getLong(offset + SEQUENCE), segment.getLong(offset + PATIENT_ID), timestamp,
+                segment.getDouble(offset + LEVEL), segment.get(offset + UNIT_CODE),
+                getAscii(segment, offset + DEVICE_ID, segment.get(offset + DEVICE_ID_LENGTH)),
+                getAscii(segment, offset + IDEMPOTENCY_KEY, segment.get(offset + IDEMPOTENCY_KEY_LENGTH)),
+                segment.getLong(offset + APPENDED_AT));
+    }
+
+    // Writes an optional ASCII value into its fixed-size slot and returns its length, 0 standing for none
+    private static byte putAscii(ByteBuffer segment, int offset, String value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value.isEmpty() || value.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Journal keys must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        segment.put(offset, value.getBytes(StandardCharsets.US_ASCII));
+        return (byte) value.length();
+    }
+
+    private static String getAscii(ByteBuffer segment, int offset, int length) {
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        segment.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static int checksum(ByteBuffer segment, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(segment.slice(offset, CHECKSUM));
+        return (int) crc.getValue();
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.ingest;
+
+import com.example.demo.constants.ApiConstants;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Sequence of the last journal record stored as a reading. Advanced in the same transaction that inserts
+ * the readings, so a replay after a crash neither skips nor repeats any record.
+ */
+@Entity
+@Table(name = ApiConstants.Tables.READING_JOURNAL_CHECKPOINTS)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ReadingJournalCheckpoint {
+
+    // There is a single journal, so a single row
+    public static final long JOURNAL_ID = 1L;
+
+    @Id
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(nullable = false)
+    private long lastSequence;
+}
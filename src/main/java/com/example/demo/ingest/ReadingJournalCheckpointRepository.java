@@ -0,0 +1,8 @@
+package com.example.demo.ingest;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReadingJournalCheckpointRepository extends JpaRepository<ReadingJournalCheckpoint, Long> {
+}
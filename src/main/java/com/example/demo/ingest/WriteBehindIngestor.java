@@ -0,0 +1,277 @@
+package com.example.demo.ingest;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.exception.ConflictException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.patient.BloodSugarReadingBatchService;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.GlucoseUnit;
+import com.example.demo.patient.PatientRepository;
+import com.example.demo.patient.ReadingKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind mode for single reading uploads. An accepted reading is appended to the local {@link ReadingJournal}
+ * and acknowledged straight away; a background drainer stores journaled readings in batches, recording its
+ * progress in {@link ReadingJournalCheckpoint} within the same transaction. On startup the drainer resumes after
+ * the checkpoint, so every acknowledged reading is stored exactly once even after a crash.
+ * <p>
+ * Readings of patients deleted before their record is drained are dropped. A batch the database rejects for its
+ * content, e.g. a reading whose keys match two different stored readings, is stored again one reading at a time;
+ * readings rejected on their own are logged and set aside so the drainer moves past them. Other failures are
+ * retried.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "readings.write-behind.enabled", havingValue = "true")
+public class WriteBehindIngestor implements SmartLifecycle {
+
+    // Thrown for every reading offered while the journal is full; stackless, so one instance serves all of them
+    private static final ServiceUnavailableException FULL =
+            new ServiceUnavailableException(ApiConstants.ExceptionMessage.WRITE_BEHIND_FULL);
+
+    private final ReadingJournal journal;
+    private final BloodSugarReadingBatchService bloodSugarReadingBatchService;
+    private final PatientRepository patientRepository;
+    private final ReadingJournalCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int drainBatchSize;
+    private final long maxDepth;
+    private final Duration retryInterval;
+    private final Counter drained;
+    private final Counter setAside;
+
+    private volatile long drainedSequence;
+    private volatile boolean running;
+    private volatile Thread drainer;
+
+    public WriteBehindIngestor(BloodSugarReadingBatchService bloodSugarReadingBatchService,
+                               PatientRepository patientRepository,
+                               ReadingJournalCheckpointRepository checkpointRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${readings.write-behind.journal-dir:data/journal}") Path journalDirectory,
+                               @Value("${readings.write-behind.segment-records:1048576}") int segmentRecords,
+                               @Value("${readings.write-behind.force-on-append:false}") boolean forceOnAppend,
+                               @Value("${readings.write-behind.drain-batch-size:500}") int drainBatchSize,
+                               @Value("${readings.write-behind.max-depth:1000000}") long maxDepth,
+                               @Value("${readings.write-behind.retry-interval:1s}") Duration retryInterval) throws IOException {
+        this.bloodSugarReadingBatchService = bloodSugarReadingBatchService;
+        this.patientRepository = patientRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.drainBatchSize = drainBatchSize;
+        this.maxDepth = maxDepth;
+        this.retryInterval = retryInterval;
+        this.journal = new ReadingJournal(journalDirectory, segmentRecords, forceOnAppend);
+        loadCheckpoint();
+
+        this.drained = Counter.builder(ApiConstants.Metrics.WRITE_BEHIND_DRAINED)
+                .description("Journaled readings stored by the write-behind drainer")
+                .register(meterRegistry);
+        this.setAside = Counter.builder(ApiConstants.Metrics.WRITE_BEHIND_SET_ASIDE)
+                .description("Journaled readings the database rejected, logged and skipped by the drainer")
+                .register(meterRegistry);
+        Gauge.builder(ApiConstants.Metrics.WRITE_BEHIND_DEPTH, this, WriteBehindIngestor::depth)
+                .description("Accepted readings waiting in the journal to be stored")
+                .register(meterRegistry);
+        TimeGauge.builder(ApiConstants.Metrics.WRITE_BEHIND_LAG, this, TimeUnit.MILLISECONDS, WriteBehindIngestor::lagMillis)
+                .description("Age of the oldest reading waiting in the journal")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Journals an already validated reading for the given patient.
+     *
+     * @throws ServiceUnavailableException when the drainer is too far behind to accept more
+     */
+    public void accept(Long patientId, BloodSugarReadingDTO readingDTO, String idempotencyKey) {
+        if (depth() >= maxDepth) {
+            throw FULL;
+        }
+        journal.append(patientId, readingDTO.getTimestamp(), readingDTO.getLevel(),
+                GlucoseUnit.fromSymbol(readingDTO.getUnit()).getCode(), readingDTO.getDeviceId(), idempotencyKey,
+                System.currentTimeMillis());
+        Thread current = drainer;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    long depth() {
+        return journal.lastSequence() - drainedSequence;
+    }
+
+    @Override
+    public void start() {
+        loadCheckpoint();
+        long pending = depth();
+        if (pending > 0) {
+            log.info("Replaying {} journaled readings after sequence {}", pending, drainedSequence);
+        }
+        running = true;
+        drainer = Thread.ofPlatform().name("reading-journal-drainer").daemon().start(this::drainLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = drainer;
+        if (current != null) {
+            LockSupport.unpark(current);
+            try {
+                current.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drainer = null;
+    }
+
+    @PreDestroy
+    public void close() {
+        journal.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Started before the web server, so no reading is accepted while replay has not begun
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    // Continues numbering after the checkpoint even if the journal files were lost
+    private void loadCheckpoint() {
+        drainedSequence = checkpointRepository.findById(ReadingJournalCheckpoint.JOURNAL_ID)
+                .map(ReadingJournalCheckpoint::getLastSequence)
+                .orElse(0L);
+        journal.startAfter(drainedSequence);
+    }
+
+    // On stop, whatever is already journaled is drained before the thread exits
+    private void drainLoop() {
+        while (running || depth() > 0) {
+            long from = drainedSequence + 1;
+            try {
+                List<JournalEntry> entries = journal.read(from, drainBatchSize);
+                if (!entries.isEmpty()) {
+                    drain(entries);
+                    continue;
+                }
+                if (!running) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Storing journaled readings from sequence {} failed, retrying", from, e);
+                if (!running) {
+                    break;
+                }
+            }
+            LockSupport.parkNanos(retryInterval.toNanos());
+        }
+    }
+
+    // Retrying a rejected batch as it is would fail forever and hold back every later reading
+    private void drain(List<JournalEntry> entries) {
+        try {
+            store(entries);
+            return;
+        } catch (DataIntegrityViolationException | ConstraintViolationException | ConflictException e) {
+            if (entries.size() == 1) {
+                setAside(entries.get(0), e);
+                return;
+            }
+            log.warn("Storing journaled readings {} to {} was rejected, storing them one at a time",
+                    entries.get(0).sequence(), entries.get(entries.size() - 1).sequence());
+        }
+        for (JournalEntry entry : entries) {
+            try {
+                store(List.of(entry));
+            } catch (DataIntegrityViolationException | ConstraintViolationException | ConflictException e) {
+                setAside(entry, e);
+            }
+        }
+    }
+
+    private void setAside(JournalEntry entry, RuntimeException e) {
+        log.error("Setting aside journaled reading {}: patient {}, timestamp {}, level {}, unit code {}, device {}, key {}",
+                entry.sequence(), entry.patientId(), entry.timestamp(), entry.level(), entry.unitCode(),
+                entry.deviceId(), entry.idempotencyKey(), e);
+        transactionTemplate.executeWithoutResult(status -> checkpointRepository.save(
+                new ReadingJournalCheckpoint(ReadingJournalCheckpoint.JOURNAL_ID, entry.sequence())));
+        setAside.increment();
+        advanceTo(entry.sequence());
+    }
+
+    private void store(List<JournalEntry> entries) {
+        Map<Long, List<BloodSugarReadingDTO>> byPatient = new LinkedHashMap<>();
+        Map<Long, List<ReadingKey>> keysByPatient = new LinkedHashMap<>();
+        for (JournalEntry entry : entries) {
+            BloodSugarReadingDTO readingDTO = toDTO(entry);
+            byPatient.computeIfAbsent(entry.patientId(), id -> new ArrayList<>()).add(readingDTO);
+            keysByPatient.computeIfAbsent(entry.patientId(), id -> new ArrayList<>())
+                    .add(ReadingKey.of(entry.patientId(), readingDTO, entry.idempotencyKey()));
+        }
+        long lastSequence = entries.get(entries.size() - 1).sequence();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            byPatient.forEach((patientId, readingDTOs) -> {
+                if (patientRepository.existsById(patientId)) {
+                    // A reading journaled twice, e.g. a retry racing the first drain, is stored once
+                    bloodSugarReadingBatchService.persistAccepted(patientId, readingDTOs, keysByPatient.get(patientId));
+                } else {
+                    log.warn("Dropping {} journaled readings of deleted patient {}", readingDTOs.size(), patientId);
+                }
+            });
+            checkpointRepository.save(new ReadingJournalCheckpoint(ReadingJournalCheckpoint.JOURNAL_ID, lastSequence));
+        });
+
+        drained.increment(entries.size());
+        advanceTo(lastSequence);
+    }
+
+    private void advanceTo(long sequence) {
+        drainedSequence = sequence;
+        journal.releaseUpTo(sequence);
+    }
+
+    private double lagMillis() {
+        if (depth() <= 0) {
+            return 0;
+        }
+        List<JournalEntry> oldest = journal.read(drainedSequence + 1, 1);
+        return oldest.isEmpty() ? 0 : Math.max(0, System.currentTimeMillis() - oldest.get(0).appendedAtMillis());
+    }
+
+    private static BloodSugarReadingDTO toDTO(JournalEntry entry) {
+        return new BloodSugarReadingDTO(null, entry.timestamp(), entry.level(),
+                GlucoseUnit.fromCode(entry.unitCode()).getSymbol(), entry.patientId(), entry.deviceId());
+    }
+}
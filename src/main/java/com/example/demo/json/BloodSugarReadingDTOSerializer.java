@@ -0,0 +1,89 @@
+package com.example.demo.json;
+
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a {@link BloodSugarReadingDTO} field by field, producing the same JSON as the reflective bean serializer
+ * (declaration order, nulls left out) without its per-property lookups, and the timestamp through
+ * {@link IsoTimestamps} instead of a DateTimeFormatter. On text output the level is written by {@link DecimalLevels},
+ * so neither value costs a String.
+ */
+public class BloodSugarReadingDTOSerializer extends StdSerializer<BloodSugarReadingDTO> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializedString LEVEL = new SerializedString("level");
+    private static final SerializedString UNIT = new SerializedString("unit");
+    private static final SerializedString PATIENT_ID = new SerializedString("patientId");
+    private static final SerializedString DEVICE_ID = new SerializedString("deviceId");
+
+    // Serializers are shared between threads; each thread formats into its own buffer
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(
+            () -> new char[Math.max(IsoTimestamps.MAX_LENGTH, DecimalLevels.MAX_LENGTH)]);
+
+    public BloodSugarReadingDTOSerializer() {
+        super(BloodSugarReadingDTO.class);
+    }
+
+    @Override
+    public void serialize(BloodSugarReadingDTO reading, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(reading);
+        if (reading.getId() != null) {
+            generator.writeFieldName(ID);
+            generator.writeNumber(reading.getId());
+        }
+        if (reading.getTimestamp() != null) {
+            generator.writeFieldName(TIMESTAMP);
+            writeTimestamp(reading.getTimestamp(), generator, provider);
+        }
+        if (reading.getLevel() != null) {
+            generator.writeFieldName(LEVEL);
+            writeLevel(reading.getLevel(), generator);
+        }
+        if (reading.getUnit() != null) {
+            generator.writeFieldName(UNIT);
+            generator.writeString(reading.getUnit());
+        }
+        if (reading.getPatientId() != null) {
+            generator.writeFieldName(PATIENT_ID);
+            generator.writeNumber(reading.getPatientId());
+        }
+        if (reading.getDeviceId() != null) {
+            generator.writeFieldName(DEVICE_ID);
+            generator.writeString(reading.getDeviceId());
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeTimestamp(LocalDateTime timestamp, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            // Not the application's setup; keep whatever shape the JavaTimeModule is configured for
+            provider.defaultSerializeValue(timestamp, generator);
+            return;
+        }
+        char[] buffer = BUFFER.get();
+        generator.writeString(buffer, 0, IsoTimestamps.format(timestamp, buffer));
+    }
+
+    private static void writeLevel(double level, JsonGenerator generator) throws IOException {
+        // Binary formats encode the double itself
+        if (generator.canWriteFormattedNumbers()) {
+            char[] buffer = BUFFER.get();
+            int length = DecimalLevels.format(level, buffer);
+            if (length > 0) {
+                generator.writeNumber(buffer, 0, length);
+                return;
+            }
+        }
+        generator.writeNumber(level);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.json;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.GlucoseUnit;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Writes a reading list as {@code [[epochMillis, levelMgDl], ...]} for clients that ask for
+ * {@value ApiConstants.MediaTypes#READINGS_COMPACT}, e.g. to plot a long history. Timestamps are taken as UTC,
+ * like everywhere else readings are stored; levels are converted to mg/dL, so the unit can be left out.
+ * Only the id, device and entry unit of each reading are left out.
+ */
+public class CompactReadingsHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<BloodSugarReadingDTO>> {
+
+    public static final MediaType READINGS_COMPACT = MediaType.parseMediaType(ApiConstants.MediaTypes.READINGS_COMPACT);
+
+    // The servlet response stream belongs to the container
+    private final JsonFactory jsonFactory = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    public CompactReadingsHttpMessageConverter() {
+        super(READINGS_COMPACT);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        Type resolved = type != null ? type : clazz;
+        return ResolvableType.forType(resolved).asCollection().resolveGeneric(0) == BloodSugarReadingDTO.class
+                && canWrite(mediaType);
+    }
+
+    @Override
+    protected void writeInternal(List<BloodSugarReadingDTO> readings, Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        writeTo(readings, outputMessage.getBody());
+    }
+
+    public void writeTo(List<BloodSugarReadingDTO> readings, OutputStream out) throws IOException {
+        char[] level = new char[DecimalLevels.MAX_LENGTH];
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartArray(readings, readings.size());
+            for (BloodSugarReadingDTO reading : readings) {
+                generator.writeStartArray(reading, 2);
+                generator.writeNumber(reading.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+                double mgDl = GlucoseUnit.fromSymbol(reading.getUnit()).toTenthsMgDl(reading.getLevel()) / 10.0;
+                int length = DecimalLevels.format(mgDl, level);
+                if (length > 0) {
+                    generator.writeNumber(level, 0, length);
+                } else {
+                    generator.writeNumber(mgDl);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Override
+    public List<BloodSugarReadingDTO> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException(ApiConstants.ExceptionMessage.COMPACT_READINGS_WRITE_ONLY, inputMessage);
+    }
+
+    @Override
+    protected List<BloodSugarReadingDTO> readInternal(Class<? extends List<BloodSugarReadingDTO>> clazz,
+                                                      HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException(ApiConstants.ExceptionMessage.COMPACT_READINGS_WRITE_ONLY, inputMessage);
+    }
+}
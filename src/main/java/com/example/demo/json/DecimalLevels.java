@@ -0,0 +1,52 @@
+package com.example.demo.json;
+
+/**
+ * Text of a reading level exactly as {@link Double#toString(double)} writes it, for the levels the API produces:
+ * at most two decimals (see GlucoseUnit) and below ten million. For those the shortest decimal that identifies
+ * the double is the two-decimal value itself, so it can be written from a scaled long without the general
+ * algorithm or a String per value.
+ */
+final class DecimalLevels {
+
+    // "9999999.99"
+    static final int MAX_LENGTH = 10;
+
+    private static final double MIN = 0.01;
+    private static final double MAX = 1e7;
+
+    private DecimalLevels() {
+        // Prevent instantiation
+    }
+
+    /** Writes the level into the buffer and returns its length, or -1 when it needs the general formatter. */
+    static int format(double level, char[] buffer) {
+        if (!(level >= MIN && level < MAX)) {
+            return -1;
+        }
+        long hundredths = Math.round(level * 100.0);
+        if (hundredths / 100.0 != level) {
+            return -1;
+        }
+        long integerPart = hundredths / 100;
+        int fraction = (int) (hundredths % 100);
+        int length = writeDigits(integerPart, buffer);
+        buffer[length++] = '.';
+        buffer[length++] = (char) ('0' + fraction / 10);
+        if (fraction % 10 != 0) {
+            buffer[length++] = (char) ('0' + fraction % 10);
+        }
+        return length;
+    }
+
+    private static int writeDigits(long value, char[] buffer) {
+        int digits = 1;
+        for (long rest = value; rest >= 10; rest /= 10) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.json;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * ISO-8601 text of dates and timestamps exactly as the JavaTimeModule writes them (ISO_LOCAL_DATE and
+ * ISO_LOCAL_DATE_TIME), produced without a DateTimeFormatter. Consecutive readings mostly fall on the same day,
+ * so the {@code yyyy-MM-dd} text of the last date formatted is kept and only the time of day is computed.
+ */
+final class IsoTimestamps {
+
+    // "+yyyyyyyyy-MM-ddTHH:mm:ss.nnnnnnnnn", the longest the fallback can produce
+    static final int MAX_LENGTH = 35;
+
+    private static final int DATE_LENGTH = 10;
+
+    // Replaced as a whole, so a thread sees either the old or the new date with its matching text
+    private record CachedDate(LocalDate date, char[] text) {
+    }
+
+    private static volatile CachedDate lastDate = new CachedDate(LocalDate.EPOCH, formatDate(LocalDate.EPOCH));
+
+    private IsoTimestamps() {
+        // Prevent instantiation
+    }
+
+    /** Writes the timestamp into the buffer, which holds at least {@link #MAX_LENGTH} chars, and returns its length. */
+    static int format(LocalDateTime timestamp, char[] buffer) {
+        int year = timestamp.getYear();
+        if (year < 0 || year > 9999) {
+            // Signed or expanded years are rare enough for the general formatter
+            String text = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp);
+            text.getChars(0, text.length(), buffer, 0);
+            return text.length();
+        }
+        CachedDate cached = lastDate;
+        LocalDate date = timestamp.toLocalDate();
+        if (!cached.date().equals(date)) {
+            cached = new CachedDate(date, formatDate(date));
+            lastDate = cached;
+        }
+        System.arraycopy(cached.text(), 0, buffer, 0, DATE_LENGTH);
+        buffer[10] = 'T';
+        twoDigits(timestamp.getHour(), buffer, 11);
+        buffer[13] = ':';
+        twoDigits(timestamp.getMinute(), buffer, 14);
+        buffer[16] = ':';
+        twoDigits(timestamp.getSecond(), buffer, 17);
+        int nanos = timestamp.getNano();
+        if (nanos == 0) {
+            return 19;
+        }
+        // As many fraction digits as needed, trailing zeros dropped
+        buffer[19] = '.';
+        int length = 20;
+        for (int divisor = 100_000_000; nanos > 0; divisor /= 10) {
+            buffer[length++] = (char) ('0' + nanos / divisor);
+            nanos %= divisor;
+        }
+        return length;
+    }
+
+    static String format(LocalDate date) {
+        if (date.getYear() < 0 || date.getYear() > 9999) {
+            return DateTimeFormatter.ISO_LOCAL_DATE.format(date);
+        }
+        return new String(formatDate(date));
+    }
+
+    private static char[] formatDate(LocalDate date) {
+        char[] text = new char[DATE_LENGTH];
+        int year = date.getYear();
+        twoDigits(year / 100, text, 0);
+        twoDigits(year % 100, text, 2);
+        text[4] = '-';
+        twoDigits(date.getMonthValue(), text, 5);
+        text[7] = '-';
+        twoDigits(date.getDayOfMonth(), text, 8);
+        return text;
+    }
+
+    private static void twoDigits(int value, char[] buffer, int offset) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.json;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class JsonConfig implements WebMvcConfigurer {
+
+    @Bean
+    public ReadingJsonModule readingJsonModule() {
+        return new ReadingJsonModule();
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Last, so JSON stays the answer to */* and the compact shape is only sent when asked for by name
+        converters.add(new CompactReadingsHttpMessageConverter());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.json;
+
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.PatientDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a {@link PatientDTO} with the same JSON as the bean serializer, its readings going straight through
+ * {@link BloodSugarReadingDTOSerializer} rather than a serializer lookup per element.
+ */
+public class PatientDTOSerializer extends StdSerializer<PatientDTO> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString FIRST_NAME = new SerializedString("firstName");
+    private static final SerializedString LAST_NAME = new SerializedString("lastName");
+    private static final SerializedString DATE_OF_BIRTH = new SerializedString("dateOfBirth");
+    private static final SerializedString BLOOD_SUGAR_READINGS = new SerializedString("bloodSugarReadings");
+
+    private final BloodSugarReadingDTOSerializer readingSerializer;
+
+    public PatientDTOSerializer(BloodSugarReadingDTOSerializer readingSerializer) {
+        super(PatientDTO.class);
+        this.readingSerializer = readingSerializer;
+    }
+
+    @Override
+    public void serialize(PatientDTO patient, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(patient);
+        if (patient.getId() != null) {
+            generator.writeFieldName(ID);
+            generator.writeNumber(patient.getId());
+        }
+        if (patient.getFirstName() != null) {
+            generator.writeFieldName(FIRST_NAME);
+            generator.writeString(patient.getFirstName());
+        }
+        if (patient.getLastName() != null) {
+            generator.writeFieldName(LAST_NAME);
+            generator.writeString(patient.getLastName());
+        }
+        if (patient.getDateOfBirth() != null) {
+            generator.writeFieldName(DATE_OF_BIRTH);
+            if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+                provider.defaultSerializeValue(patient.getDateOfBirth(), generator);
+            } else {
+                generator.writeString(IsoTimestamps.format(patient.getDateOfBirth()));
+            }
+        }
+        List<BloodSugarReadingDTO> readings = patient.getBloodSugarReadings();
+        if (readings != null) {
+            generator.writeFieldName(BLOOD_SUGAR_READINGS);
+            generator.writeStartArray(readings, readings.size());
+            for (BloodSugarReadingDTO reading : readings) {
+                if (reading == null) {
+                    generator.writeNull();
+                } else {
+                    readingSerializer.serialize(reading, generator, provider);
+                }
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+}
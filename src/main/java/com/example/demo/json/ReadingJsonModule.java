@@ -0,0 +1,19 @@
+package com.example.demo.json;
+
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.PatientDTO;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Registers the hand-written serializers for the reading and patient DTOs. Spring Boot adds every Module bean to
+ * the ObjectMapper behind the HTTP message converters; the JSON itself is unchanged.
+ */
+public class ReadingJsonModule extends SimpleModule {
+
+    public ReadingJsonModule() {
+        super(ReadingJsonModule.class.getSimpleName());
+        BloodSugarReadingDTOSerializer readingSerializer = new BloodSugarReadingDTOSerializer();
+        addSerializer(BloodSugarReadingDTO.class, readingSerializer);
+        addSerializer(PatientDTO.class, new PatientDTOSerializer(readingSerializer));
+    }
+}
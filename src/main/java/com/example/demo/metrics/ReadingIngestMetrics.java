@@ -0,0 +1,40 @@
+package com.example.demo.metrics;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.GlucoseUnit;
+import com.example.demo.patient.ReadingSnapshot;
+import com.example.demo.patient.ReadingsChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Counts newly created readings per entry unit, once their transaction has committed
+@Component
+public class ReadingIngestMetrics {
+
+    private final Map<GlucoseUnit, Counter> ingestedByUnit = new EnumMap<>(GlucoseUnit.class);
+
+    public ReadingIngestMetrics(MeterRegistry meterRegistry) {
+        for (GlucoseUnit unit : GlucoseUnit.values()) {
+            ingestedByUnit.put(unit, Counter.builder(ApiConstants.Metrics.READINGS_INGESTED)
+                    .description("Readings ingested, by the unit they were submitted in")
+                    .tag(ApiConstants.Metrics.TAG_UNIT, unit.getSymbol())
+                    .register(meterRegistry));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReadingsChanged(ReadingsChangedEvent event) {
+        // Updates carry a removed snapshot and are not new ingestion
+        if (!event.removed().isEmpty()) {
+            return;
+        }
+        for (ReadingSnapshot reading : event.added()) {
+            ingestedByUnit.get(reading.entryUnit()).increment();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.metrics;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.PatientDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+// Records how many readings travel in each JSON request and response body, per endpoint
+@ControllerAdvice
+@RequiredArgsConstructor
+public class ReadingPayloadMetricsAdvice extends RequestBodyAdviceAdapter implements ResponseBodyAdvice<Object> {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        int readings = countReadings(body);
+        if (readings >= 0 && RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            record(attributes.getRequest(), ApiConstants.Metrics.DIRECTION_REQUEST, readings);
+        }
+        return body;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        int readings = countReadings(body);
+        if (readings >= 0 && request instanceof ServletServerHttpRequest servletRequest) {
+            record(servletRequest.getServletRequest(), ApiConstants.Metrics.DIRECTION_RESPONSE, readings);
+        }
+        return body;
+    }
+
+    private void record(HttpServletRequest request, String direction, int readings) {
+        DistributionSummary.builder(ApiConstants.Metrics.READINGS_PAYLOAD_SIZE)
+                .description("Readings per request or response body")
+                .baseUnit("readings")
+                .tag(ApiConstants.Metrics.TAG_URI, RequestQueryCounter.uriPattern(request))
+                .tag(ApiConstants.Metrics.TAG_DIRECTION, direction)
+                .register(meterRegistry)
+                .record(readings);
+    }
+
+    // Number of readings carried by the body, or -1 when it is not a reading-bearing payload
+    static int countReadings(Object body) {
+        if (body instanceof PatientDTO patient) {
+            return patient.getBloodSugarReadings() != null ? patient.getBloodSugarReadings().size() : -1;
+        }
+        if (!(body instanceof Collection<?> items)) {
+            return -1;
+        }
+        int readings = -1;
+        for (Object item : items) {
+            int itemReadings = item instanceof BloodSugarReadingDTO ? 1 : countReadings(item);
+            if (itemReadings >= 0) {
+                readings = Math.max(readings, 0) + itemReadings;
+            }
+        }
+        return readings;
+    }
+}
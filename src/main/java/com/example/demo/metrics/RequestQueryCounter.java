@@ -0,0 +1,60 @@
+package com.example.demo.metrics;
+
+import com.example.demo.constants.ApiConstants;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts the SQL statements Hibernate prepares while a request is handled and records them per endpoint,
+ * so an N+1 shows up as a jump in the distribution. Statements outside a request are not counted.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestQueryCounter implements StatementInspector, HandlerInterceptor {
+
+    private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = STATEMENTS.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        STATEMENTS.set(new int[1]);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int[] count = STATEMENTS.get();
+        STATEMENTS.remove();
+        if (count == null) {
+            return;
+        }
+        DistributionSummary.builder(ApiConstants.Metrics.REQUEST_QUERIES)
+                .description("SQL statements executed per request")
+                .tag(ApiConstants.Metrics.TAG_METHOD, request.getMethod())
+                .tag(ApiConstants.Metrics.TAG_URI, uriPattern(request))
+                .register(meterRegistry)
+                .record(count[0]);
+    }
+
+    static String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : ApiConstants.Metrics.UNKNOWN_URI;
+    }
+}
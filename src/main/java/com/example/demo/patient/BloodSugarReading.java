@@ -8,7 +8,16 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = ApiConstants.Tables.BLOOD_SUGAR_READINGS)
+@Table(name = ApiConstants.Tables.BLOOD_SUGAR_READINGS, indexes = {
+        @Index(name = ApiConstants.Indexes.READINGS_PATIENT_TIMESTAMP_ID,
+                columnList = ApiConstants.Indexes.READINGS_PATIENT_TIMESTAMP_ID_COLUMNS)
+}, uniqueConstraints = {
+        // Both keys are optional; rows without them (NULL) never conflict
+        @UniqueConstraint(name = ApiConstants.Indexes.READINGS_PATIENT_IDEMPOTENCY_KEY,
+                columnNames = {ApiConstants.Columns.PATIENT_ID, ApiConstants.Columns.IDEMPOTENCY_KEY}),
+        @UniqueConstraint(name = ApiConstants.Indexes.READINGS_PATIENT_TIMESTAMP_DEVICE,
+                columnNames = {ApiConstants.Columns.PATIENT_ID, ApiConstants.Columns.TIMESTAMP, ApiConstants.Columns.DEVICE_ID})
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,8 +27,12 @@ import java.time.LocalDateTime;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class BloodSugarReading {
 
+    // Sequence with pooled allocation (instead of IDENTITY) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ApiConstants.Sequences.BLOOD_SUGAR_READINGS_SEQ)
+    @SequenceGenerator(name = ApiConstants.Sequences.BLOOD_SUGAR_READINGS_SEQ,
+            sequenceName = ApiConstants.Sequences.BLOOD_SUGAR_READINGS_SEQ,
+            allocationSize = ApiConstants.Sequences.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, targetEntity = Patient.class)
@@ -30,17 +43,46 @@ public class BloodSugarReading {
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
-    @Column(nullable = false)
-    private double level; // e.g., in mg/dL or mmol/L
+    // Canonical level in tenths of mg/dL, so range predicates and SUM/AVG work directly in SQL
+    @Column(name = ApiConstants.Columns.LEVEL_TENTHS_MG_DL, nullable = false)
+    private int levelTenthsMgDl;
+
+    @Convert(converter = GlucoseUnitConverter.class)
+    @Column(name = ApiConstants.Columns.UNIT_CODE, nullable = false)
+    @Builder.Default
+    private GlucoseUnit entryUnit = GlucoseUnit.MG_DL; // Unit the level was entered in
+
+    @Column(name = ApiConstants.Columns.DEVICE_ID, length = 64)
+    private String deviceId;
 
-    @Column
-    private String unit = ApiConstants.Units.MG_DL; // Default unit, can be specified
+    // Client-supplied key of the upload that created the reading; see ReadingKey
+    @Column(name = ApiConstants.Columns.IDEMPOTENCY_KEY, length = ReadingKey.MAX_STORED_KEY_LENGTH)
+    private String idempotencyKey;
+
+    @Version
+    private Long version;
 
-    @Builder
     public BloodSugarReading(LocalDateTime timestamp, double level, String unit) {
         this.timestamp = timestamp;
-        this.level = level;
-        this.unit = unit;
+        setLevel(level, unit);
+    }
+
+    // Level in the unit it was entered in, restored from the canonical value
+    public double getLevel() {
+        return entryUnit.fromTenthsMgDl(levelTenthsMgDl);
+    }
+
+    public String getUnit() {
+        return entryUnit.getSymbol();
+    }
+
+    public double getLevelMgDl() {
+        return levelTenthsMgDl / 10.0;
+    }
+
+    public void setLevel(double level, String unit) {
+        this.entryUnit = GlucoseUnit.fromSymbol(unit);
+        this.levelTenthsMgDl = entryUnit.toTenthsMgDl(level);
     }
 
     // Lombok handles getters and setters via @Getter and @Setter
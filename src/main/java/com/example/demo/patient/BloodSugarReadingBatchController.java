@@ -0,0 +1,40 @@
+package com.example.demo.patient;
+
+import com.example.demo.constants.ApiConstants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+
+
+// Mapped on its own because a ":batch" suffix cannot be combined with the "/readings" class-level mapping
+@RestController
+@RequestMapping(ApiConstants.Paths.API_PATIENTS_READINGS_BATCH)
+@RequiredArgsConstructor
+public class BloodSugarReadingBatchController {
+
+    private final BloodSugarReadingBatchService bloodSugarReadingBatchService;
+
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<BloodSugarReadingBatchResultDTO> createReadings(
+            @PathVariable Long patientId,
+            @RequestBody List<BloodSugarReadingDTO> readingDTOs,
+            @RequestHeader(name = ApiConstants.Headers.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        BloodSugarReadingBatchResultDTO result = bloodSugarReadingBatchService.ingest(patientId, readingDTOs, idempotencyKey);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BloodSugarReadingImportResultDTO> importNdjson(@PathVariable Long patientId, InputStream body) {
+        return ResponseEntity.ok(bloodSugarReadingBatchService.importStream(patientId, body, ReadingImportFormat.NDJSON));
+    }
+
+    @PostMapping(consumes = ApiConstants.MediaTypes.TEXT_CSV)
+    public ResponseEntity<BloodSugarReadingImportResultDTO> importCsv(@PathVariable Long patientId, InputStream body) {
+        return ResponseEntity.ok(bloodSugarReadingBatchService.importStream(patientId, body, ReadingImportFormat.CSV));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.patient;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+public class BloodSugarReadingBatchResultDTO {
+    private int accepted;
+
+    @Builder.Default
+    private List<Rejection> rejected = new ArrayList<>();
+
+    // Elements already stored by an earlier upload; not stored again
+    @Builder.Default
+    private List<Duplicate> duplicates = new ArrayList<>();
+
+    // A single rejected element of the request array, identified by its position
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Rejection {
+        private long index;
+        private List<String> errors;
+    }
+
+    // A re-sent element of the request array and the id of the reading stored for it originally
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Duplicate {
+        private long index;
+        private Long id;
+    }
+}
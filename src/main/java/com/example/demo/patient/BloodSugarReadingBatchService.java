@@ -0,0 +1,426 @@
+package com.example.demo.patient;
+
+import com.example.demo.archive.ArchivedReading;
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+public class BloodSugarReadingBatchService {
+
+    private static final String CSV_HEADER_PREFIX = ApiConstants.TIMESTAMP + ",";
+
+    private final PatientRepository patientRepository;
+    private final PatientExistenceCache patientExistenceCache;
+    private final Validator validator;
+    private final ObjectReader readingReader;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BloodSugarReadingRepository bloodSugarReadingRepository;
+    private final ReadingDeduplicator readingDeduplicator;
+    private final Counter duplicates;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${readings.ingest.batch-size:50}")
+    private int batchSize;
+
+    @Value("${readings.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${readings.import.max-reported-rejections:100}")
+    private int maxReportedRejections;
+
+    public BloodSugarReadingBatchService(PatientRepository patientRepository, PatientExistenceCache patientExistenceCache,
+                                         Validator validator, ObjectMapper objectMapper,
+                                         PlatformTransactionManager transactionManager,
+                                         ApplicationEventPublisher eventPublisher,
+                                         BloodSugarReadingRepository bloodSugarReadingRepository,
+                                         ReadingDeduplicator readingDeduplicator, MeterRegistry meterRegistry) {
+        this.patientRepository = patientRepository;
+        this.patientExistenceCache = patientExistenceCache;
+        this.validator = validator;
+        this.readingReader = objectMapper.readerFor(BloodSugarReadingDTO.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.bloodSugarReadingRepository = bloodSugarReadingRepository;
+        this.readingDeduplicator = readingDeduplicator;
+        this.duplicates = Counter.builder(ApiConstants.Metrics.READINGS_DUPLICATE)
+                .description("Uploaded readings recognised as re-sent duplicates and not stored again")
+                .register(meterRegistry);
+    }
+
+    // Outcome of storing one reading: its id, or the id of the original when it was a re-sent duplicate
+    public record Stored(Long id, boolean duplicate) {
+    }
+
+    // The stored reading, or the original one when the upload was a re-sent duplicate
+    public record Created(BloodSugarReadingDTO reading, boolean duplicate) {
+    }
+
+    /**
+     * Stores one validated reading unless the same upload was stored before, in which case the original is returned.
+     */
+    public Created create(Long patientId, BloodSugarReadingDTO readingDTO, String idempotencyKey) {
+        ReadingKey key = ReadingKey.of(patientId, readingDTO, ReadingKey.checkIdempotencyKey(idempotencyKey));
+        Stored stored = store(patientId, List.of(readingDTO), Collections.singletonList(key), false).get(0);
+        BloodSugarReadingDTO original = stored.duplicate() ? findOriginal(key, stored.id()) : null;
+        if (stored.duplicate() && original == null) {
+            // Remembered, but deleted before its key was forgotten: the upload is new again
+            readingDeduplicator.forget(key);
+            Stored retried = store(patientId, List.of(readingDTO), Collections.singletonList(key), false).get(0);
+            original = retried.duplicate() ? findOriginal(key, retried.id()) : null;
+            if (retried.duplicate() && original == null) {
+                throw new ResourceNotFoundException(ApiConstants.BLOOD_SUGAR_READING, ApiConstants.ID, retried.id());
+            }
+            stored = retried;
+        }
+        if (original != null) {
+            return new Created(original, true);
+        }
+        // The level as stored, i.e. rounded to the canonical resolution
+        GlucoseUnit unit = GlucoseUnit.fromSymbol(readingDTO.getUnit());
+        return new Created(new BloodSugarReadingDTO(stored.id(), readingDTO.getTimestamp(),
+                unit.fromTenthsMgDl(unit.toTenthsMgDl(readingDTO.getLevel())), unit.getSymbol(), patientId,
+                readingDTO.getDeviceId()), false);
+    }
+
+    /**
+     * Validates every element and persists the valid ones for the given patient in JDBC batches.
+     * The patient is looked up once; invalid elements are reported by index instead of failing the whole request.
+     * Elements already stored by an earlier upload are reported as duplicates with the id of the original.
+     * With an idempotency key, element i is keyed as {@code <key>#i}.
+     */
+    public BloodSugarReadingBatchResultDTO ingest(Long patientId, List<BloodSugarReadingDTO> readingDTOs, String idempotencyKey) {
+        if (readingDTOs == null || readingDTOs.isEmpty()) {
+            throw new IllegalArgumentException(ApiConstants.Validation.READINGS_REQUIRED);
+        }
+        ReadingKey.checkIdempotencyKey(idempotencyKey);
+        patientExistenceCache.ensureExists(patientId);
+
+        BloodSugarReadingBatchResultDTO result = new BloodSugarReadingBatchResultDTO();
+        List<Integer> validIndexes = new ArrayList<>(readingDTOs.size());
+        List<BloodSugarReadingDTO> valid = new ArrayList<>(readingDTOs.size());
+        List<ReadingKey> keys = new ArrayList<>(readingDTOs.size());
+        for (int i = 0; i < readingDTOs.size(); i++) {
+            BloodSugarReadingDTO readingDTO = readingDTOs.get(i);
+            List<String> errors = validate(patientId, readingDTO);
+            if (errors.isEmpty()) {
+                validIndexes.add(i);
+                valid.add(readingDTO);
+                keys.add(ReadingKey.of(patientId, readingDTO, ReadingKey.elementKey(idempotencyKey, i)));
+            } else {
+                result.getRejected().add(new BloodSugarReadingBatchResultDTO.Rejection(i, errors));
+            }
+        }
+
+        List<Stored> outcomes = store(patientId, valid, keys, false);
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (outcomes.get(i).duplicate()) {
+                result.getDuplicates().add(new BloodSugarReadingBatchResultDTO.Duplicate(validIndexes.get(i), outcomes.get(i).id()));
+            } else {
+                result.setAccepted(result.getAccepted() + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads newline-delimited records one at a time and commits valid ones in fixed-size chunks,
+     * each in its own transaction, so memory use does not grow with the size of the upload.
+     * NDJSON records use the reading JSON representation; CSV records are {@code timestamp,level,unit}
+     * with an optional header line. A missing patientId is taken from the path.
+     */
+    public BloodSugarReadingImportResultDTO importStream(Long patientId, InputStream body, ReadingImportFormat format) {
+        patientExistenceCache.ensureExists(patientId);
+
+        BloodSugarReadingImportResultDTO result = new BloodSugarReadingImportResultDTO();
+        List<BloodSugarReadingDTO> chunk = new ArrayList<>(chunkSize);
+        long index = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || (format == ReadingImportFormat.CSV && index == 0 && line.startsWith(CSV_HEADER_PREFIX))) {
+                    continue;
+                }
+                BloodSugarReadingDTO readingDTO = parse(line, format);
+                if (readingDTO != null && readingDTO.getPatientId() == null) {
+                    readingDTO.setPatientId(patientId);
+                }
+                List<String> errors = readingDTO == null ? List.of(ApiConstants.Validation.RECORD_MALFORMED) : validate(patientId, readingDTO);
+                if (errors.isEmpty()) {
+                    chunk.add(readingDTO);
+                } else {
+                    reject(result, index, errors);
+                }
+                index++;
+
+                if (chunk.size() == chunkSize) {
+                    commitChunk(patientId, chunk, result);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!chunk.isEmpty()) {
+            commitChunk(patientId, chunk, result);
+        }
+        result.setProcessed(index);
+        return result;
+    }
+
+    /**
+     * Stores readings that were validated when they were accepted, e.g. drained from the write-behind journal.
+     * Joins the caller's transaction, so the caller can record its own progress atomically with the readings;
+     * keyed readings are therefore checked against the table before inserting rather than after a violation.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Stored> persistAccepted(Long patientId, List<BloodSugarReadingDTO> readingDTOs, List<ReadingKey> keys) {
+        return store(patientId, readingDTOs, keys, true);
+    }
+
+    private void commitChunk(Long patientId, List<BloodSugarReadingDTO> chunk, BloodSugarReadingImportResultDTO result) {
+        List<ReadingKey> keys = chunk.stream().map(readingDTO -> ReadingKey.of(patientId, readingDTO, null)).toList();
+        long duplicates = store(patientId, chunk, keys, false).stream().filter(Stored::duplicate).count();
+        result.setAccepted(result.getAccepted() + chunk.size() - duplicates);
+        result.setDuplicates(result.getDuplicates() + duplicates);
+        result.setChunksCommitted(result.getChunksCommitted() + 1);
+        chunk.clear();
+    }
+
+    /**
+     * Inserts the readings that were not stored before, in JDBC batches. Keys recently stored are answered from the
+     * {@link ReadingDeduplicator} cache and repeats within the list resolve to their first occurrence, so a new
+     * reading is inserted without any lookup. Outside a caller transaction an older original surfaces as a
+     * unique-index violation; the originals are then loaded and the rest inserted again.
+     */
+    private List<Stored> store(Long patientId, List<BloodSugarReadingDTO> readingDTOs, List<ReadingKey> keys,
+                               boolean inCallerTransaction) {
+        Stored[] outcomes = new Stored[readingDTOs.size()];
+        // A repeat shares a part of its key with an earlier element: the idempotency key or the natural key
+        Map<ReadingKey, Integer> firstOccurrence = new HashMap<>();
+        int[] firstIndexes = new int[readingDTOs.size()];
+        List<Integer> pending = new ArrayList<>(readingDTOs.size());
+        for (int i = 0; i < readingDTOs.size(); i++) {
+            ReadingKey key = keys.get(i);
+            firstIndexes[i] = i;
+            if (key == null) {
+                pending.add(i);
+                continue;
+            }
+            Integer earlier = null;
+            for (ReadingKey part : key.parts()) {
+                earlier = earlier != null ? earlier : firstOccurrence.get(part);
+            }
+            if (earlier != null) {
+                firstIndexes[i] = earlier;
+                continue;
+            }
+            for (ReadingKey part : key.parts()) {
+                firstOccurrence.put(part, i);
+            }
+            Long originalId = readingDeduplicator.findRecent(key);
+            ArchivedReading archived = originalId == null ? readingDeduplicator.findArchived(key) : null;
+            if (originalId != null) {
+                outcomes[i] = new Stored(originalId, true);
+            } else if (archived != null) {
+                outcomes[i] = new Stored(archived.id(), true);
+            } else {
+                pending.add(i);
+            }
+        }
+
+        if (inCallerTransaction) {
+            skipStored(patientId, keys, pending, outcomes);
+            insert(patientId, readingDTOs, keys, pending, outcomes);
+        } else {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(patientId, readingDTOs, keys, pending, outcomes));
+            } catch (DataIntegrityViolationException | ConstraintViolationException e) {
+                // The flush runs on the entity manager directly, so the violation may arrive untranslated
+                if (pending.stream().allMatch(i -> keys.get(i) == null)) {
+                    throw e;
+                }
+                // Stored longer ago than the cache remembers, or by a concurrent upload of the same readings
+                pending.forEach(i -> outcomes[i] = null);
+                skipStored(patientId, keys, pending, outcomes);
+                transactionTemplate.executeWithoutResult(status -> insert(patientId, readingDTOs, keys, pending, outcomes));
+            }
+        }
+
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == null) {
+                outcomes[i] = new Stored(outcomes[firstIndexes[i]].id(), true);
+            }
+            if (outcomes[i].duplicate()) {
+                duplicates.increment();
+            }
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    // The original of a re-sent reading, which may have moved to the archive
+    private BloodSugarReadingDTO findOriginal(ReadingKey key, Long id) {
+        Optional<BloodSugarReading> stored = bloodSugarReadingRepository.findById(id);
+        if (stored.isPresent()) {
+            return BloodSugarReadingDTO.fromEntity(stored.get());
+        }
+        ArchivedReading archived = readingDeduplicator.findArchived(key);
+        return archived != null && archived.id().equals(id) ? archived.toDTO() : null;
+    }
+
+    private void skipStored(Long patientId, List<ReadingKey> keys, List<Integer> pending, Stored[] outcomes) {
+        List<ReadingKey> pendingKeys = pending.stream().map(keys::get).filter(Objects::nonNull).toList();
+        if (pendingKeys.isEmpty()) {
+            return;
+        }
+        Map<ReadingKey, BloodSugarReading> stored = readingDeduplicator.findStored(patientId, pendingKeys);
+        pending.removeIf(i -> {
+            BloodSugarReading original = keys.get(i) == null ? null : stored.get(keys.get(i));
+            if (original == null) {
+                return false;
+            }
+            outcomes[i] = new Stored(original.getId(), true);
+            readingDeduplicator.remember(keys.get(i), original.getId());
+            return true;
+        });
+    }
+
+    // Must run inside a transaction; the keys of the inserted readings are remembered once it commits
+    private void insert(Long patientId, List<BloodSugarReadingDTO> readingDTOs, List<ReadingKey> keys,
+                        List<Integer> indexes, Stored[] outcomes) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        List<BloodSugarReadingDTO> toInsert = indexes.stream().map(readingDTOs::get).toList();
+        List<String> idempotencyKeys = indexes.stream()
+                .map(i -> keys.get(i) == null ? null : keys.get(i).idempotencyKey())
+                .toList();
+        List<ReadingSnapshot> inserted = persist(patientId, toInsert, idempotencyKeys);
+
+        Map<ReadingKey, Long> insertedKeys = new HashMap<>();
+        for (int j = 0; j < indexes.size(); j++) {
+            int i = indexes.get(j);
+            outcomes[i] = new Stored(inserted.get(j).id(), false);
+            if (keys.get(i) != null) {
+                insertedKeys.put(keys.get(i), inserted.get(j).id());
+            }
+        }
+        if (!insertedKeys.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    insertedKeys.forEach(readingDeduplicator::remember);
+                }
+            });
+        }
+    }
+
+    private void reject(BloodSugarReadingImportResultDTO result, long index, List<String> errors) {
+        result.setRejectedCount(result.getRejectedCount() + 1);
+        if (result.getRejected().size() < maxReportedRejections) {
+            result.getRejected().add(new BloodSugarReadingBatchResultDTO.Rejection(index, errors));
+        }
+    }
+
+    // Must run inside a transaction; flushes and detaches every full JDBC batch so the persistence context stays small
+    private List<ReadingSnapshot> persist(Long patientId, List<BloodSugarReadingDTO> readingDTOs, List<String> idempotencyKeys) {
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(batchSize);
+
+        Patient patient = patientRepository.getReferenceById(patientId);
+        List<ReadingSnapshot> snapshots = new ArrayList<>(readingDTOs.size());
+        int pending = 0;
+        for (int i = 0; i < readingDTOs.size(); i++) {
+            BloodSugarReadingDTO readingDTO = readingDTOs.get(i);
+            BloodSugarReading reading = new BloodSugarReading();
+            reading.setPatient(patient);
+            reading.setTimestamp(readingDTO.getTimestamp());
+            reading.setLevel(readingDTO.getLevel(), readingDTO.getUnit());
+            reading.setDeviceId(readingDTO.getDeviceId());
+            reading.setIdempotencyKey(idempotencyKeys.get(i));
+            entityManager.persist(reading);
+            snapshots.add(ReadingSnapshot.of(reading));
+
+            if (++pending == batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                patient = patientRepository.getReferenceById(patientId);
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        eventPublisher.publishEvent(ReadingsChangedEvent.created(patientId, snapshots));
+        return snapshots;
+    }
+
+    private BloodSugarReadingDTO parse(String line, ReadingImportFormat format) {
+        try {
+            if (format == ReadingImportFormat.NDJSON) {
+                return readingReader.readValue(line);
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 3) {
+                return null;
+            }
+            BloodSugarReadingDTO readingDTO = new BloodSugarReadingDTO();
+            readingDTO.setTimestamp(LocalDateTime.parse(fields[0].trim()));
+            readingDTO.setLevel(Double.valueOf(fields[1].trim()));
+            readingDTO.setUnit(fields[2].trim());
+            return readingDTO;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private List<String> validate(Long patientId, BloodSugarReadingDTO readingDTO) {
+        if (readingDTO == null) {
+            return List.of(ApiConstants.Validation.READINGS_REQUIRED);
+        }
+        Set<ConstraintViolation<BloodSugarReadingDTO>> violations = validator.validate(readingDTO);
+        List<String> errors = new ArrayList<>(violations.size() + 1);
+        violations.forEach(violation -> errors.add(violation.getMessage()));
+        if (readingDTO.getPatientId() != null && !patientId.equals(readingDTO.getPatientId())) {
+            errors.add(ApiConstants.ExceptionMessage.PATIENT_ID_MISMATCH);
+        }
+        return errors;
+    }
+}
@@ -1,14 +1,25 @@
 package com.example.demo.patient;
 
+import com.example.demo.archive.ReadingHistory;
 import com.example.demo.constants.ApiConstants;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.ingest.WriteBehindIngestor;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 
 @RestController
@@ -16,44 +27,147 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BloodSugarReadingController {
 
+    // Bounds used when a time window is open on either side
+    private static final LocalDateTime EARLIEST_TIMESTAMP = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final BloodSugarReadingRepository bloodSugarReadingRepository;
     private final PatientRepository patientRepository;
-
-
-
+    private final PatientExistenceCache patientExistenceCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BloodSugarReadingBatchService bloodSugarReadingBatchService;
+    private final ReadingDeduplicator readingDeduplicator;
+    private final Optional<WriteBehindIngestor> writeBehindIngestor;
+    private final ReadingHistory readingHistory;
+    private final ReadingExporter readingExporter;
+
+
+    /**
+     * Creates a reading. A re-sent reading, recognised by its Idempotency-Key header or by its device id and
+     * timestamp, is not stored again: the original is returned with 200 and an Idempotent-Replayed header.
+     */
     @PostMapping
     public ResponseEntity<BloodSugarReadingDTO> createReading(
             @PathVariable Long patientId, 
-            @Valid @RequestBody BloodSugarReadingDTO readingDTO) {
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.PATIENT, ApiConstants.ID, patientId));
-        
-        BloodSugarReading reading = new BloodSugarReading();
-        reading.setPatient(patient);
-        reading.setTimestamp(readingDTO.getTimestamp());
-        reading.setLevel(readingDTO.getLevel());
-        reading.setUnit(readingDTO.getUnit());
-        BloodSugarReading savedReading = bloodSugarReadingRepository.save(reading);
-        return new ResponseEntity<>(BloodSugarReadingDTO.fromEntity(savedReading), HttpStatus.CREATED);
+            @Valid @RequestBody BloodSugarReadingDTO readingDTO,
+            @RequestHeader(name = ApiConstants.Headers.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        ReadingKey.checkIdempotencyKey(idempotencyKey);
+        patientExistenceCache.ensureExists(patientId);
+
+        if (writeBehindIngestor.isPresent()) {
+            // Only a recently stored original can be recognised here; the drainer stores re-sent readings once
+            ReadingKey key = ReadingKey.of(patientId, readingDTO, idempotencyKey);
+            Long originalId = key == null ? null : readingDeduplicator.findRecent(key);
+            if (originalId != null) {
+                Optional<BloodSugarReading> original = bloodSugarReadingRepository.findById(originalId);
+                if (original.isPresent()) {
+                    return replayed(BloodSugarReadingDTO.fromEntity(original.get()));
+                }
+                // Deleted before its key was forgotten: the upload is new again
+                readingDeduplicator.forget(key);
+            }
+            // Durable in the local journal; stored by the write-behind drainer, so there is no id yet
+            writeBehindIngestor.get().accept(patientId, readingDTO, idempotencyKey);
+            return new ResponseEntity<>(readingDTO, HttpStatus.ACCEPTED);
+        }
+
+        BloodSugarReadingBatchService.Created created = bloodSugarReadingBatchService.create(patientId, readingDTO, idempotencyKey);
+        if (created.duplicate()) {
+            return replayed(created.reading());
+        }
+        return new ResponseEntity<>(created.reading(), HttpStatus.CREATED);
     }
 
     @GetMapping
-    public ResponseEntity<List<BloodSugarReadingDTO>> getAllReadingsForPatient(@PathVariable Long patientId) {
-        // Ensure patient exists
-        patientRepository.findById(patientId)
+    public ResponseEntity<List<BloodSugarReadingDTO>> getAllReadingsForPatient(
+            @PathVariable Long patientId,
+            @RequestParam(name = ApiConstants.Paging.CURSOR, required = false) String cursor,
+            @RequestParam(name = ApiConstants.Paging.LIMIT, defaultValue = ApiConstants.Paging.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(name = ApiConstants.QueryParams.FROM, required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = ApiConstants.QueryParams.TO, required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (limit < 1 || limit > ApiConstants.Paging.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_PAGE_SIZE + ApiConstants.Paging.MAX_PAGE_SIZE);
+        }
+        LocalDateTime start = from != null ? from : EARLIEST_TIMESTAMP;
+        LocalDateTime end = to != null ? to : LATEST_TIMESTAMP;
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_TIME_RANGE);
+        }
+
+        // The watermark lookup doubles as the existence check; an unchanged list is answered before it is loaded
+        PatientVersions versions = patientRepository.findVersionsById(patientId)
                 .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.PATIENT, ApiConstants.ID, patientId));
+        // JSON, the compact shape and CBOR hold different bytes, so each has its own ETag
+        String eTag = ReadingRepresentation.negotiate(accept, true).tag(versions.readingsETag());
+        if (PatientVersions.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        }
 
-        List<BloodSugarReadingDTO> readingDTOs = bloodSugarReadingRepository.findByPatientId(patientId).stream()
-                .map(BloodSugarReadingDTO::fromEntity)
-                .toList();
-        return new ResponseEntity<>(readingDTOs, HttpStatus.OK);
+        // The cursor always lies inside the window, so it replaces the lower bound
+        ReadingCursor after = cursor == null ? null : ReadingCursor.decode(cursor);
+        // Fetch one extra row to find out whether there is a next page
+        List<BloodSugarReadingDTO> readings = readingHistory.findPage(patientId, start, end, after, limit + 1);
+
+        boolean hasNext = readings.size() > limit;
+        List<BloodSugarReadingDTO> readingDTOs = hasNext ? readings.subList(0, limit) : readings;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+        if (hasNext) {
+            String nextCursor = ReadingCursor.of(readingDTOs.get(readingDTOs.size() - 1)).encode();
+            String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam(ApiConstants.Paging.CURSOR, nextCursor)
+                    .replaceQueryParam(ApiConstants.Paging.LIMIT, limit)
+                    .toUriString();
+            headers.add(ApiConstants.Headers.NEXT_CURSOR, nextCursor);
+            headers.add(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(readingDTOs, headers, HttpStatus.OK);
     }
 
+    /**
+     * Streams the patient's whole history, archived months included, as CSV or NDJSON, gzip-compressed on the fly
+     * when the client accepts it. Rows are written as they are read from a forward-only cursor, so memory use does
+     * not grow with the history.
+     */
+    @GetMapping(ApiConstants.Paths.EXPORT)
+    public ResponseEntity<StreamingResponseBody> exportReadings(
+            @PathVariable Long patientId,
+            @RequestParam(name = ApiConstants.QueryParams.FORMAT) String format,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ReadingExportFormat exportFormat = ReadingExportFormat.fromParameter(format);
+        patientExistenceCache.ensureExists(patientId);
+
+        boolean gzip = ReadingExporter.acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(exportFormat.getMediaType());
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename("readings-" + patientId + "." + exportFormat.getFileExtension())
+                .build());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, ApiConstants.Headers.GZIP);
+        }
+        StreamingResponseBody body = out -> readingExporter.export(patientId, exportFormat, gzip, out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Returns one reading. This endpoint, like the update and delete below, only sees the readings table: readings
+     * already moved to the archive are read-only history, served by the list and export endpoints, and answer 404 here.
+     */
     @GetMapping("/{readingId}")
-    public ResponseEntity<BloodSugarReadingDTO> getReadingById(@PathVariable Long patientId, @PathVariable Long readingId) {
+    public ResponseEntity<BloodSugarReadingDTO> getReadingById(
+            @PathVariable Long patientId,
+            @PathVariable Long readingId,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
         // Ensure patient exists
-        patientRepository.findById(patientId)
-                .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.PATIENT, ApiConstants.ID, patientId));
+        patientExistenceCache.ensureExists(patientId);
 
         BloodSugarReading reading = bloodSugarReadingRepository.findById(readingId)
                 .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.BLOOD_SUGAR_READING, ApiConstants.ID, readingId));
@@ -61,10 +175,15 @@ public class BloodSugarReadingController {
         if (!reading.getPatient().getId().equals(patientId)) {
             throw new IllegalArgumentException(ApiConstants.ExceptionMessage.READING_NOT_BELONG);
         }
-        return new ResponseEntity<>(BloodSugarReadingDTO.fromEntity(reading), HttpStatus.OK);
+        // Spring answers a matching If-None-Match with 304 and drops the body
+        return ResponseEntity.ok()
+                .eTag(ReadingRepresentation.negotiate(accept, false).tag(PatientVersions.readingETag(reading)))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(BloodSugarReadingDTO.fromEntity(reading));
     }
 
     @PutMapping("/{readingId}")
+    @Transactional
     public ResponseEntity<BloodSugarReadingDTO> updateReading(
             @PathVariable Long patientId,
             @PathVariable Long readingId,
@@ -79,37 +198,44 @@ public class BloodSugarReadingController {
             throw new IllegalArgumentException(ApiConstants.ExceptionMessage.PATIENT_ID_MISMATCH);
         }
 
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.PATIENT, ApiConstants.ID, patientId));
+        patientExistenceCache.ensureExists(patientId);
 
         BloodSugarReading reading = bloodSugarReadingRepository.findById(readingId)
                 .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.BLOOD_SUGAR_READING, ApiConstants.ID, readingId));
 
-        if (!reading.getPatient().getId().equals(patient.getId())) {
+        if (!reading.getPatient().getId().equals(patientId)) {
             throw new IllegalArgumentException(ApiConstants.ExceptionMessage.READING_NOT_BELONG);
         }
 
+        ReadingSnapshot before = ReadingSnapshot.of(reading);
         reading.setTimestamp(readingDetailsDTO.getTimestamp());
-        reading.setLevel(readingDetailsDTO.getLevel());
-        reading.setUnit(readingDetailsDTO.getUnit());
+        reading.setLevel(readingDetailsDTO.getLevel(), readingDetailsDTO.getUnit());
         BloodSugarReading updatedReading = bloodSugarReadingRepository.save(reading);
+        eventPublisher.publishEvent(ReadingsChangedEvent.updated(patientId, before, ReadingSnapshot.of(updatedReading)));
         return new ResponseEntity<>(BloodSugarReadingDTO.fromEntity(updatedReading), HttpStatus.OK);
     }
 
     @DeleteMapping("/{readingId}")
+    @Transactional
     public ResponseEntity<Void> deleteReading(@PathVariable Long patientId, @PathVariable Long readingId) {
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.PATIENT, ApiConstants.ID, patientId));
+        patientExistenceCache.ensureExists(patientId);
 
         BloodSugarReading reading = bloodSugarReadingRepository.findById(readingId)
                 .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.BLOOD_SUGAR_READING, ApiConstants.ID, readingId));
 
-        if (!reading.getPatient().getId().equals(patient.getId())) {
+        if (!reading.getPatient().getId().equals(patientId)) {
             throw new IllegalArgumentException(ApiConstants.ExceptionMessage.READING_NOT_BELONG);
         }
 
         bloodSugarReadingRepository.delete(reading);
+        eventPublisher.publishEvent(ReadingsChangedEvent.deleted(patientId, ReadingSnapshot.of(reading)));
         return ResponseEntity.noContent().build();
     }
 
+    private static ResponseEntity<BloodSugarReadingDTO> replayed(BloodSugarReadingDTO original) {
+        return ResponseEntity.ok()
+                .header(ApiConstants.Headers.IDEMPOTENT_REPLAYED, Boolean.TRUE.toString())
+                .body(original);
+    }
+
 }
@@ -33,8 +33,16 @@ public class BloodSugarReadingDTO {
     @NotNull(message = ApiConstants.Validation.PATIENT_ID_REQUIRED)
     private Long patientId; // Only include patientId to avoid circular references in JSON if PatientDTO includes readings
 
+    // Optional; together with patientId and timestamp it identifies a reading, so a re-sent upload is not stored twice
+    @Pattern(regexp = "^[A-Za-z0-9._:-]{1,64}$", message = ApiConstants.Validation.DEVICE_ID_PATTERN)
+    private String deviceId;
+
     // Lombok handles constructors via @NoArgsConstructor, @AllArgsConstructor, and @Builder
 
+    public BloodSugarReadingDTO(Long id, LocalDateTime timestamp, Double level, String unit, Long patientId) {
+        this(id, timestamp, level, unit, patientId, null);
+    }
+
     // Static factory method to convert from Entity to DTO
     public static BloodSugarReadingDTO fromEntity(BloodSugarReading reading) {
         if (reading == null) {
@@ -46,7 +54,20 @@ public class BloodSugarReadingDTO {
             reading.getTimestamp(),
             reading.getLevel(),
             reading.getUnit(),
-            patientId
+            patientId,
+            reading.getDeviceId()
+        );
+    }
+
+    // Builds the DTO from a change-event snapshot, e.g. for readings pushed to stream subscribers
+    public static BloodSugarReadingDTO fromSnapshot(Long patientId, ReadingSnapshot snapshot) {
+        return new BloodSugarReadingDTO(
+            snapshot.id(),
+            snapshot.timestamp(),
+            snapshot.entryUnit().fromTenthsMgDl(snapshot.levelTenthsMgDl()),
+            snapshot.entryUnit().getSymbol(),
+            patientId,
+            snapshot.deviceId()
         );
     }
 
@@ -0,0 +1,25 @@
+package com.example.demo.patient;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+public class BloodSugarReadingImportResultDTO {
+    private long processed;
+    private long accepted;
+    // Records already stored by an earlier upload (same timestamp and device id); not stored again
+    private long duplicates;
+    private long rejectedCount;
+    private int chunksCommitted;
+
+    // Only the first rejections are reported so the summary stays bounded for huge uploads
+    @Builder.Default
+    private List<BloodSugarReadingBatchResultDTO.Rejection> rejected = new ArrayList<>();
+}
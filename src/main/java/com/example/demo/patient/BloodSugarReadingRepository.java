@@ -1,12 +1,130 @@
 package com.example.demo.patient;
 
+import com.example.demo.archive.ArchivedReading;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BloodSugarReadingRepository extends JpaRepository<BloodSugarReading, Long> {
     List<BloodSugarReading> findByPatientId(Long patientId);
     List<BloodSugarReading> findByPatientIdAndTimestampBetween(Long patientId, java.time.LocalDateTime start, java.time.LocalDateTime end);
+
+    // Loads the latest readings of each patient of a whole page in one IN query, oldest first
+    @Query("select r from BloodSugarReading r where r.id in ("
+            + "select latest.id from (select l.id as id, row_number() over (partition by l.patient.id "
+            + "order by l.timestamp desc, l.id desc) as position from BloodSugarReading l "
+            + "where l.patient.id in :patientIds) latest where latest.position <= :perPatient) "
+            + "order by r.patient.id, r.timestamp, r.id")
+    List<BloodSugarReading> findLatestByPatientIdIn(@Param("patientIds") Collection<Long> patientIds,
+                                                    @Param("perPatient") int perPatient);
+
+    // Keyset pagination over (timestamp, id) within a time window, served as a range scan
+    // on the (patient_id, timestamp, id) index
+    List<BloodSugarReading> findByPatientIdAndTimestampBetweenOrderByTimestampAscIdAsc(
+            Long patientId, LocalDateTime start, LocalDateTime end, Limit limit);
+
+    @Query("select r from BloodSugarReading r where r.patient.id = :patientId "
+            + "and (r.timestamp > :timestamp or (r.timestamp = :timestamp and r.id > :id)) "
+            + "and r.timestamp <= :end "
+            + "order by r.timestamp asc, r.id asc")
+    List<BloodSugarReading> findPageAfter(@Param("patientId") Long patientId,
+                                          @Param("timestamp") LocalDateTime timestamp,
+                                          @Param("id") Long id,
+                                          @Param("end") LocalDateTime end,
+                                          Limit limit);
+
+    // Readings stored after the given one, in insert order
+    List<BloodSugarReading> findByPatientIdAndIdGreaterThanOrderByIdAsc(Long patientId, Long id, Limit limit);
+
+    // Lookups of already stored uploads, served by the two unique indexes
+    List<BloodSugarReading> findByPatientIdAndIdempotencyKeyIn(Long patientId, Collection<String> idempotencyKeys);
+
+    List<BloodSugarReading> findByPatientIdAndDeviceIdAndTimestampIn(Long patientId, String deviceId,
+                                                                     Collection<LocalDateTime> timestamps);
+
+    @Query("select new com.example.demo.patient.ReadingSample(r.patient.id, r.timestamp, r.levelTenthsMgDl) "
+            + "from BloodSugarReading r where r.patient.id = :patientId and r.timestamp >= :start and r.timestamp < :end")
+    List<ReadingSample> findSamples(@Param("patientId") Long patientId,
+                                    @Param("start") LocalDateTime start,
+                                    @Param("end") LocalDateTime end);
+
+    // Forward-only scan of every reading ordered by patient and time; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.demo.patient.ReadingSample(r.patient.id, r.timestamp, r.levelTenthsMgDl) "
+            + "from BloodSugarReading r order by r.patient.id, r.timestamp")
+    Stream<ReadingSample> streamAllSamples();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.demo.patient.ReadingSample(r.patient.id, r.timestamp, r.levelTenthsMgDl) "
+            + "from BloodSugarReading r where r.patient.id = :patientId and r.timestamp between :start and :end")
+    Stream<ReadingSample> streamSamples(@Param("patientId") Long patientId,
+                                        @Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end);
+
+    // Readings from the given time on, for rebuilding data derived from the table but not from the archive
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.demo.patient.ReadingSample(r.patient.id, r.timestamp, r.levelTenthsMgDl) "
+            + "from BloodSugarReading r where r.timestamp >= :start order by r.patient.id, r.timestamp")
+    Stream<ReadingSample> streamAllSamplesFrom(@Param("start") LocalDateTime start);
+
+    @Query("select min(r.timestamp) from BloodSugarReading r where r.timestamp < :before")
+    LocalDateTime findOldestTimestampBefore(@Param("before") LocalDateTime before);
+
+    // One month of readings in the order the archive stores them
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.demo.archive.ArchivedReading(r.id, r.patient.id, r.timestamp, r.levelTenthsMgDl, "
+            + "r.entryUnit, r.deviceId, r.version) "
+            + "from BloodSugarReading r where r.timestamp >= :start and r.timestamp < :end "
+            + "order by r.patient.id, r.timestamp, r.id")
+    Stream<ArchivedReading> streamForArchive(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // A patient's history for export: the readings from a time on as a forward-only stream, and the few before it
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.demo.archive.ArchivedReading(r.id, r.patient.id, r.timestamp, r.levelTenthsMgDl, "
+            + "r.entryUnit, r.deviceId, r.version) "
+            + "from BloodSugarReading r where r.patient.id = :patientId and r.timestamp >= :start "
+            + "order by r.timestamp, r.id")
+    Stream<ArchivedReading> streamForExport(@Param("patientId") Long patientId, @Param("start") LocalDateTime start);
+
+    @Query("select new com.example.demo.archive.ArchivedReading(r.id, r.patient.id, r.timestamp, r.levelTenthsMgDl, "
+            + "r.entryUnit, r.deviceId, r.version) "
+            + "from BloodSugarReading r where r.patient.id = :patientId and r.timestamp < :before "
+            + "order by r.timestamp, r.id")
+    List<ArchivedReading> findForExportBefore(@Param("patientId") Long patientId, @Param("before") LocalDateTime before);
+
+    // One patient id range of the cohort export, in the order its segment files are sorted
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.demo.archive.ArchivedReading(r.id, r.patient.id, r.timestamp, r.levelTenthsMgDl, "
+            + "r.entryUnit, r.deviceId, r.version) "
+            + "from BloodSugarReading r where r.patient.id >= :firstPatientId and r.patient.id < :endPatientId "
+            + "order by r.patient.id, r.timestamp, r.id")
+    Stream<ArchivedReading> streamPatientRange(@Param("firstPatientId") long firstPatientId,
+                                               @Param("endPatientId") long endPatientId);
+
+    // Readings the table still holds for archived months; their archived copies, if any, are outdated
+    @Query("select r.id from BloodSugarReading r where r.patient.id = :patientId and r.timestamp >= :start and r.timestamp < :end")
+    List<Long> findIds(@Param("patientId") Long patientId,
+                       @Param("start") LocalDateTime start,
+                       @Param("end") LocalDateTime end);
+
+    @Query("select r.id from BloodSugarReading r where r.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Grouped by patient so a consumer can finish one patient before starting the next
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.demo.patient.ReadingSample(r.patient.id, r.timestamp, r.levelTenthsMgDl) "
+            + "from BloodSugarReading r where r.timestamp between :start and :end order by r.patient.id")
+    Stream<ReadingSample> streamSamplesByPatient(@Param("start") LocalDateTime start,
+                                                 @Param("end") LocalDateTime end);
 }
@@ -0,0 +1,62 @@
+package com.example.demo.patient;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.utils.MedicalReadingUtils;
+
+/**
+ * Unit a reading was entered in. Levels are stored canonically as tenths of mg/dL; the unit only
+ * records how to present the value again, using a one-byte code in the database.
+ */
+public enum GlucoseUnit {
+    MG_DL((byte) 0, ApiConstants.Units.MG_DL, 1.0, 10.0),
+    // Two decimals are enough to restore any 2-decimal mmol/L entry from 0.1 mg/dL resolution
+    MMOL_L((byte) 1, ApiConstants.Units.MMOL_L, MedicalReadingUtils.MG_DL_PER_MMOL_L, 100.0);
+
+    private final byte code;
+    private final String symbol;
+    private final double mgDlPerUnit;
+    private final double displayScale;
+
+    GlucoseUnit(byte code, String symbol, double mgDlPerUnit, double displayScale) {
+        this.code = code;
+        this.symbol = symbol;
+        this.mgDlPerUnit = mgDlPerUnit;
+        this.displayScale = displayScale;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int toTenthsMgDl(double level) {
+        return (int) Math.round(level * mgDlPerUnit * 10.0);
+    }
+
+    public double fromTenthsMgDl(int levelTenthsMgDl) {
+        return Math.round(levelTenthsMgDl / 10.0 / mgDlPerUnit * displayScale) / displayScale;
+    }
+
+    // A missing unit defaults to mg/dL, like the original free-text column did
+    public static GlucoseUnit fromSymbol(String symbol) {
+        if (symbol == null || MG_DL.symbol.equals(symbol)) {
+            return MG_DL;
+        }
+        if (MMOL_L.symbol.equals(symbol)) {
+            return MMOL_L;
+        }
+        throw new IllegalArgumentException(ApiConstants.Validation.UNIT_PATTERN);
+    }
+
+    public static GlucoseUnit fromCode(byte code) {
+        for (GlucoseUnit unit : values()) {
+            if (unit.code == code) {
+                return unit;
+            }
+        }
+        throw new IllegalArgumentException(ApiConstants.Validation.UNIT_PATTERN);
+    }
+}
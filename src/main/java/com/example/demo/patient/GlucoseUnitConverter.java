@@ -0,0 +1,18 @@
+package com.example.demo.patient;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class GlucoseUnitConverter implements AttributeConverter<GlucoseUnit, Byte> {
+
+    @Override
+    public Byte convertToDatabaseColumn(GlucoseUnit unit) {
+        return unit == null ? null : unit.getCode();
+    }
+
+    @Override
+    public GlucoseUnit convertToEntityAttribute(Byte code) {
+        return code == null ? null : GlucoseUnit.fromCode(code);
+    }
+}
@@ -31,6 +31,14 @@ public class Patient implements PatientReference {
     @Column
     private java.time.LocalDate dateOfBirth;
 
+    @Version
+    private Long version;
+
+    // Readings watermark, advanced by PatientRepository.incrementReadingsVersion on every reading write.
+    // Not updatable through the entity, so a stale managed copy can never move it backwards
+    @Column(nullable = false, updatable = false)
+    private long readingsVersion;
+
     @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<BloodSugarReading> bloodSugarReadings = new ArrayList<>();
 
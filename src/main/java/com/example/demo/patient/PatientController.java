@@ -4,11 +4,20 @@ import com.example.demo.constants.ApiConstants;
 import com.example.demo.exception.ResourceNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 
 @RestController
@@ -17,6 +26,9 @@ import java.util.List;
 public class PatientController {
 
     private final PatientRepository patientRepository;
+    private final PatientExistenceCache patientExistenceCache;
+    private final BloodSugarReadingRepository bloodSugarReadingRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @PostMapping
     public ResponseEntity<PatientDTO> createPatient(@Valid @RequestBody PatientDTO patientDTO) {
@@ -30,22 +42,72 @@ public class PatientController {
         return ResponseEntity.status(HttpStatus.CREATED).body(PatientDTO.fromEntity(savedPatient));
     }
 
+    /**
+     * Lists patients a page at a time. With {@code expand=readings} each patient carries at most its latest
+     * {@value ApiConstants.Paging#MAX_EXPANDED_READINGS} readings, oldest first; the full history is paged from the
+     * patient's readings endpoint.
+     */
     @GetMapping
-    public ResponseEntity<List<PatientDTO>> getAllPatients() {
-        List<PatientDTO> patientDTOs = patientRepository.findAll().stream()
-                .map(PatientDTO::fromEntity)
+    public ResponseEntity<List<PatientDTO>> getAllPatients(
+            @RequestParam(name = ApiConstants.Paging.PAGE, defaultValue = "0") int page,
+            @RequestParam(name = ApiConstants.Paging.SIZE, defaultValue = ApiConstants.Paging.DEFAULT_PATIENT_PAGE_SIZE) int size,
+            @RequestParam(name = ApiConstants.QueryParams.EXPAND, required = false) String expand) {
+        if (page < 0) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_PAGE);
+        }
+        if (size < 1 || size > ApiConstants.Paging.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_PAGE_SIZE + ApiConstants.Paging.MAX_PAGE_SIZE);
+        }
+        if (expand != null && !ApiConstants.QueryParams.EXPAND_READINGS.equals(expand)) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_EXPAND + expand);
+        }
+
+        Slice<PatientSummary> summaries = patientRepository.findAllProjectedBy(
+                PageRequest.of(page, size, Sort.by(ApiConstants.ID)));
+
+        // Readings are only materialised on request, for the whole page at once
+        Map<Long, List<BloodSugarReadingDTO>> readingsByPatient = expand == null ? Map.of()
+                : bloodSugarReadingRepository.findLatestByPatientIdIn(summaries.map(PatientSummary::getId).getContent(),
+                        ApiConstants.Paging.MAX_EXPANDED_READINGS).stream()
+                .map(BloodSugarReadingDTO::fromEntity)
+                .collect(Collectors.groupingBy(BloodSugarReadingDTO::getPatientId));
+
+        List<PatientDTO> patientDTOs = summaries.stream()
+                .map(summary -> PatientDTO.fromSummary(summary, expand == null ? null
+                        : readingsByPatient.getOrDefault(summary.getId(), List.of())))
                 .toList();
-        return ResponseEntity.ok(patientDTOs);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (summaries.hasNext()) {
+            String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam(ApiConstants.Paging.PAGE, page + 1)
+                    .replaceQueryParam(ApiConstants.Paging.SIZE, size)
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(patientDTOs);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PatientDTO> getPatientById(@PathVariable Long id) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<PatientDTO> getPatientById(
+            @PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        PatientVersions versions = patientRepository.findVersionsById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.PATIENT, ApiConstants.ID, id));
+        // Polling clients holding the current version get a 304 before the patient and its readings are loaded
+        String eTag = versions.patientETag();
+        if (PatientVersions.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
         Patient patient = patientRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.PATIENT, ApiConstants.ID, id));
-        return ResponseEntity.ok(PatientDTO.fromEntity(patient));
+        return ResponseEntity.ok().eTag(eTag).body(PatientDTO.fromEntity(patient));
     }
 
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<PatientDTO> updatePatient(@PathVariable Long id, @Valid @RequestBody PatientDTO patientDTO) {
         // Check if the ID in the path matches the ID in the request body
         if (!id.equals(patientDTO.getId())) {
@@ -60,14 +122,18 @@ public class PatientController {
         patient.setDateOfBirth(patientDTO.getDateOfBirth());
         // Blood sugar readings are managed via their dedicated controller
         Patient updatedPatient = patientRepository.save(patient);
+        patientExistenceCache.invalidate(id);
         return ResponseEntity.ok(PatientDTO.fromEntity(updatedPatient));
     }
 
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Void> deletePatient(@PathVariable Long id) {
         Patient patient = patientRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(ApiConstants.PATIENT, ApiConstants.ID, id));
         patientRepository.delete(patient);
+        patientExistenceCache.invalidate(id);
+        eventPublisher.publishEvent(new PatientDeletedEvent(id));
         return ResponseEntity.noContent().build();
     }
 
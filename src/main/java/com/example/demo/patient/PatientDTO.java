@@ -57,5 +57,19 @@ public class PatientDTO {
         );
     }
 
+    // Static factory method to convert from a summary projection; readings are left out of the response
+    public static PatientDTO fromSummary(PatientSummary summary, List<BloodSugarReadingDTO> readingDTOs) {
+        if (summary == null) {
+            return null;
+        }
+        return new PatientDTO(
+            summary.getId(),
+            summary.getFirstName(),
+            summary.getLastName(),
+            summary.getDateOfBirth(),
+            readingDTOs
+        );
+    }
+
     // Lombok handles getters, setters, equals, hashCode, and toString via @Data
 }
@@ -0,0 +1,5 @@
+package com.example.demo.patient;
+
+// Published inside the deleting transaction so data derived from a patient's readings can be removed with it
+public record PatientDeletedEvent(Long patientId) {
+}
@@ -0,0 +1,57 @@
+package com.example.demo.patient;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Remembers which patient ids exist, so reading endpoints can skip a patient query on every call.
+ * Only positive answers are cached: ids are never reused, so an entry can only go stale through a delete,
+ * which invalidates it. Entries also expire after the TTL and are evicted by size.
+ */
+@Component
+public class PatientExistenceCache {
+
+    private final PatientRepository patientRepository;
+    private final Cache<Long, Boolean> existingPatients;
+
+    public PatientExistenceCache(PatientRepository patientRepository, MeterRegistry meterRegistry,
+                                 @Value("${patients.existence-cache.max-size:10000}") long maxSize,
+                                 @Value("${patients.existence-cache.ttl:10m}") Duration ttl) {
+        this.patientRepository = patientRepository;
+        this.existingPatients = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, existingPatients, ApiConstants.Metrics.PATIENT_EXISTENCE_CACHE);
+    }
+
+    public void ensureExists(Long patientId) {
+        if (existingPatients.getIfPresent(patientId) != null) {
+            return;
+        }
+        if (!patientRepository.existsById(patientId)) {
+            throw new ResourceNotFoundException(ApiConstants.PATIENT, ApiConstants.ID, patientId);
+        }
+        existingPatients.put(patientId, Boolean.TRUE);
+    }
+
+    public void invalidate(Long patientId) {
+        existingPatients.invalidate(patientId);
+    }
+
+    // A reading request racing with the delete may have cached the id again before the commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientDeleted(PatientDeletedEvent event) {
+        invalidate(event.patientId());
+    }
+}
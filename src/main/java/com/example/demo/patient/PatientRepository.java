@@ -1,11 +1,41 @@
 package com.example.demo.patient;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     // JpaRepository provides findAll, findById, save, deleteById, etc.
-    // We can add custom query methods here if needed later
+
+    // Slice instead of Page so listing does not need an extra count query
+    Slice<PatientSummary> findAllProjectedBy(Pageable pageable);
+
+    // Row lock used to serialise per-patient derived-data maintenance between concurrent writers
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Patient> findLockedById(Long id);
+
+    // Versions behind the patient and readings ETags, read without loading the patient or its readings
+    @Query("select new com.example.demo.patient.PatientVersions(p.version, p.readingsVersion) from Patient p where p.id = :id")
+    Optional<PatientVersions> findVersionsById(@Param("id") Long id);
+
+    // Bounds of the patient id space, split into ranges by the cohort export
+    @Query("select min(p.id) from Patient p")
+    Long findMinId();
+
+    @Query("select max(p.id) from Patient p")
+    Long findMaxId();
+
+    @Modifying
+    @Query("update Patient p set p.readingsVersion = p.readingsVersion + 1 where p.id = :id")
+    int incrementReadingsVersion(@Param("id") Long id);
 }
@@ -0,0 +1,11 @@
+package com.example.demo.patient;
+
+import java.time.LocalDate;
+
+// Interface projection over the patients table only; selecting it never touches blood sugar readings
+public interface PatientSummary {
+    Long getId();
+    String getFirstName();
+    String getLastName();
+    LocalDate getDateOfBirth();
+}
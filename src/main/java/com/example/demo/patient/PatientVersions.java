@@ -0,0 +1,37 @@
+package com.example.demo.patient;
+
+/**
+ * Version of a patient row and of its readings, the inputs of the strong ETags served for conditional GETs.
+ * ETag values are returned quoted, ready for the ETag header.
+ */
+public record PatientVersions(Long version, long readingsVersion) {
+
+    public String patientETag() {
+        return "\"p" + version + "-r" + readingsVersion + "\"";
+    }
+
+    public String readingsETag() {
+        return "\"r" + readingsVersion + "\"";
+    }
+
+    public static String readingETag(BloodSugarReading reading) {
+        return "\"v" + reading.getVersion() + "\"";
+    }
+
+    // True when an If-None-Match header lists the given ETag or '*'; weak comparison as RFC 9110 requires
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.patient;
+
+import com.example.demo.constants.ApiConstants;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last reading of a page in (timestamp, id) order, exchanged with clients as an opaque token.
+ */
+public record ReadingCursor(LocalDateTime timestamp, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static ReadingCursor of(BloodSugarReading reading) {
+        return new ReadingCursor(reading.getTimestamp(), reading.getId());
+    }
+
+    public static ReadingCursor of(BloodSugarReadingDTO reading) {
+        return new ReadingCursor(reading.getTimestamp(), reading.getId());
+    }
+
+    public static ReadingCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new ReadingCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.valueOf(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_CURSOR);
+        }
+    }
+
+    public String encode() {
+        String raw = timestamp.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
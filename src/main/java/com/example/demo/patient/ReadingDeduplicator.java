@@ -0,0 +1,166 @@
+package com.example.demo.patient;
+
+import com.example.demo.archive.ArchivedReading;
+import com.example.demo.archive.ReadingArchive;
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.exception.ConflictException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recognises re-sent uploads. Keys of recently stored readings are kept in a bounded LRU, so a retry shortly after
+ * the original is answered without touching the table, and a new reading costs no lookup at all: it is inserted
+ * directly and only a unique-index violation leads to {@link #findStored}.
+ * <p>
+ * A reading with both an idempotency key and a device id is matched through either {@link ReadingKey#parts() part};
+ * if the two parts match different stored readings, the upload is rejected with a {@link ConflictException}.
+ * <p>
+ * Keys of updated and deleted readings, and of deleted patients, are forgotten once the change commits: an update may
+ * move the reading off its natural key and a delete frees both keys for a new upload.
+ * <p>
+ * The unique indexes only cover the readings table. A re-sent reading of an archived month is recognised by its
+ * natural key through {@link #findArchived}; the archive keeps no idempotency keys, so one identified only by its
+ * Idempotency-Key is stored again.
+ */
+@Component
+public class ReadingDeduplicator {
+
+    private final BloodSugarReadingRepository bloodSugarReadingRepository;
+    private final ReadingArchive readingArchive;
+    private final Cache<ReadingKey, Long> recentKeys;
+
+    public ReadingDeduplicator(BloodSugarReadingRepository bloodSugarReadingRepository, ReadingArchive readingArchive,
+                               MeterRegistry meterRegistry,
+                               @Value("${readings.dedup.recent-keys:100000}") long maxRecentKeys,
+                               @Value("${readings.dedup.ttl:1h}") Duration ttl) {
+        this.bloodSugarReadingRepository = bloodSugarReadingRepository;
+        this.readingArchive = readingArchive;
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(maxRecentKeys)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recentKeys, ApiConstants.Metrics.READING_KEY_CACHE);
+    }
+
+    // Id of the reading stored under this key, if it was stored recently
+    public Long findRecent(ReadingKey key) {
+        Long found = null;
+        for (ReadingKey part : key.parts()) {
+            found = match(found, recentKeys.getIfPresent(part));
+        }
+        return found;
+    }
+
+    // Call only once the reading is committed
+    public void remember(ReadingKey key, Long readingId) {
+        for (ReadingKey part : key.parts()) {
+            recentKeys.put(part, readingId);
+        }
+    }
+
+    // The archived reading with the key's device id and timestamp; only the segments around the timestamp are decoded
+    public ArchivedReading findArchived(ReadingKey key) {
+        if (key.deviceId() == null || !readingArchive.overlaps(key.timestamp(), key.timestamp())) {
+            return null;
+        }
+        ArchivedReading[] found = new ArchivedReading[1];
+        readingArchive.forEach(key.patientId(), key.timestamp(), key.timestamp(), reading -> {
+            if (key.deviceId().equals(reading.deviceId())) {
+                found[0] = reading;
+            }
+        });
+        return found[0];
+    }
+
+    public void forget(ReadingKey key) {
+        recentKeys.invalidateAll(key.parts());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReadingsChanged(ReadingsChangedEvent event) {
+        for (ReadingSnapshot before : event.removed()) {
+            ReadingKey key = before.key(event.patientId());
+            if (key != null) {
+                forget(key);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientDeleted(PatientDeletedEvent event) {
+        recentKeys.asMap().keySet().removeIf(key -> key.patientId().equals(event.patientId()));
+    }
+
+    /**
+     * Loads the stored readings of the given keys, with one query per kind of key (and per device).
+     *
+     * @throws ConflictException when a key's idempotency key and natural key belong to different stored readings
+     */
+    public Map<ReadingKey, BloodSugarReading> findStored(Long patientId, Collection<ReadingKey> keys) {
+        List<String> idempotencyKeys = new ArrayList<>();
+        Map<String, List<LocalDateTime>> timestampsByDevice = new HashMap<>();
+        for (ReadingKey key : keys) {
+            if (key.idempotencyKey() != null) {
+                idempotencyKeys.add(key.idempotencyKey());
+            }
+            if (key.deviceId() != null) {
+                timestampsByDevice.computeIfAbsent(key.deviceId(), device -> new ArrayList<>()).add(key.timestamp());
+            }
+        }
+
+        // Keyed by part: a stored reading may carry both an idempotency key and a device id
+        Map<ReadingKey, BloodSugarReading> byPart = new HashMap<>();
+        if (!idempotencyKeys.isEmpty()) {
+            for (BloodSugarReading reading : bloodSugarReadingRepository.findByPatientIdAndIdempotencyKeyIn(patientId, idempotencyKeys)) {
+                byPart.put(new ReadingKey(patientId, reading.getIdempotencyKey(), null, null), reading);
+            }
+        }
+        timestampsByDevice.forEach((deviceId, timestamps) -> {
+            for (BloodSugarReading reading : bloodSugarReadingRepository.findByPatientIdAndDeviceIdAndTimestampIn(patientId, deviceId, timestamps)) {
+                byPart.put(new ReadingKey(patientId, null, reading.getTimestamp(), deviceId), reading);
+            }
+        });
+
+        Map<ReadingKey, BloodSugarReading> stored = new HashMap<>();
+        for (ReadingKey key : keys) {
+            BloodSugarReading original = null;
+            for (ReadingKey part : key.parts()) {
+                BloodSugarReading reading = byPart.get(part);
+                if (reading != null) {
+                    match(original == null ? null : original.getId(), reading.getId());
+                    original = reading;
+                }
+            }
+            if (original != null) {
+                stored.put(key, original);
+            }
+        }
+        return stored;
+    }
+
+    // The reading both parts of a key point at, or whichever one is known
+    private static Long match(Long found, Long readingId) {
+        if (found != null && readingId != null && !found.equals(readingId)) {
+            throw new ConflictException(ApiConstants.ExceptionMessage.READING_KEY_CONFLICT);
+        }
+        return found != null ? found : readingId;
+    }
+
+    void clear() {
+        recentKeys.invalidateAll();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.patient;
+
+import com.example.demo.constants.ApiConstants;
+import org.springframework.http.MediaType;
+
+// Line-oriented formats of the streaming reading export
+public enum ReadingExportFormat {
+    CSV(MediaType.parseMediaType(ApiConstants.MediaTypes.TEXT_CSV), "csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+    private final MediaType mediaType;
+    private final String fileExtension;
+
+    ReadingExportFormat(MediaType mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    // Accepts the lower-case query parameter values "csv" and "ndjson"
+    public static ReadingExportFormat fromParameter(String value) {
+        for (ReadingExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_EXPORT_FORMAT);
+    }
+}
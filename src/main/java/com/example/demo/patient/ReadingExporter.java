@@ -0,0 +1,110 @@
+package com.example.demo.patient;
+
+import com.example.demo.archive.ArchivedReading;
+import com.example.demo.archive.ReadingHistory;
+import com.example.demo.constants.ApiConstants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a patient's whole reading history as CSV or NDJSON while it is read, so neither the rows nor the
+ * document are ever held in memory. Output is buffered in {@value #BUFFER_SIZE} byte chunks, which keeps the
+ * first bytes coming quickly while avoiding a flush per row.
+ */
+@Component
+public class ReadingExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,timestamp,level,unit,deviceId\n";
+
+    private final ReadingHistory readingHistory;
+    private final ObjectWriter readingWriter;
+
+    public ReadingExporter(ReadingHistory readingHistory, ObjectMapper objectMapper) {
+        this.readingHistory = readingHistory;
+        // The buffered writer decides when bytes reach the client, not every row; each row ends its own line
+        this.readingWriter = objectMapper.writerFor(BloodSugarReadingDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator((String) null);
+    }
+
+    // True when the Accept-Encoding header lists gzip
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            int parameters = coding.indexOf(';');
+            String name = (parameters < 0 ? coding : coding.substring(0, parameters)).trim();
+            if (name.equalsIgnoreCase(ApiConstants.Headers.GZIP)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void export(Long patientId, ReadingExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : out,
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            if (format == ReadingExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                readingHistory.forEach(patientId, reading -> writeCsv(writer, reading));
+            } else {
+                JsonGenerator generator = readingWriter.createGenerator(writer);
+                readingHistory.forEach(patientId, reading -> writeNdjson(generator, reading));
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            // Typically the client went away
+            throw e.getCause();
+        }
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+    }
+
+    private static void writeCsv(Writer writer, ArchivedReading reading) {
+        try {
+            writer.write(Long.toString(reading.id()));
+            writer.write(',');
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(reading.timestamp(), writer);
+            writer.write(',');
+            writer.write(Double.toString(reading.entryUnit().fromTenthsMgDl(reading.levelTenthsMgDl())));
+            writer.write(',');
+            writer.write(reading.entryUnit().getSymbol());
+            writer.write(',');
+            // Device ids are restricted to characters that need no quoting
+            if (reading.deviceId() != null) {
+                writer.write(reading.deviceId());
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeNdjson(JsonGenerator generator, ArchivedReading reading) {
+        try {
+            readingWriter.writeValue(generator, reading.toDTO());
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
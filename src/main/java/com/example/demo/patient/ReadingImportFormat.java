@@ -0,0 +1,7 @@
+package com.example.demo.patient;
+
+// Line-oriented formats accepted by the streaming reading import
+public enum ReadingImportFormat {
+    NDJSON,
+    CSV
+}
@@ -0,0 +1,51 @@
+package com.example.demo.patient;
+
+import com.example.demo.constants.ApiConstants;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Identity of an uploaded reading used to recognise a retried upload: the client's idempotency key and the natural
+ * key of timestamp and device id, whichever the reading has. Readings with neither are never treated as duplicates.
+ * Both kinds are backed by a unique index on blood_sugar_readings, so a reading with both matches a stored one
+ * through either.
+ */
+public record ReadingKey(Long patientId, String idempotencyKey, LocalDateTime timestamp, String deviceId) {
+
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    // A batch stores "<key>#<index>" per element
+    public static final int MAX_STORED_KEY_LENGTH = MAX_IDEMPOTENCY_KEY_LENGTH + 12;
+
+    private static final Pattern IDEMPOTENCY_KEY = Pattern.compile("[\\x21-\\x7E]{1," + MAX_IDEMPOTENCY_KEY_LENGTH + "}");
+
+    public static ReadingKey of(Long patientId, BloodSugarReadingDTO readingDTO, String idempotencyKey) {
+        String deviceId = readingDTO.getDeviceId();
+        if (idempotencyKey == null && deviceId == null) {
+            return null;
+        }
+        return new ReadingKey(patientId, idempotencyKey, deviceId == null ? null : readingDTO.getTimestamp(), deviceId);
+    }
+
+    // One key per unique index this key is checked against: itself unless it has both kinds
+    public List<ReadingKey> parts() {
+        if (idempotencyKey == null || deviceId == null) {
+            return List.of(this);
+        }
+        return List.of(new ReadingKey(patientId, idempotencyKey, null, null),
+                new ReadingKey(patientId, null, timestamp, deviceId));
+    }
+
+    // Key of one element of a batch sent with an Idempotency-Key header
+    public static String elementKey(String idempotencyKey, int index) {
+        return idempotencyKey == null ? null : idempotencyKey + '#' + index;
+    }
+
+    public static String checkIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey != null && !IDEMPOTENCY_KEY.matcher(idempotencyKey).matches()) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_IDEMPOTENCY_KEY);
+        }
+        return idempotencyKey;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.patient;
+
+import com.example.demo.json.CompactReadingsHttpMessageConverter;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The representations the reading endpoints negotiate through the Accept header. Each has its own ETag suffix,
+ * since a strong validator must tell apart responses whose bytes differ.
+ */
+enum ReadingRepresentation {
+
+    JSON(MediaType.APPLICATION_JSON, ""),
+    COMPACT(CompactReadingsHttpMessageConverter.READINGS_COMPACT, "-c"),
+    CBOR(MediaType.APPLICATION_CBOR, "-cbor");
+
+    // Highest quality first; at equal quality a concrete type before a wildcard, as Spring ranks them
+    private static final Comparator<MediaType> PREFERENCE = Comparator.comparingDouble(MediaType::getQualityValue)
+            .reversed()
+            .thenComparing(type -> type.isWildcardType() || type.isWildcardSubtype());
+
+    private final MediaType mediaType;
+    private final String eTagSuffix;
+
+    ReadingRepresentation(MediaType mediaType, String eTagSuffix) {
+        this.mediaType = mediaType;
+        this.eTagSuffix = eTagSuffix;
+    }
+
+    /**
+     * The representation an Accept header selects: JSON when it is absent, names nothing else that is offered or
+     * accepts anything. The compact shape is offered for reading lists only.
+     */
+    static ReadingRepresentation negotiate(String accept, boolean list) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            // Rejected by the message converters later on
+            return JSON;
+        }
+        acceptable.sort(PREFERENCE);
+        for (MediaType type : acceptable) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.includes(JSON.mediaType)) {
+                return JSON;
+            }
+            if (type.includes(CBOR.mediaType)) {
+                return CBOR;
+            }
+            if (list && type.includes(COMPACT.mediaType)) {
+                return COMPACT;
+            }
+        }
+        return JSON;
+    }
+
+    // Appends the suffix inside the quotes of a strong ETag
+    String tag(String eTag) {
+        return eTagSuffix.isEmpty() ? eTag : eTag.substring(0, eTag.length() - 1) + eTagSuffix + '"';
+    }
+}
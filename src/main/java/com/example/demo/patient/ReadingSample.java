@@ -0,0 +1,11 @@
+package com.example.demo.patient;
+
+import java.time.LocalDateTime;
+
+// Constructor-expression projection used by scans that must not materialise reading entities
+public record ReadingSample(Long patientId, LocalDateTime timestamp, int levelTenthsMgDl) {
+
+    public double levelMgDl() {
+        return levelTenthsMgDl / 10.0;
+    }
+}
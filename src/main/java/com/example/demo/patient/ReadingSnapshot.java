@@ -0,0 +1,25 @@
+package com.example.demo.patient;
+
+import java.time.LocalDateTime;
+
+// Immutable copy of a reading's state, safe to hand to listeners after the entity is changed or detached
+public record ReadingSnapshot(Long id, LocalDateTime timestamp, int levelTenthsMgDl, GlucoseUnit entryUnit,
+                              String deviceId, String idempotencyKey) {
+
+    public static ReadingSnapshot of(BloodSugarReading reading) {
+        return new ReadingSnapshot(reading.getId(), reading.getTimestamp(), reading.getLevelTenthsMgDl(), reading.getEntryUnit(),
+                reading.getDeviceId(), reading.getIdempotencyKey());
+    }
+
+    // The key the reading was uploaded under, or null when it has neither kind
+    public ReadingKey key(Long patientId) {
+        if (idempotencyKey == null && deviceId == null) {
+            return null;
+        }
+        return new ReadingKey(patientId, idempotencyKey, deviceId == null ? null : timestamp, deviceId);
+    }
+
+    public double levelMgDl() {
+        return levelTenthsMgDl / 10.0;
+    }
+}
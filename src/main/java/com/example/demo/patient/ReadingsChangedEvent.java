@@ -0,0 +1,22 @@
+package com.example.demo.patient;
+
+import java.util.List;
+
+/**
+ * Published inside the writing transaction whenever readings of a patient are created, updated or deleted.
+ * An update is reported as the old state in {@code removed} and the new state in {@code added}.
+ */
+public record ReadingsChangedEvent(Long patientId, List<ReadingSnapshot> removed, List<ReadingSnapshot> added) {
+
+    public static ReadingsChangedEvent created(Long patientId, List<ReadingSnapshot> added) {
+        return new ReadingsChangedEvent(patientId, List.of(), added);
+    }
+
+    public static ReadingsChangedEvent updated(Long patientId, ReadingSnapshot before, ReadingSnapshot after) {
+        return new ReadingsChangedEvent(patientId, List.of(before), List.of(after));
+    }
+
+    public static ReadingsChangedEvent deleted(Long patientId, ReadingSnapshot before) {
+        return new ReadingsChangedEvent(patientId, List.of(before), List.of());
+    }
+}
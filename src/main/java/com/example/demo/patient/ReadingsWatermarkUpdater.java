@@ -0,0 +1,20 @@
+package com.example.demo.patient;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// Advances the patient's readings watermark in the same transaction as every reading write
+@Component
+@RequiredArgsConstructor
+public class ReadingsWatermarkUpdater {
+
+    private final PatientRepository patientRepository;
+
+    @EventListener
+    @Transactional
+    public void onReadingsChanged(ReadingsChangedEvent event) {
+        patientRepository.incrementReadingsVersion(event.patientId());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.rollup;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.utils.MedicalReadingUtils;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated statistics of one patient's readings in one hour or day, all values in mg/dL.
+ * Count, sums and range counters are additive so new readings can be folded in without rescanning the bucket.
+ */
+@Entity
+@Table(name = ApiConstants.Tables.READING_ROLLUPS)
+@IdClass(ReadingRollupId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ReadingRollup {
+
+    @Id
+    @Column(name = ApiConstants.Columns.PATIENT_ID)
+    @EqualsAndHashCode.Include
+    private Long patientId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    @EqualsAndHashCode.Include
+    private RollupGranularity granularity;
+
+    @Id
+    @EqualsAndHashCode.Include
+    private LocalDateTime bucketStart;
+
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+    private double min;
+    private double max;
+    private long belowRangeCount;
+    private long inRangeCount;
+    private long aboveRangeCount;
+
+    public ReadingRollup(Long patientId, RollupGranularity granularity, LocalDateTime bucketStart) {
+        this.patientId = patientId;
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+    }
+
+    public void add(double levelMgDl) {
+        min = count == 0 ? levelMgDl : Math.min(min, levelMgDl);
+        max = count == 0 ? levelMgDl : Math.max(max, levelMgDl);
+        count++;
+        sum += levelMgDl;
+        sumOfSquares += levelMgDl * levelMgDl;
+        if (levelMgDl < MedicalReadingUtils.TARGET_RANGE_LOW_MG_DL) {
+            belowRangeCount++;
+        } else if (levelMgDl > MedicalReadingUtils.TARGET_RANGE_HIGH_MG_DL) {
+            aboveRangeCount++;
+        } else {
+            inRangeCount++;
+        }
+    }
+
+    public void reset() {
+        count = 0;
+        sum = 0;
+        sumOfSquares = 0;
+        min = 0;
+        max = 0;
+        belowRangeCount = 0;
+        inRangeCount = 0;
+        aboveRangeCount = 0;
+    }
+}
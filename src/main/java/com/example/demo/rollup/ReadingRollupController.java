@@ -0,0 +1,41 @@
+package com.example.demo.rollup;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.PatientExistenceCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@RestController
+@RequestMapping(ApiConstants.Paths.API_PATIENTS_READINGS)
+@RequiredArgsConstructor
+public class ReadingRollupController {
+
+    private final ReadingRollupService readingRollupService;
+    private final PatientExistenceCache patientExistenceCache;
+
+    @GetMapping(ApiConstants.Paths.ROLLUPS)
+    public ResponseEntity<List<ReadingRollupDTO>> getRollups(
+            @PathVariable Long patientId,
+            @RequestParam(name = ApiConstants.QueryParams.GRANULARITY) String granularity,
+            @RequestParam(name = ApiConstants.QueryParams.FROM)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = ApiConstants.QueryParams.TO)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        RollupGranularity rollupGranularity = RollupGranularity.fromParameter(granularity);
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_TIME_RANGE);
+        }
+        patientExistenceCache.ensureExists(patientId);
+
+        List<ReadingRollupDTO> rollupDTOs = readingRollupService.findRollups(patientId, rollupGranularity, from, to).stream()
+                .map(ReadingRollupDTO::fromEntity)
+                .toList();
+        return ResponseEntity.ok(rollupDTOs);
+    }
+}
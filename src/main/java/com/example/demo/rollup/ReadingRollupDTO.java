@@ -0,0 +1,48 @@
+package com.example.demo.rollup;
+
+import com.example.demo.constants.ApiConstants;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReadingRollupDTO {
+    private LocalDateTime bucketStart;
+    private long count;
+    private double mean;
+    private double standardDeviation;
+    private double min;
+    private double max;
+    private long belowRangeCount;
+    private long inRangeCount;
+    private long aboveRangeCount;
+    private String unit;
+
+    // Static factory method to convert from Entity to DTO
+    public static ReadingRollupDTO fromEntity(ReadingRollup rollup) {
+        if (rollup == null) {
+            return null;
+        }
+        double mean = rollup.getCount() == 0 ? 0 : rollup.getSum() / rollup.getCount();
+        double variance = rollup.getCount() == 0 ? 0 : rollup.getSumOfSquares() / rollup.getCount() - mean * mean;
+        return new ReadingRollupDTO(
+            rollup.getBucketStart(),
+            rollup.getCount(),
+            mean,
+            Math.sqrt(Math.max(variance, 0)),
+            rollup.getMin(),
+            rollup.getMax(),
+            rollup.getBelowRangeCount(),
+            rollup.getInRangeCount(),
+            rollup.getAboveRangeCount(),
+            ApiConstants.Units.MG_DL
+        );
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.rollup;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ReadingRollupId implements Serializable {
+    private Long patientId;
+    private RollupGranularity granularity;
+    private LocalDateTime bucketStart;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.rollup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Backfills rollups for readings that existed before rollups were maintained
+@Component
+@ConditionalOnProperty(name = "readings.rollups.rebuild-on-startup", havingValue = "true")
+@RequiredArgsConstructor
+public class ReadingRollupRebuildJob implements ApplicationRunner {
+
+    private final ReadingRollupService readingRollupService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        readingRollupService.rebuildAll();
+    }
+}
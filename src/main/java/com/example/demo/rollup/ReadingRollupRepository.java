@@ -0,0 +1,34 @@
+package com.example.demo.rollup;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReadingRollupRepository extends JpaRepository<ReadingRollup, ReadingRollupId> {
+
+    // Range scan on the primary key (patient_id, granularity, bucket_start)
+    List<ReadingRollup> findByPatientIdAndGranularityAndBucketStartBetweenOrderByBucketStart(
+            Long patientId, RollupGranularity granularity, LocalDateTime start, LocalDateTime end);
+
+    // Row lock so concurrent writers to the same bucket do not lose updates
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ReadingRollup> findLockedByPatientIdAndGranularityAndBucketStart(
+            Long patientId, RollupGranularity granularity, LocalDateTime bucketStart);
+
+    @Modifying
+    @Query("delete from ReadingRollup r where r.patientId = :patientId")
+    void deleteByPatientId(@Param("patientId") Long patientId);
+
+    @Modifying
+    @Query("delete from ReadingRollup r where r.bucketStart >= :start")
+    void deleteByBucketStartFrom(@Param("start") LocalDateTime start);
+}
@@ -0,0 +1,182 @@
+package com.example.demo.rollup;
+
+import com.example.demo.archive.ReadingArchive;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.PatientDeletedEvent;
+import com.example.demo.patient.PatientRepository;
+import com.example.demo.patient.ReadingSample;
+import com.example.demo.patient.ReadingSnapshot;
+import com.example.demo.patient.ReadingsChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReadingRollupService {
+
+    private static final int REBUILD_FLUSH_INTERVAL = 500;
+
+    private final ReadingRollupRepository readingRollupRepository;
+    private final BloodSugarReadingRepository bloodSugarReadingRepository;
+    private final PatientRepository patientRepository;
+    private final ReadingArchive readingArchive;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Keeps the rollups in step with reading writes, inside the writer's transaction.
+     * Added readings are folded into their buckets in O(1); a bucket that lost a reading is recomputed
+     * from its raw readings, since min and max cannot be retracted incrementally.
+     */
+    @EventListener
+    @Transactional
+    public void onReadingsChanged(ReadingsChangedEvent event) {
+        // Concurrent writers for the same patient would otherwise both insert a new bucket
+        patientRepository.findLockedById(event.patientId());
+
+        Set<ReadingRollupId> staleBuckets = new LinkedHashSet<>();
+        for (ReadingSnapshot removed : event.removed()) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                staleBuckets.add(new ReadingRollupId(event.patientId(), granularity, granularity.bucketStart(removed.timestamp())));
+            }
+        }
+
+        // Rollups are managed entities, so the changes are written by dirty checking at flush time
+        Map<ReadingRollupId, ReadingRollup> touched = new HashMap<>();
+        for (ReadingSnapshot added : event.added()) {
+            double levelMgDl = added.levelMgDl();
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                ReadingRollupId id = new ReadingRollupId(event.patientId(), granularity, granularity.bucketStart(added.timestamp()));
+                if (staleBuckets.contains(id)) {
+                    continue; // the recompute below already sees this reading
+                }
+                touched.computeIfAbsent(id, this::lockOrCreate).add(levelMgDl);
+            }
+        }
+
+        staleBuckets.forEach(this::recompute);
+    }
+
+    @EventListener
+    @Transactional
+    public void onPatientDeleted(PatientDeletedEvent event) {
+        readingRollupRepository.deleteByPatientId(event.patientId());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ReadingRollup> findRollups(Long patientId, RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        return readingRollupRepository.findByPatientIdAndGranularityAndBucketStartBetweenOrderByBucketStart(
+                patientId, granularity, granularity.bucketStart(from), to);
+    }
+
+    /**
+     * Recreates every rollup from the raw readings in a single ordered pass, holding only the
+     * current hour and day bucket in memory.
+     */
+    @Transactional
+    public long rebuildAll() {
+        // Buckets of archived months were maintained while their readings were in the table and are kept
+        LocalDateTime archivedBefore = readingArchive.archivedBefore();
+        if (archivedBefore == null) {
+            readingRollupRepository.deleteAllInBatch();
+        } else {
+            readingRollupRepository.deleteByBucketStartFrom(archivedBefore);
+        }
+
+        ReadingRollup hour = null;
+        ReadingRollup day = null;
+        long buckets = 0;
+        try (Stream<ReadingSample> samples = archivedBefore == null ? bloodSugarReadingRepository.streamAllSamples()
+                : bloodSugarReadingRepository.streamAllSamplesFrom(archivedBefore)) {
+            for (ReadingSample sample : (Iterable<ReadingSample>) samples::iterator) {
+                if (!isSameBucket(hour, sample)) {
+                    buckets += persistForRebuild(hour, buckets);
+                    hour = new ReadingRollup(sample.patientId(), RollupGranularity.HOUR,
+                            RollupGranularity.HOUR.bucketStart(sample.timestamp()));
+                }
+                if (!isSameBucket(day, sample)) {
+                    buckets += persistForRebuild(day, buckets);
+                    day = new ReadingRollup(sample.patientId(), RollupGranularity.DAY,
+                            RollupGranularity.DAY.bucketStart(sample.timestamp()));
+                }
+                double levelMgDl = sample.levelMgDl();
+                hour.add(levelMgDl);
+                day.add(levelMgDl);
+            }
+        }
+        buckets += persistForRebuild(hour, buckets);
+        buckets += persistForRebuild(day, buckets);
+        entityManager.flush();
+        entityManager.clear();
+
+        log.info("Rebuilt {} reading rollup buckets", buckets);
+        return buckets;
+    }
+
+    private ReadingRollup lockOrCreate(ReadingRollupId id) {
+        return readingRollupRepository.findLockedByPatientIdAndGranularityAndBucketStart(
+                        id.getPatientId(), id.getGranularity(), id.getBucketStart())
+                .orElseGet(() -> {
+                    ReadingRollup rollup = new ReadingRollup(id.getPatientId(), id.getGranularity(), id.getBucketStart());
+                    entityManager.persist(rollup);
+                    return rollup;
+                });
+    }
+
+    private void recompute(ReadingRollupId id) {
+        ReadingRollup rollup = lockOrCreate(id);
+        rollup.reset();
+        LocalDateTime bucketEnd = id.getGranularity().bucketEnd(id.getBucketStart());
+        bloodSugarReadingRepository.findSamples(id.getPatientId(), id.getBucketStart(), bucketEnd)
+                .forEach(sample -> rollup.add(sample.levelMgDl()));
+        // A late reading of an archived month shares its bucket with archived ones; while the month is being
+        // archived its readings are in both places and the table's copy wins
+        if (readingArchive.overlaps(id.getBucketStart(), bucketEnd)) {
+            Set<Long> storedIds = new HashSet<>(bloodSugarReadingRepository.findIds(id.getPatientId(), id.getBucketStart(), bucketEnd));
+            readingArchive.forEach(id.getPatientId(), id.getBucketStart(), bucketEnd, reading -> {
+                if (reading.timestamp().isBefore(bucketEnd) && !storedIds.contains(reading.id())) {
+                    rollup.add(reading.levelMgDl());
+                }
+            });
+        }
+
+        if (rollup.getCount() == 0) {
+            entityManager.remove(rollup);
+        }
+    }
+
+    private static boolean isSameBucket(ReadingRollup rollup, ReadingSample sample) {
+        return rollup != null
+                && Objects.equals(rollup.getPatientId(), sample.patientId())
+                && rollup.getBucketStart().equals(rollup.getGranularity().bucketStart(sample.timestamp()));
+    }
+
+    private int persistForRebuild(ReadingRollup rollup, long persistedSoFar) {
+        if (rollup == null) {
+            return 0;
+        }
+        entityManager.persist(rollup);
+        if ((persistedSoFar + 1) % REBUILD_FLUSH_INTERVAL == 0) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return 1;
+    }
+}
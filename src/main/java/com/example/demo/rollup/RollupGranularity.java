@@ -0,0 +1,35 @@
+package com.example.demo.rollup;
+
+import com.example.demo.constants.ApiConstants;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public LocalDateTime bucketStart(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(unit);
+    }
+
+    public LocalDateTime bucketEnd(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+
+    // Accepts the lower-case query parameter values "hour" and "day"
+    public static RollupGranularity fromParameter(String value) {
+        for (RollupGranularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(value)) {
+                return granularity;
+            }
+        }
+        throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_GRANULARITY);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.stream;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.PatientExistenceCache;
+import com.example.demo.patient.ReadingCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+
+@RestController
+@RequestMapping(ApiConstants.Paths.API_PATIENTS_READINGS)
+@RequiredArgsConstructor
+public class ReadingStreamController {
+
+    private final ReadingStreamHub readingStreamHub;
+    private final PatientExistenceCache patientExistenceCache;
+
+    // Each new-reading event id is the reading id, so a reconnecting client's Last-Event-ID resumes after the last reading it saw
+    @GetMapping(value = ApiConstants.Paths.STREAM, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamReadings(
+            @PathVariable Long patientId,
+            @RequestHeader(name = ApiConstants.Headers.LAST_EVENT_ID, required = false) String lastEventId) {
+        Long after = lastEventId != null && !lastEventId.isBlank() ? lastReadingId(lastEventId) : null;
+        patientExistenceCache.ensureExists(patientId);
+        return readingStreamHub.subscribe(patientId, after);
+    }
+
+    // Streams opened before event ids were reading ids carry a reading cursor, which still holds the id
+    private static Long lastReadingId(String lastEventId) {
+        try {
+            long id = Long.parseLong(lastEventId);
+            if (id < 0) {
+                throw new IllegalArgumentException(ApiConstants.ExceptionMessage.INVALID_CURSOR);
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            return ReadingCursor.decode(lastEventId).id();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.demo.stream;
+
+import com.example.demo.constants.ApiConstants;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.PatientDeletedEvent;
+import com.example.demo.patient.ReadingSnapshot;
+import com.example.demo.patient.ReadingsChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans committed new and updated readings out to the open Server-Sent Events streams of their patient.
+ * New readings are {@code reading} events whose id is the reading id. Ids grow in insert order whatever the
+ * reading's timestamp, so a backfilled reading still lands after the client's Last-Event-ID and is replayed on
+ * reconnect. Readings of one patient stored by concurrent transactions may still commit out of id order.
+ * <p>
+ * Updates are {@code reading-updated} events without an id: they never move a client's resume position and are
+ * not replayed, so a client that must not miss edits reloads its readings after reconnecting. Deletes are not
+ * streamed. The replay reads the live table only; readings already moved to the archive are not replayed, and a
+ * client that far behind reloads from the readings endpoint, which merges the archive.
+ * <p>
+ * Publishing only appends to each subscriber's bounded buffer; the writes happen on short-lived virtual threads,
+ * one per subscriber with pending events, so idle streams cost no thread. A subscriber whose buffer fills up
+ * is disconnected rather than allowed to hold back the others; it resumes from its Last-Event-ID on reconnect.
+ */
+@Component
+public class ReadingStreamHub {
+
+    private static final int REPLAY_PAGE_SIZE = 500;
+
+    private final BloodSugarReadingRepository bloodSugarReadingRepository;
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeats;
+    private final int bufferSize;
+    private final int maxReplay;
+    private final Duration timeout;
+    private final Map<Long, Set<ReadingSubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Counter slowConsumers;
+
+    @Autowired
+    public ReadingStreamHub(BloodSugarReadingRepository bloodSugarReadingRepository, MeterRegistry meterRegistry,
+                            @Value("${readings.stream.buffer-size:256}") int bufferSize,
+                            @Value("${readings.stream.max-replay:10000}") int maxReplay,
+                            @Value("${readings.stream.timeout:30m}") Duration timeout,
+                            @Value("${readings.stream.heartbeat-interval:30s}") Duration heartbeatInterval) {
+        this(bloodSugarReadingRepository, meterRegistry, Executors.newVirtualThreadPerTaskExecutor(),
+                Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("reading-stream-heartbeat").daemon().factory()),
+                bufferSize, maxReplay, timeout);
+        long intervalMillis = heartbeatInterval.toMillis();
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    ReadingStreamHub(BloodSugarReadingRepository bloodSugarReadingRepository, MeterRegistry meterRegistry,
+                     ExecutorService dispatcher, ScheduledExecutorService heartbeats,
+                     int bufferSize, int maxReplay, Duration timeout) {
+        this.bloodSugarReadingRepository = bloodSugarReadingRepository;
+        this.dispatcher = dispatcher;
+        this.heartbeats = heartbeats;
+        this.bufferSize = bufferSize;
+        this.maxReplay = maxReplay;
+        this.timeout = timeout;
+        this.slowConsumers = Counter.builder(ApiConstants.Metrics.STREAM_SLOW_CONSUMERS)
+                .description("Reading streams disconnected because their client fell behind")
+                .register(meterRegistry);
+        Gauge.builder(ApiConstants.Metrics.STREAM_SUBSCRIBERS, subscribers,
+                        s -> s.values().stream().mapToInt(Set::size).sum())
+                .description("Open reading streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of the patient's new and updated readings. With the id of the last reading the client saw,
+     * readings stored after it are replayed first, in id order; live readings arriving meanwhile are held back and
+     * sent afterwards.
+     */
+    public SseEmitter subscribe(Long patientId, Long after) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        ReadingSubscriber subscriber = new ReadingSubscriber(patientId, emitter, bufferSize, after != null);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Registered before the replay query so nothing committed in between is missed
+        subscribers.computeIfAbsent(patientId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        if (after != null) {
+            dispatcher.execute(() -> replay(subscriber, after));
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReadingsChanged(ReadingsChangedEvent event) {
+        if (event.added().isEmpty()) {
+            // A delete
+            return;
+        }
+        Set<ReadingSubscriber> patientSubscribers = subscribers.get(event.patientId());
+        if (patientSubscribers == null) {
+            return;
+        }
+        // An update reports the old state as removed and the new one as added
+        boolean update = !event.removed().isEmpty();
+        for (ReadingSubscriber subscriber : patientSubscribers) {
+            enqueue(subscriber, event.added(), update);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientDeleted(PatientDeletedEvent event) {
+        Set<ReadingSubscriber> patientSubscribers = subscribers.remove(event.patientId());
+        if (patientSubscribers != null) {
+            patientSubscribers.forEach(subscriber -> subscriber.emitter().complete());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter().complete()));
+        subscribers.clear();
+        dispatcher.shutdown();
+    }
+
+    int subscriberCount(Long patientId) {
+        Set<ReadingSubscriber> patientSubscribers = subscribers.get(patientId);
+        return patientSubscribers == null ? 0 : patientSubscribers.size();
+    }
+
+    private void enqueue(ReadingSubscriber subscriber, List<ReadingSnapshot> readings, boolean update) {
+        for (ReadingSnapshot reading : readings) {
+            if (!offer(subscriber, new ReadingSubscriber.Pending(reading, update))) {
+                return;
+            }
+        }
+        schedule(subscriber);
+    }
+
+    private void sendHeartbeats() {
+        for (Set<ReadingSubscriber> patientSubscribers : subscribers.values()) {
+            for (ReadingSubscriber subscriber : patientSubscribers) {
+                if (offer(subscriber, ReadingSubscriber.HEARTBEAT)) {
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    private boolean offer(ReadingSubscriber subscriber, ReadingSubscriber.Pending pending) {
+        if (subscriber.offer(pending)) {
+            return true;
+        }
+        disconnectSlowConsumer(subscriber);
+        return false;
+    }
+
+    private void schedule(ReadingSubscriber subscriber) {
+        if (subscriber.tryClaim()) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(ReadingSubscriber subscriber) {
+        try {
+            ReadingSubscriber.Pending pending;
+            while ((pending = subscriber.poll()) != null) {
+                if (pending == ReadingSubscriber.HEARTBEAT) {
+                    subscriber.emitter().send(SseEmitter.event().comment(ApiConstants.Events.HEARTBEAT));
+                } else if (pending.update()) {
+                    sendUpdate(subscriber, pending.reading());
+                } else if (!subscriber.wasReplayed(pending.reading())) {
+                    send(subscriber, pending.reading());
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter already completed
+            remove(subscriber);
+            return;
+        } finally {
+            subscriber.release();
+        }
+        // An event may have been queued after the last poll but before the release
+        if (subscriber.hasPending()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void replay(ReadingSubscriber subscriber, Long after) {
+        Set<Long> replayedIds = new HashSet<>();
+        Long position = after;
+        try {
+            while (replayedIds.size() < maxReplay) {
+                int pageSize = Math.min(REPLAY_PAGE_SIZE, maxReplay - replayedIds.size());
+                List<ReadingSnapshot> page = bloodSugarReadingRepository
+                        .findByPatientIdAndIdGreaterThanOrderByIdAsc(subscriber.patientId(), position, Limit.of(pageSize)).stream()
+                        .map(ReadingSnapshot::of)
+                        .toList();
+                for (ReadingSnapshot reading : page) {
+                    send(subscriber, reading);
+                    replayedIds.add(reading.id());
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+                position = page.get(page.size() - 1).id();
+            }
+            if (replayedIds.size() >= maxReplay) {
+                // Too far behind to catch up here: the client reloads from the readings endpoint
+                subscriber.emitter().send(SseEmitter.event().name(ApiConstants.Events.RESET).data(position));
+            }
+        } catch (IOException | IllegalStateException e) {
+            remove(subscriber);
+            return;
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            subscriber.emitter().completeWithError(e);
+            return;
+        }
+        subscriber.finishReplay(replayedIds);
+        schedule(subscriber);
+    }
+
+    private void send(ReadingSubscriber subscriber, ReadingSnapshot reading) throws IOException {
+        subscriber.emitter().send(SseEmitter.event()
+                .name(ApiConstants.Events.READING)
+                .id(reading.id().toString())
+                .data(BloodSugarReadingDTO.fromSnapshot(subscriber.patientId(), reading), MediaType.APPLICATION_JSON));
+    }
+
+    // No event id: the reading may be older than the client's position, which must not move back
+    private void sendUpdate(ReadingSubscriber subscriber, ReadingSnapshot reading) throws IOException {
+        subscriber.emitter().send(SseEmitter.event()
+                .name(ApiConstants.Events.READING_UPDATED)
+                .data(BloodSugarReadingDTO.fromSnapshot(subscriber.patientId(), reading), MediaType.APPLICATION_JSON));
+    }
+
+    private void disconnectSlowConsumer(ReadingSubscriber subscriber) {
+        if (remove(subscriber)) {
+            slowConsumers.increment();
+            subscriber.emitter().complete();
+        }
+    }
+
+    private boolean remove(ReadingSubscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscriber.patientId(), (id, patientSubscribers) -> {
+            removed[0] = patientSubscribers.remove(subscriber);
+            return patientSubscribers.isEmpty() ? null : patientSubscribers;
+        });
+        return removed[0];
+    }
+}
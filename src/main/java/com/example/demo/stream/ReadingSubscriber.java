@@ -0,0 +1,79 @@
+package com.example.demo.stream;
+
+import com.example.demo.patient.ReadingSnapshot;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open stream. Events wait in a bounded buffer and are written by at most one dispatcher task at a time,
+ * so a subscriber holds no thread while idle and a slow one never blocks the publisher.
+ */
+final class ReadingSubscriber {
+
+    // Queued like a reading so heartbeats share the single-writer path
+    static final Pending HEARTBEAT = new Pending(null, false);
+
+    private final Long patientId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<Pending> buffer;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean replaying;
+    // Readings already sent by the resume replay, skipped if the live stream delivers them again
+    private Set<Long> replayedIds = Set.of();
+
+    ReadingSubscriber(Long patientId, SseEmitter emitter, int bufferSize, boolean replaying) {
+        this.patientId = patientId;
+        this.emitter = emitter;
+        this.buffer = new LinkedBlockingQueue<>(bufferSize);
+        this.replaying = replaying;
+    }
+
+    Long patientId() {
+        return patientId;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    boolean offer(Pending pending) {
+        return buffer.offer(pending);
+    }
+
+    Pending poll() {
+        return buffer.poll();
+    }
+
+    boolean hasPending() {
+        return !buffer.isEmpty();
+    }
+
+    boolean tryClaim() {
+        return !replaying && scheduled.compareAndSet(false, true);
+    }
+
+    void release() {
+        scheduled.set(false);
+    }
+
+    boolean isReplaying() {
+        return replaying;
+    }
+
+    void finishReplay(Set<Long> replayedIds) {
+        this.replayedIds = replayedIds;
+        this.replaying = false;
+    }
+
+    boolean wasReplayed(ReadingSnapshot reading) {
+        return !replayedIds.isEmpty() && replayedIds.remove(reading.id());
+    }
+
+    // A reading waiting to be written: newly created, or the new state of an updated one
+    record Pending(ReadingSnapshot reading, boolean update) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.utils;
+
+/**
+ * Standard CGM summary metrics over a window, glucose values in mg/dL and time-in-range values in percent.
+ */
+public record GlycemicMetrics(
+        long count,
+        double meanGlucose,
+        double standardDeviation,
+        double coefficientOfVariation,
+        double glucoseManagementIndicator,
+        double estimatedA1c,
+        double timeBelowRange,
+        double timeInRange,
+        double timeAboveRange) {
+}
@@ -0,0 +1,69 @@
+package com.example.demo.utils;
+
+/**
+ * Single-pass, constant-memory accumulator for {@link GlycemicMetrics}.
+ * Mean and variance use Welford's update so long windows do not lose precision.
+ */
+public final class GlycemicMetricsAccumulator {
+
+    // GMI (%) = 3.31 + 0.02392 * mean glucose (mg/dL), Bergenstal et al. 2018
+    private static final double GMI_INTERCEPT = 3.31;
+    private static final double GMI_SLOPE = 0.02392;
+    // eA1c (%) = (mean glucose (mg/dL) + 46.7) / 28.7, ADAG study
+    private static final double EA1C_OFFSET = 46.7;
+    private static final double EA1C_DIVISOR = 28.7;
+
+    private long count;
+    private double mean;
+    private double m2;
+    private long belowRange;
+    private long aboveRange;
+
+    public void add(double level, String unit) {
+        addMgDl(MedicalReadingUtils.toMgPerDl(level, unit));
+    }
+
+    public void addMgDl(double levelMgDl) {
+        count++;
+        double delta = levelMgDl - mean;
+        mean += delta / count;
+        m2 += delta * (levelMgDl - mean);
+        if (levelMgDl < MedicalReadingUtils.TARGET_RANGE_LOW_MG_DL) {
+            belowRange++;
+        } else if (levelMgDl > MedicalReadingUtils.TARGET_RANGE_HIGH_MG_DL) {
+            aboveRange++;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        belowRange = 0;
+        aboveRange = 0;
+    }
+
+    // Returns null when no reading was added, since none of the metrics is defined for an empty window
+    public GlycemicMetrics result() {
+        if (count == 0) {
+            return null;
+        }
+        double standardDeviation = Math.sqrt(m2 / count);
+        double percentBelow = 100.0 * belowRange / count;
+        double percentAbove = 100.0 * aboveRange / count;
+        return new GlycemicMetrics(
+                count,
+                mean,
+                standardDeviation,
+                mean == 0 ? 0 : 100.0 * standardDeviation / mean,
+                GMI_INTERCEPT + GMI_SLOPE * mean,
+                (mean + EA1C_OFFSET) / EA1C_DIVISOR,
+                percentBelow,
+                100.0 - percentBelow - percentAbove,
+                percentAbove);
+    }
+}
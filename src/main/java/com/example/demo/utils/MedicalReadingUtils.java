@@ -1,10 +1,18 @@
 package com.example.demo.utils;
 
+import com.example.demo.constants.ApiConstants;
+
 import java.time.LocalDateTime;
 import java.time.Duration;
+import java.util.Objects;
 
 public final class MedicalReadingUtils {
 
+    public static final double MG_DL_PER_MMOL_L = 18.0182;
+    public static final double TARGET_RANGE_LOW_MG_DL = 70.0;
+    public static final double TARGET_RANGE_HIGH_MG_DL = 180.0;
+
+    private static final ReadingBatchKernels BATCH_KERNELS = ReadingBatchKernels.create();
 
     private MedicalReadingUtils() {
         // Prevent instantiation
@@ -25,4 +33,44 @@ public final class MedicalReadingUtils {
     public static long calculateTimeDifferenceMinutes(LocalDateTime firstTime, LocalDateTime secondTime) {
         return Duration.between(firstTime, secondTime).toMinutes();
     }
+
+
+    public static double toMgPerDl(double level, String unit) {
+        return ApiConstants.Units.MMOL_L.equals(unit) ? level * MG_DL_PER_MMOL_L : level;
+    }
+
+    // Batch variants over primitive arrays. Timestamps are epoch seconds of the local date-time taken at UTC
+    // (LocalDateTime.toEpochSecond(ZoneOffset.UTC)); results are written to the first 'length' slots of
+    // the output array without allocating.
+
+    public static void calculateAdjustedReadings(long[] epochSeconds, double[] rawValues, double[] out, int length) {
+        checkLengths(length, epochSeconds.length, rawValues.length, out.length);
+        BATCH_KERNELS.adjustedReadings(epochSeconds, rawValues, out, length);
+    }
+
+
+    public static void calculateDifferences(double[] firstValues, double[] secondValues, double[] out, int length) {
+        checkLengths(length, firstValues.length, secondValues.length, out.length);
+        BATCH_KERNELS.differences(firstValues, secondValues, out, length);
+    }
+
+
+    public static void calculateDifferences(float[] firstValues, float[] secondValues, float[] out, int length) {
+        checkLengths(length, firstValues.length, secondValues.length, out.length);
+        BATCH_KERNELS.differences(firstValues, secondValues, out, length);
+    }
+
+
+    public static void calculateTimeDifferencesMinutes(long[] firstEpochSeconds, long[] secondEpochSeconds,
+                                                       long[] outMinutes, int length) {
+        checkLengths(length, firstEpochSeconds.length, secondEpochSeconds.length, outMinutes.length);
+        BATCH_KERNELS.timeDifferencesMinutes(firstEpochSeconds, secondEpochSeconds, outMinutes, length);
+    }
+
+
+    private static void checkLengths(int length, int... arrayLengths) {
+        for (int arrayLength : arrayLengths) {
+            Objects.checkFromIndexSize(0, length, arrayLength);
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.demo.utils;
+
+/**
+ * Array kernels behind the batch methods of {@link MedicalReadingUtils}. Implementations write into the
+ * caller's output arrays and must produce exactly the same values as the scalar methods.
+ */
+interface ReadingBatchKernels {
+
+    String VECTOR_MODULE = "jdk.incubator.vector";
+    String VECTOR_KERNELS = "com.example.demo.utils.VectorReadingBatchKernels";
+
+    void adjustedReadings(long[] epochSeconds, double[] rawValues, double[] out, int length);
+
+    void differences(double[] firstValues, double[] secondValues, double[] out, int length);
+
+    void differences(float[] firstValues, float[] secondValues, float[] out, int length);
+
+    void timeDifferencesMinutes(long[] firstEpochSeconds, long[] secondEpochSeconds, long[] outMinutes, int length);
+
+    // Uses the Vector API when the incubator module was added to the JVM, the scalar kernels otherwise
+    static ReadingBatchKernels create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            // By name: the vector kernels are compiled separately, against the incubator module
+            try {
+                return (ReadingBatchKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall through to the scalar kernels
+            }
+        }
+        return new ScalarReadingBatchKernels();
+    }
+}
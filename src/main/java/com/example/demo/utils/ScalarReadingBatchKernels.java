@@ -0,0 +1,59 @@
+package com.example.demo.utils;
+
+final class ScalarReadingBatchKernels implements ReadingBatchKernels {
+
+    static final long SECONDS_PER_DAY = 86_400L;
+    static final long NIGHT_START_SECOND = 22 * 3_600L;
+    static final long NIGHT_END_SECOND = 6 * 3_600L;
+    static final double NIGHT_ADJUSTMENT = 1.10;
+    static final double DAY_ADJUSTMENT = 1.00;
+
+    @Override
+    public void adjustedReadings(long[] epochSeconds, double[] rawValues, double[] out, int length) {
+        adjustedReadings(epochSeconds, rawValues, out, 0, length);
+    }
+
+    @Override
+    public void differences(double[] firstValues, double[] secondValues, double[] out, int length) {
+        differences(firstValues, secondValues, out, 0, length);
+    }
+
+    @Override
+    public void differences(float[] firstValues, float[] secondValues, float[] out, int length) {
+        differences(firstValues, secondValues, out, 0, length);
+    }
+
+    @Override
+    public void timeDifferencesMinutes(long[] firstEpochSeconds, long[] secondEpochSeconds, long[] outMinutes, int length) {
+        timeDifferencesMinutes(firstEpochSeconds, secondEpochSeconds, outMinutes, 0, length);
+    }
+
+    // The ranged variants also finish the tail the vector kernels leave over
+
+    static void adjustedReadings(long[] epochSeconds, double[] rawValues, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            long secondOfDay = Math.floorMod(epochSeconds[i], SECONDS_PER_DAY);
+            boolean night = secondOfDay >= NIGHT_START_SECOND || secondOfDay < NIGHT_END_SECOND;
+            out[i] = rawValues[i] * (night ? NIGHT_ADJUSTMENT : DAY_ADJUSTMENT);
+        }
+    }
+
+    static void differences(double[] firstValues, double[] secondValues, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = secondValues[i] - firstValues[i];
+        }
+    }
+
+    static void differences(float[] firstValues, float[] secondValues, float[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = secondValues[i] - firstValues[i];
+        }
+    }
+
+    static void timeDifferencesMinutes(long[] firstEpochSeconds, long[] secondEpochSeconds, long[] outMinutes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            // Truncates towards zero like Duration.toMinutes()
+            outMinutes[i] = (secondEpochSeconds[i] - firstEpochSeconds[i]) / 60;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.utils;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels on the incubating Vector API. Only loaded when {@code jdk.incubator.vector} is present.
+ * Integer divisions go through doubles, which is exact for epoch-second magnitudes (far below 2^53).
+ */
+final class VectorReadingBatchKernels implements ReadingBatchKernels {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void adjustedReadings(long[] epochSeconds, double[] rawValues, double[] out, int length) {
+        int i = 0;
+        // Long and double lanes have the same width, so one mask covers both
+        int bound = DOUBLES.length() == LONGS.length() ? DOUBLES.loopBound(length) : 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            LongVector seconds = LongVector.fromArray(LONGS, epochSeconds, i);
+            LongVector days = (LongVector) ((DoubleVector) seconds.convert(VectorOperators.L2D, 0))
+                    .div((double) ScalarReadingBatchKernels.SECONDS_PER_DAY)
+                    .convert(VectorOperators.D2L, 0);
+            LongVector secondOfDay = seconds.sub(days.mul(ScalarReadingBatchKernels.SECONDS_PER_DAY));
+            secondOfDay = secondOfDay.add(ScalarReadingBatchKernels.SECONDS_PER_DAY, secondOfDay.compare(VectorOperators.LT, 0));
+            VectorMask<Double> night = secondOfDay.compare(VectorOperators.GE, ScalarReadingBatchKernels.NIGHT_START_SECOND)
+                    .or(secondOfDay.compare(VectorOperators.LT, ScalarReadingBatchKernels.NIGHT_END_SECOND))
+                    .cast(DOUBLES);
+
+            DoubleVector raw = DoubleVector.fromArray(DOUBLES, rawValues, i);
+            raw.mul(ScalarReadingBatchKernels.DAY_ADJUSTMENT)
+                    .blend(raw.mul(ScalarReadingBatchKernels.NIGHT_ADJUSTMENT), night)
+                    .intoArray(out, i);
+        }
+        ScalarReadingBatchKernels.adjustedReadings(epochSeconds, rawValues, out, i, length);
+    }
+
+    @Override
+    public void differences(double[] firstValues, double[] secondValues, double[] out, int length) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(length); i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, secondValues, i)
+                    .sub(DoubleVector.fromArray(DOUBLES, firstValues, i))
+                    .intoArray(out, i);
+        }
+        ScalarReadingBatchKernels.differences(firstValues, secondValues, out, i, length);
+    }
+
+    @Override
+    public void differences(float[] firstValues, float[] secondValues, float[] out, int length) {
+        int i = 0;
+        for (int bound = FLOATS.loopBound(length); i < bound; i += FLOATS.length()) {
+            FloatVector.fromArray(FLOATS, secondValues, i)
+                    .sub(FloatVector.fromArray(FLOATS, firstValues, i))
+                    .intoArray(out, i);
+        }
+        ScalarReadingBatchKernels.differences(firstValues, secondValues, out, i, length);
+    }
+
+    @Override
+    public void timeDifferencesMinutes(long[] firstEpochSeconds, long[] secondEpochSeconds, long[] outMinutes, int length) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(length); i < bound; i += LONGS.length()) {
+            // D2L truncates towards zero, matching long division
+            LongVector seconds = LongVector.fromArray(LONGS, secondEpochSeconds, i)
+                    .sub(LongVector.fromArray(LONGS, firstEpochSeconds, i));
+            ((LongVector) ((DoubleVector) seconds.convert(VectorOperators.L2D, 0))
+                    .div(60.0)
+                    .convert(VectorOperators.D2L, 0))
+                    .intoArray(outMinutes, i);
+        }
+        ScalarReadingBatchKernels.timeDifferencesMinutes(firstEpochSeconds, secondEpochSeconds, outMinutes, i, length);
+    }
+}
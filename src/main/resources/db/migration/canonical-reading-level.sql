@@ -0,0 +1,16 @@
+-- Moves blood_sugar_readings from (level DOUBLE, unit VARCHAR) to canonical storage:
+-- level_tenths_mg_dl INTEGER (tenths of mg/dL) and unit_code TINYINT (0 = mg/dL, 1 = mmol/L).
+-- Run once against an existing database before starting the new version.
+
+ALTER TABLE blood_sugar_readings ADD COLUMN level_tenths_mg_dl INTEGER;
+ALTER TABLE blood_sugar_readings ADD COLUMN unit_code TINYINT;
+
+UPDATE blood_sugar_readings
+SET unit_code = CASE WHEN unit = 'mmol/L' THEN 1 ELSE 0 END,
+    level_tenths_mg_dl = ROUND(CASE WHEN unit = 'mmol/L' THEN level * 18.0182 ELSE level END * 10);
+
+ALTER TABLE blood_sugar_readings ALTER COLUMN level_tenths_mg_dl SET NOT NULL;
+ALTER TABLE blood_sugar_readings ALTER COLUMN unit_code SET NOT NULL;
+
+ALTER TABLE blood_sugar_readings DROP COLUMN level;
+ALTER TABLE blood_sugar_readings DROP COLUMN unit;
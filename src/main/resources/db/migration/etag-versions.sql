@@ -0,0 +1,7 @@
+-- Adds the version columns behind the ETags served for conditional GETs:
+-- optimistic-lock versions on patients and readings, and the per-patient readings watermark.
+-- Run once against an existing database before starting the new version.
+
+ALTER TABLE patients ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE patients ADD COLUMN readings_version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE blood_sugar_readings ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
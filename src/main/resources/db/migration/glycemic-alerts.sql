@@ -0,0 +1,14 @@
+-- Creates the table written by the glycemic alert engine.
+-- Run once against an existing database before starting the new version.
+
+CREATE TABLE glycemic_alerts (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    patient_id BIGINT NOT NULL,
+    type VARCHAR(16) NOT NULL,
+    triggered_at TIMESTAMP NOT NULL,
+    reading_id BIGINT,
+    level_mg_dl DOUBLE PRECISION NOT NULL,
+    rule_value DOUBLE PRECISION NOT NULL
+);
+
+CREATE INDEX idx_glycemic_alerts_patient_triggered_at ON glycemic_alerts (patient_id, triggered_at);
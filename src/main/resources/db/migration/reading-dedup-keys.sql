@@ -0,0 +1,10 @@
+-- Adds the keys used to recognise re-sent readings: the uploading device and the client's Idempotency-Key.
+-- Both are optional; rows without them are never treated as duplicates.
+-- Run once against an existing database before starting the new version.
+
+ALTER TABLE blood_sugar_readings ADD COLUMN device_id VARCHAR(64);
+ALTER TABLE blood_sugar_readings ADD COLUMN idempotency_key VARCHAR(76);
+CREATE UNIQUE INDEX uk_blood_sugar_readings_patient_idempotency_key
+    ON blood_sugar_readings (patient_id, idempotency_key);
+CREATE UNIQUE INDEX uk_blood_sugar_readings_patient_timestamp_device
+    ON blood_sugar_readings (patient_id, timestamp, device_id);
@@ -0,0 +1,8 @@
+-- Moves blood_sugar_readings ids from the IDENTITY column to blood_sugar_readings_seq, which Hibernate reads in
+-- pooled blocks of 50 (allocationSize): each value fetched is the top of the next 50 ids to hand out.
+-- The sequence is restarted 50 above the highest existing id so the first block begins after it.
+-- Run once against an existing database before starting the new version.
+
+CREATE SEQUENCE IF NOT EXISTS blood_sugar_readings_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE blood_sugar_readings_seq
+    RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM blood_sugar_readings);
@@ -0,0 +1,7 @@
+-- Creates the checkpoint of the write-behind journal drainer (readings.write-behind.enabled).
+-- Run once against an existing database before enabling write-behind ingestion.
+
+CREATE TABLE reading_journal_checkpoints (
+    id BIGINT PRIMARY KEY,
+    last_sequence BIGINT NOT NULL
+);
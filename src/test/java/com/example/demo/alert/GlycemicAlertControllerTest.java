@@ -0,0 +1,149 @@
+package com.example.demo.alert;
+
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: alerts are evaluated once the readings' transaction commits
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GlycemicAlertControllerTest {
+
+    // Recent enough for the rules, which skip readings taken more than max-gap ago
+    private static final LocalDateTime START = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(20);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    @Autowired
+    private GlycemicAlertRepository glycemicAlertRepository;
+
+    @Autowired
+    private GlycemicAlertEngine glycemicAlertEngine;
+
+    private final List<GlycemicAlertDTO> notified = new CopyOnWriteArrayList<>();
+    private final GlycemicAlertListener listener = notified::add;
+
+    private ObjectMapper objectMapper;
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        glycemicAlertRepository.deleteAll();
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+        glycemicAlertEngine.addListener(listener);
+    }
+
+    @AfterEach
+    void tearDown() {
+        glycemicAlertEngine.removeListener(listener);
+    }
+
+    private BloodSugarReadingDTO reading(int minute, double level) {
+        return new BloodSugarReadingDTO(null, START.plusMinutes(minute), level, "mg/dL", testPatient.getId());
+    }
+
+    @Test
+    void batchUpload_fallingIntoUrgentLow_shouldStoreAndNotifyAlerts() throws Exception {
+        List<BloodSugarReadingDTO> readings = List.of(
+                reading(15, 50.0), reading(0, 110.0), reading(5, 90.0), reading(10, 70.0));
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(readings)))
+                .andExpect(status().isOk());
+
+        // Evaluated in timestamp order: 20 mg/dL in the first 5 minutes, then below 54
+        List<AlertType> types = notified.stream().map(GlycemicAlertDTO::getType).toList();
+        assertEquals(List.of(AlertType.RAPID_FALL, AlertType.URGENT_LOW), types);
+        assertNotNull(notified.get(0).getId());
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings/alerts", testPatient.getId())
+                        .param("from", START.minusDays(1).toString())
+                        .param("to", START.plusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].type", is("RAPID_FALL")))
+                .andExpect(jsonPath("$[0].triggeredAt", is(START.plusMinutes(5).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))))
+                .andExpect(jsonPath("$[0].value", is(-4.0)))
+                .andExpect(jsonPath("$[1].type", is("URGENT_LOW")))
+                .andExpect(jsonPath("$[1].level", is(50.0)))
+                .andExpect(jsonPath("$[1].unit", is("mg/dL")));
+    }
+
+    @Test
+    void createReading_inRange_shouldNotRaiseAlerts() throws Exception {
+        mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(reading(0, 120.0))))
+                .andExpect(status().isCreated());
+
+        assertTrue(notified.isEmpty());
+        assertEquals(0, glycemicAlertRepository.count());
+    }
+
+    @Test
+    void batchUpload_ofHistory_shouldNotRaiseAlerts() throws Exception {
+        // A low episode from last week, imported now
+        LocalDateTime lastWeek = START.minusDays(7);
+        List<BloodSugarReadingDTO> readings = List.of(
+                new BloodSugarReadingDTO(null, lastWeek, 110.0, "mg/dL", testPatient.getId()),
+                new BloodSugarReadingDTO(null, lastWeek.plusMinutes(5), 70.0, "mg/dL", testPatient.getId()),
+                new BloodSugarReadingDTO(null, lastWeek.plusMinutes(10), 50.0, "mg/dL", testPatient.getId()));
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(readings)))
+                .andExpect(status().isOk());
+
+        assertTrue(notified.isEmpty());
+        assertEquals(0, glycemicAlertRepository.count());
+    }
+
+    @Test
+    void getAlerts_whenPatientDoesNotExist_shouldReturn404() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings/alerts", 999999L)
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-01-02T00:00:00"))
+                .andExpect(status().isNotFound());
+    }
+}
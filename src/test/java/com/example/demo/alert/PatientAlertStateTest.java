@@ -0,0 +1,91 @@
+package com.example.demo.alert;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatientAlertStateTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private PatientAlertState state;
+
+    @BeforeEach
+    void setUp() {
+        state = new PatientAlertState(new GlycemicAlertRules(54, 180, 120, 2.0, 15, 30), 16);
+    }
+
+    private List<PatientAlertState.TriggeredAlert> accept(int minute, double level) {
+        return state.accept(START.plusMinutes(minute), level);
+    }
+
+    @Test
+    void accept_urgentLow_shouldFireOncePerEpisode() {
+        assertTrue(accept(0, 60).isEmpty());
+
+        List<PatientAlertState.TriggeredAlert> alerts = accept(5, 52);
+        assertEquals(List.of(new PatientAlertState.TriggeredAlert(AlertType.URGENT_LOW, 52)), alerts);
+
+        assertTrue(accept(10, 50).isEmpty());
+        assertTrue(accept(15, 58).isEmpty());
+        assertEquals(AlertType.URGENT_LOW, accept(20, 53).get(0).type());
+    }
+
+    @Test
+    void accept_sustainedHigh_shouldFireAfterTwoHoursAboveThreshold() {
+        for (int minute = 0; minute < 120; minute += 5) {
+            assertTrue(accept(minute, 200).isEmpty(), "minute " + minute);
+        }
+
+        List<PatientAlertState.TriggeredAlert> alerts = accept(120, 200);
+        assertEquals(List.of(new PatientAlertState.TriggeredAlert(AlertType.SUSTAINED_HIGH, 120)), alerts);
+        assertTrue(accept(125, 200).isEmpty());
+    }
+
+    @Test
+    void accept_sustainedHigh_shouldRestartWhenLevelDropsIntoRange() {
+        for (int minute = 0; minute <= 60; minute += 5) {
+            accept(minute, 200);
+        }
+        accept(65, 150);
+        for (int minute = 70; minute < 190; minute += 5) {
+            assertTrue(accept(minute, 200).isEmpty(), "minute " + minute);
+        }
+        assertEquals(AlertType.SUSTAINED_HIGH, accept(190, 200).get(0).type());
+    }
+
+    @Test
+    void accept_rapidFall_shouldMeasureRateOverWindow() {
+        accept(0, 200);
+        accept(5, 195);
+        assertTrue(accept(10, 185).isEmpty()); // 1.5 mg/dL/min
+
+        List<PatientAlertState.TriggeredAlert> alerts = accept(15, 160); // 40 over 15 minutes
+        assertEquals(1, alerts.size());
+        assertEquals(AlertType.RAPID_FALL, alerts.get(0).type());
+        assertEquals(-40.0 / 15, alerts.get(0).value(), 1e-9);
+
+        assertTrue(accept(20, 140).isEmpty()); // still falling, already raised
+    }
+
+    @Test
+    void accept_shouldIgnoreReadingsNotNewerThanLatest() {
+        accept(10, 100);
+
+        assertTrue(accept(5, 40).isEmpty());
+        assertTrue(accept(10, 40).isEmpty());
+        assertEquals(AlertType.URGENT_LOW, accept(15, 40).get(0).type());
+    }
+
+    @Test
+    void accept_afterLongGap_shouldStartAfresh() {
+        accept(0, 200);
+
+        // A fall of 100 mg/dL across a 60 minute gap is not a measured rate
+        assertTrue(accept(60, 100).isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.analytics;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@Transactional
+@ActiveProfiles("test")
+class GlycemicMetricsControllerTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    private Patient patient1;
+    private Patient patient2;
+
+    @BeforeEach
+    void setUp() {
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        patient1 = patientRepository.save(new Patient("First", "Patient", LocalDate.of(1990, 1, 1)));
+        patient2 = patientRepository.save(new Patient("Second", "Patient", LocalDate.of(1980, 1, 1)));
+        saveReading(patient1, DAY.plusHours(1), 60.0, "mg/dL");
+        saveReading(patient1, DAY.plusHours(2), 100.0, "mg/dL");
+        saveReading(patient1, DAY.plusHours(3), 200.0, "mg/dL");
+        saveReading(patient1, DAY.plusDays(5), 400.0, "mg/dL"); // outside the window
+        saveReading(patient2, DAY.plusHours(4), 5.55, "mmol/L");
+    }
+
+    @Test
+    void getPatientMetrics_shouldComputeMetricsInWindow() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings/metrics", patient1.getId())
+                        .param("from", "2024-03-01T00:00:00")
+                        .param("to", "2024-03-02T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.patientId", is(patient1.getId().intValue())))
+                .andExpect(jsonPath("$.count", is(3)))
+                .andExpect(jsonPath("$.meanGlucose", closeTo(120.0, 0.001)))
+                .andExpect(jsonPath("$.timeInRange", closeTo(100.0 / 3, 0.001)))
+                .andExpect(jsonPath("$.timeBelowRange", closeTo(100.0 / 3, 0.001)))
+                .andExpect(jsonPath("$.glucoseManagementIndicator", closeTo(3.31 + 0.02392 * 120.0, 0.001)));
+    }
+
+    @Test
+    void getPatientMetrics_withoutReadingsInWindow_shouldReturnEmptyMetrics() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings/metrics", patient1.getId())
+                        .param("from", "2023-01-01T00:00:00")
+                        .param("to", "2023-01-02T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(0)))
+                .andExpect(jsonPath("$.meanGlucose").doesNotExist());
+    }
+
+    @Test
+    void getPatientMetrics_whenPatientDoesNotExist_shouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/api/patients/999/readings/metrics")
+                        .param("from", "2024-03-01T00:00:00")
+                        .param("to", "2024-03-02T00:00:00"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getCohortMetrics_shouldReturnOneEntryPerPatient() throws Exception {
+        mockMvc.perform(get("/api/patients/metrics")
+                        .param("from", "2024-03-01T00:00:00")
+                        .param("to", "2024-03-02T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].patientId", is(patient1.getId().intValue())))
+                .andExpect(jsonPath("$[0].count", is(3)))
+                .andExpect(jsonPath("$[1].patientId", is(patient2.getId().intValue())))
+                .andExpect(jsonPath("$[1].meanGlucose", closeTo(100.0, 0.1)));
+    }
+
+    private void saveReading(Patient patient, LocalDateTime timestamp, double level, String unit) {
+        BloodSugarReading reading = new BloodSugarReading(timestamp, level, unit);
+        reading.setPatient(patient);
+        bloodSugarReadingRepository.save(reading);
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.demo.archive;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: the job works in its own transactions and the archive is updated after commit
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadingArchivalJobTest {
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("readings.archive.enabled", () -> "true");
+        registry.add("readings.archive.dir", archiveDirectory::toString);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReadingArchivalJob readingArchivalJob;
+
+    @Autowired
+    private ReadingArchive readingArchive;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+        saveReading(LocalDateTime.of(2024, 1, 10, 8, 0), 100.0);
+        saveReading(LocalDateTime.of(2024, 1, 20, 8, 0), 120.0);
+        saveReading(LocalDateTime.of(2024, 2, 5, 8, 0), 140.0);
+        saveReading(LocalDateTime.now().minusDays(1), 160.0);
+    }
+
+    @Test
+    void archiveBefore_shouldMoveOldMonthsOutOfTableAndKeepThemQueryable() throws Exception {
+        assertEquals(3, readingArchivalJob.archiveBefore(YearMonth.of(2024, 3)));
+        assertEquals(1, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+
+        MvcResult firstPage = mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].level", contains(100.0, 120.0)))
+                .andReturn();
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("limit", "2")
+                        .param("cursor", firstPage.getResponse().getHeader("X-Next-Cursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].level", contains(140.0, 160.0)));
+
+        // A window inside the archive only
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("from", "2024-01-15T00:00:00")
+                        .param("to", "2024-02-29T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].level", contains(120.0, 140.0)));
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings/metrics", testPatient.getId())
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-12-31T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(3)));
+    }
+
+    @Test
+    void archiveBefore_shouldFoldLateReadingsIntoArchivedMonth() throws Exception {
+        readingArchivalJob.archiveBefore(YearMonth.of(2024, 3));
+        // Arrives after January was archived
+        saveReading(LocalDateTime.of(2024, 1, 15, 8, 0), 110.0);
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].level", contains(100.0, 110.0, 120.0, 140.0, 160.0)));
+
+        assertEquals(1, readingArchivalJob.archiveBefore(YearMonth.of(2024, 3)));
+        assertEquals(1, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId()))
+                .andExpect(jsonPath("$", hasSize(5)));
+    }
+
+    @Test
+    void export_shouldMergeArchivedMonthsWithLateAndRecentReadings() throws Exception {
+        readingArchivalJob.archiveBefore(YearMonth.of(2024, 3));
+        saveReading(LocalDateTime.of(2024, 1, 15, 8, 0), 110.0);
+
+        MvcResult started = mockMvc.perform(get("/api/patients/{patientId}/readings/export", testPatient.getId())
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> levels = csv.lines().skip(1).map(line -> line.split(",")[2]).toList();
+        assertEquals(List.of("100.0", "110.0", "120.0", "140.0", "160.0"), levels);
+    }
+
+    @Test
+    void metricsAndRollups_whileMonthIsBeingArchived_shouldCountTableCopyOnce() throws Exception {
+        // Merged into the archive, but the rows are not deleted yet
+        LocalDateTime february = LocalDateTime.of(2024, 2, 1, 0, 0);
+        readingArchive.merge(YearMonth.of(2024, 1),
+                bloodSugarReadingRepository.findForExportBefore(testPatient.getId(), february).iterator());
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings/metrics", testPatient.getId())
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-12-31T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(3)));
+        mockMvc.perform(get("/api/patients/metrics")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-12-31T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.patientId == " + testPatient.getId() + ")].count", contains(3)));
+
+        // Recomputes the day's rollup from both places
+        BloodSugarReading first = bloodSugarReadingRepository.findByPatientId(testPatient.getId()).stream()
+                .filter(reading -> reading.getTimestamp().equals(LocalDateTime.of(2024, 1, 10, 8, 0)))
+                .findFirst().orElseThrow();
+        BloodSugarReadingDTO update = new BloodSugarReadingDTO(first.getId(), first.getTimestamp(), 105.0, "mg/dL",
+                testPatient.getId());
+        mockMvc.perform(put("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), first.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper().writeValueAsString(update)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/patients/{patientId}/readings/rollups", testPatient.getId())
+                        .param("granularity", "day")
+                        .param("from", "2024-01-10T00:00:00")
+                        .param("to", "2024-01-10T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].count", is(1)))
+                .andExpect(jsonPath("$[0].mean", is(105.0)));
+    }
+
+    @Test
+    void createReading_whenReSentAfterItsMonthWasArchived_shouldReturnArchivedOriginal() throws Exception {
+        BloodSugarReading original = new BloodSugarReading(LocalDateTime.of(2024, 1, 12, 8, 0), 115.0, "mg/dL");
+        original.setPatient(testPatient);
+        original.setDeviceId("meter-7");
+        bloodSugarReadingRepository.save(original);
+        readingArchivalJob.archiveBefore(YearMonth.of(2024, 3));
+
+        BloodSugarReadingDTO reSent = new BloodSugarReadingDTO(null, original.getTimestamp(), 115.0, "mg/dL",
+                testPatient.getId(), "meter-7");
+        mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper().writeValueAsString(reSent)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id", is(original.getId().intValue())));
+        assertEquals(1, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void deletePatient_shouldRemoveArchivedReadings() throws Exception {
+        readingArchivalJob.archiveBefore(YearMonth.of(2024, 3));
+
+        mockMvc.perform(delete("/api/patients/{id}", testPatient.getId()))
+                .andExpect(status().isNoContent());
+
+        long[] archivedPatients = readingArchive.patientIds(LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 2, 28, 0, 0));
+        for (long patientId : archivedPatients) {
+            assertFalse(patientId == testPatient.getId());
+        }
+    }
+
+    private static ObjectMapper objectMapper() {
+        return new ObjectMapper().registerModule(new JavaTimeModule());
+    }
+
+    private void saveReading(LocalDateTime timestamp, double level) {
+        BloodSugarReading reading = new BloodSugarReading(timestamp, level, "mg/dL");
+        reading.setPatient(testPatient);
+        bloodSugarReadingRepository.save(reading);
+    }
+}
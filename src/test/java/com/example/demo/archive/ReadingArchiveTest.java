@@ -0,0 +1,147 @@
+package com.example.demo.archive;
+
+import com.example.demo.patient.GlucoseUnit;
+import com.example.demo.patient.PatientDeletedEvent;
+import com.example.demo.patient.ReadingCursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingArchiveTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2024, 2);
+
+    @TempDir
+    Path directory;
+
+    private static ArchivedReading reading(long id, long patientId, LocalDateTime timestamp, int levelTenthsMgDl) {
+        return new ArchivedReading(id, patientId, timestamp, levelTenthsMgDl, GlucoseUnit.MG_DL, null, 0L);
+    }
+
+    private static List<Long> ids(List<ArchivedReading> readings) {
+        return readings.stream().map(ArchivedReading::id).toList();
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    void findPage_shouldReadAcrossMonthsInOrder() throws IOException {
+        ReadingArchive archive = new ReadingArchive(directory);
+        archive.merge(JANUARY, List.of(
+                reading(1, 7, LocalDateTime.of(2024, 1, 10, 8, 0), 1000),
+                reading(2, 7, LocalDateTime.of(2024, 1, 20, 8, 0), 1100),
+                reading(3, 8, LocalDateTime.of(2024, 1, 5, 8, 0), 1200)).iterator());
+        archive.merge(FEBRUARY, List.of(
+                new ArchivedReading(4L, 7L, LocalDateTime.of(2024, 2, 1, 8, 0), 1110, GlucoseUnit.MMOL_L, "meter-1", 3L)).iterator());
+
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), archive.archivedBefore());
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 12, 31, 0, 0);
+        assertEquals(List.of(1L, 2L, 4L), ids(archive.findPage(7L, start, null, end, 10)));
+        assertEquals(List.of(1L, 2L), ids(archive.findPage(7L, start, null, end, 2)));
+        assertEquals(List.of(4L), ids(archive.findPage(7L, start,
+                new ReadingCursor(LocalDateTime.of(2024, 1, 20, 8, 0), 2L), end, 10)));
+        assertEquals(List.of(3L), ids(archive.findPage(8L, start, null, end, 10)));
+        assertTrue(archive.findPage(9L, start, null, end, 10).isEmpty());
+
+        ArchivedReading february = archive.findPage(7L, LocalDateTime.of(2024, 2, 1, 0, 0), null, end, 1).get(0);
+        assertEquals(new ArchivedReading(4L, 7L, LocalDateTime.of(2024, 2, 1, 8, 0), 1110, GlucoseUnit.MMOL_L, "meter-1", 3L), february);
+        assertArrayEquals(new long[]{7, 8}, archive.patientIds(start, end));
+    }
+
+    @Test
+    void merge_shouldReplaceReadingsWithSameIdAndKeepOthers() throws IOException {
+        ReadingArchive archive = new ReadingArchive(directory);
+        archive.merge(JANUARY, List.of(
+                reading(1, 7, LocalDateTime.of(2024, 1, 10, 8, 0), 1000),
+                reading(2, 8, LocalDateTime.of(2024, 1, 11, 8, 0), 1100)).iterator());
+        archive.merge(JANUARY, List.of(
+                reading(1, 7, LocalDateTime.of(2024, 1, 10, 8, 0), 1500),
+                reading(5, 7, LocalDateTime.of(2024, 1, 9, 8, 0), 900),
+                reading(6, 9, LocalDateTime.of(2024, 1, 12, 8, 0), 1300)).iterator());
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 1, 31, 0, 0);
+        List<ArchivedReading> patient7 = archive.findPage(7L, start, null, end, 10);
+        assertEquals(List.of(5L, 1L), ids(patient7));
+        assertEquals(1500, patient7.get(1).levelTenthsMgDl());
+        assertEquals(List.of(2L), ids(archive.findPage(8L, start, null, end, 10)));
+        assertEquals(4, archive.readingCount(JANUARY));
+        // Only the newest generation is kept on disk
+        assertEquals(1, files().size());
+    }
+
+    @Test
+    void findPage_shouldSpanSegmentsAndSkipThoseOutsideRange() throws IOException {
+        ReadingArchive archive = new ReadingArchive(directory);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<ArchivedReading> readings = new ArrayList<>();
+        for (int i = 0; i < 3 * ArchivePartition.SEGMENT_SIZE; i++) {
+            readings.add(reading(i + 1, 7, start.plusMinutes(5L * i), 1000 + i % 50));
+        }
+        archive.merge(JANUARY, readings.iterator());
+
+        LocalDateTime from = readings.get(ArchivePartition.SEGMENT_SIZE - 2).timestamp();
+        List<ArchivedReading> page = archive.findPage(7L, from, null, LocalDateTime.of(2024, 1, 31, 0, 0), 5);
+        assertEquals(readings.subList(ArchivePartition.SEGMENT_SIZE - 2, ArchivePartition.SEGMENT_SIZE + 3), page);
+
+        List<ArchivedReading> window = new ArrayList<>();
+        archive.forEach(7L, readings.get(2500).timestamp(), readings.get(2600).timestamp(), window::add);
+        assertEquals(readings.subList(2500, 2601), window);
+        assertEquals(readings.size(), archive.readingCount(JANUARY));
+    }
+
+    @Test
+    void removeAndPatientDeletion_shouldRewriteAffectedMonths() throws IOException {
+        ReadingArchive archive = new ReadingArchive(directory);
+        archive.merge(JANUARY, List.of(
+                reading(1, 7, LocalDateTime.of(2024, 1, 10, 8, 0), 1000),
+                reading(2, 7, LocalDateTime.of(2024, 1, 11, 8, 0), 1000),
+                reading(3, 8, LocalDateTime.of(2024, 1, 12, 8, 0), 1000)).iterator());
+        archive.merge(FEBRUARY, List.of(reading(4, 8, LocalDateTime.of(2024, 2, 12, 8, 0), 1000)).iterator());
+
+        archive.remove(JANUARY, Map.of(7L, Set.of(2L)));
+        assertEquals(2, archive.readingCount(JANUARY));
+
+        archive.onPatientDeleted(new PatientDeletedEvent(8L));
+        assertEquals(1, archive.readingCount(JANUARY));
+        // A month left without readings is dropped altogether
+        assertEquals(Set.of(JANUARY), archive.months());
+        assertEquals(LocalDateTime.of(2024, 2, 1, 0, 0), archive.archivedBefore());
+    }
+
+    @Test
+    void open_shouldUseNewestGenerationAndDiscardLeftovers() throws IOException {
+        ReadingArchive archive = new ReadingArchive(directory);
+        archive.merge(JANUARY, List.of(reading(1, 7, LocalDateTime.of(2024, 1, 10, 8, 0), 1000)).iterator());
+        Path first = files().get(0);
+        archive.merge(JANUARY, List.of(reading(2, 7, LocalDateTime.of(2024, 1, 11, 8, 0), 1000)).iterator());
+        Path second = files().get(0);
+
+        // As if the process died after writing the new generation but before deleting the old one,
+        // and while staging the next
+        Files.copy(second, first);
+        Files.writeString(directory.resolve(second.getFileName() + ".tmp"), "partial");
+
+        ReadingArchive reopened = new ReadingArchive(directory);
+        assertEquals(2, reopened.readingCount(JANUARY));
+        assertEquals(List.of(second), files());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.archive;
+
+import com.example.demo.patient.GlucoseUnit;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingSegmentCodecTest {
+
+    private static List<ArchivedReading> decode(byte[] segment, long patientId, int count) {
+        List<ArchivedReading> readings = new ArrayList<>();
+        ReadingSegmentCodec.decode(ByteBuffer.wrap(segment), patientId, count, readings::add);
+        return readings;
+    }
+
+    @Test
+    void roundTrip_shouldRestoreIrregularReadings() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<ArchivedReading> readings = List.of(
+                new ArchivedReading(1L, 7L, start, 1000, GlucoseUnit.MG_DL, null, 0L),
+                new ArchivedReading(2L, 7L, start.plusMinutes(5), 1012, GlucoseUnit.MG_DL, "cgm-1", 0L),
+                new ArchivedReading(9L, 7L, start.plusMinutes(5).plusNanos(250_000_000), 991, GlucoseUnit.MMOL_L, "cgm-1", 2L),
+                new ArchivedReading(10L, 7L, start.plusDays(20), 4500, GlucoseUnit.MMOL_L, "meter-with-a-long-name", 2L),
+                new ArchivedReading(5_000_000_000L, 7L, start.plusDays(20).plusSeconds(1), 200, GlucoseUnit.MG_DL, null, 0L),
+                new ArchivedReading(5_000_000_001L, 7L, start.plusDays(20).plusSeconds(1), 200, GlucoseUnit.MG_DL, null, 0L));
+
+        byte[] segment = ReadingSegmentCodec.encode(readings);
+
+        assertEquals(readings, decode(segment, 7L, readings.size()));
+    }
+
+    @Test
+    void decode_shouldStopWhenActionDeclines() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<ArchivedReading> readings = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            readings.add(new ArchivedReading((long) i + 1, 7L, start.plusMinutes(5L * i), 1000 + i, GlucoseUnit.MG_DL, null, 0L));
+        }
+        List<ArchivedReading> seen = new ArrayList<>();
+
+        boolean completed = ReadingSegmentCodec.decode(ByteBuffer.wrap(ReadingSegmentCodec.encode(readings)), 7L,
+                readings.size(), reading -> seen.add(reading) && seen.size() < 3);
+
+        assertFalse(completed);
+        assertEquals(readings.subList(0, 3), seen);
+    }
+
+    @Test
+    void encode_shouldPackRegularCgmSeriesIntoFewBytesPerReading() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<ArchivedReading> readings = new ArrayList<>();
+        int level = 1200;
+        for (int i = 0; i < ArchivePartition.SEGMENT_SIZE; i++) {
+            level = Math.max(400, Math.min(4000, level + random.nextInt(-40, 41)));
+            readings.add(new ArchivedReading(1000L + 3 * i, 7L, start.plusMinutes(5L * i), level, GlucoseUnit.MG_DL, "cgm-1", 0L));
+        }
+
+        byte[] segment = ReadingSegmentCodec.encode(readings);
+
+        // A table row with its indexes takes well over 50 bytes
+        assertTrue(segment.length < 3 * readings.size(), "Encoded " + segment.length + " bytes");
+        assertEquals(readings, decode(segment, 7L, readings.size()));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.demo.cbor;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@Transactional
+@ActiveProfiles("test")
+class CborReadingsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+    }
+
+    private static byte[] encode(BloodSugarReadingDTO reading) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReadingCbor.write(reading, new CborWriter(out));
+        return out.toByteArray();
+    }
+
+    private static BloodSugarReadingDTO decode(byte[] bytes) throws IOException {
+        return ReadingCbor.read(new CborReader(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void getAllReadings_asCbor_shouldMatchJsonRepresentation() throws Exception {
+        BloodSugarReading reading1 = new BloodSugarReading(LocalDateTime.of(2024, 3, 1, 8, 0), 110.0, "mg/dL");
+        reading1.setPatient(testPatient);
+        bloodSugarReadingRepository.save(reading1);
+        BloodSugarReading reading2 = new BloodSugarReading(LocalDateTime.of(2024, 3, 1, 8, 5, 0, 500_000), 6.1, "mmol/L");
+        reading2.setPatient(testPatient);
+        bloodSugarReadingRepository.save(reading2);
+
+        byte[] cbor = mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        String json = mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<BloodSugarReadingDTO> fromCbor = ReadingCborTest.decode(cbor);
+        assertEquals(objectMapper.readValue(json, new TypeReference<List<BloodSugarReadingDTO>>() { }), fromCbor);
+        assertEquals(2, fromCbor.size());
+    }
+
+    @Test
+    void createReading_withCborBody_shouldStoreAndAnswerInCbor() throws Exception {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO(null, LocalDateTime.of(2024, 3, 1, 8, 0), 120.5,
+                "mg/dL", testPatient.getId(), "cgm-01");
+
+        byte[] response = mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(encode(reading)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        BloodSugarReadingDTO created = decode(response);
+        reading.setId(created.getId());
+        assertEquals(reading, created);
+        assertEquals(120.5, bloodSugarReadingRepository.findById(created.getId()).orElseThrow().getLevel(), 0.001);
+    }
+
+    @Test
+    void createReading_withMalformedOrInvalidCborBody_shouldReturnBadRequest() throws Exception {
+        BloodSugarReadingDTO negative = new BloodSugarReadingDTO(null, LocalDateTime.of(2024, 3, 1, 8, 0), -1.0,
+                "mg/dL", testPatient.getId());
+
+        // A map announcing one entry that ends after the key
+        mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(new byte[]{(byte) 0xa1, 0x01}))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(encode(negative)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors", hasSize(1)));
+    }
+
+    @Test
+    void createReadings_withCborBatch_shouldIngestAll() throws Exception {
+        List<BloodSugarReadingDTO> readings = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        for (int i = 0; i < 60; i++) {
+            readings.add(new BloodSugarReadingDTO(null, start.plusMinutes(5L * i), 100.0 + i % 30, "mg/dL", testPatient.getId()));
+        }
+        readings.add(new BloodSugarReadingDTO(null, start, 2000.0, "mg/dL", testPatient.getId()));
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(ReadingCborTest.encode(readings)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(60)))
+                .andExpect(jsonPath("$.rejected[0].index", is(60)));
+
+        assertEquals(60, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.cbor;
+
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingCborTest {
+
+    // Dates as text, as Spring Boot configures the application's mapper
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    static byte[] encode(List<BloodSugarReadingDTO> readings) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReadingCbor.writeList(readings, new CborWriter(out));
+        return out.toByteArray();
+    }
+
+    static List<BloodSugarReadingDTO> decode(byte[] bytes) throws IOException {
+        return ReadingCbor.readList(new CborReader(new ByteArrayInputStream(bytes)));
+    }
+
+    private static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex.replace(" ", ""));
+    }
+
+    @Test
+    void readingList_shouldRoundTripAgainstJsonRepresentation() throws IOException {
+        String json = """
+                [{"id":1,"timestamp":"2024-03-01T08:00:00","level":110.0,"unit":"mg/dL","patientId":7,"deviceId":"cgm-01"},
+                 {"id":2,"timestamp":"2024-03-01T08:05:30.25","level":6.1,"unit":"mmol/L","patientId":7},
+                 {"id":3,"timestamp":"1969-12-31T23:59:59.000000001","level":95.55,"unit":"mg/dL","patientId":7},
+                 {"id":4,"timestamp":"2024-03-01T08:10:00","level":1000.0,"unit":"mg/dL","patientId":9007199254740993},
+                 {"level":0.1}]""";
+        TypeReference<List<BloodSugarReadingDTO>> type = new TypeReference<>() { };
+        List<BloodSugarReadingDTO> fromJson = objectMapper.readValue(json, type);
+
+        byte[] cbor = encode(fromJson);
+        List<BloodSugarReadingDTO> fromCbor = decode(cbor);
+
+        assertEquals(fromJson, fromCbor);
+        assertEquals(objectMapper.readTree(json), objectMapper.readTree(objectMapper.writeValueAsString(fromCbor)));
+    }
+
+    @Test
+    void readingList_shouldBeAboutAThirdOfJson() throws IOException {
+        List<BloodSugarReadingDTO> readings = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        for (int i = 0; i < 288; i++) {
+            readings.add(new BloodSugarReadingDTO(1_000L + i, start.plusMinutes(5L * i), 90.0 + i % 80 / 10.0, "mg/dL", 7L));
+        }
+
+        byte[] cbor = encode(readings);
+
+        assertEquals(readings, decode(cbor));
+        // About 30 bytes a reading against 88
+        assertTrue(cbor.length * 5 < objectMapper.writeValueAsBytes(readings).length * 2);
+    }
+
+    @Test
+    void reading_shouldUsePreferredSerializationAndStandardTimeTags() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReadingCbor.write(new BloodSugarReadingDTO(1L, LocalDateTime.of(2024, 3, 1, 8, 0), 110.0, "mg/dL", 7L),
+                new CborWriter(out));
+
+        // {1: 1, 2: 1(1709280000), 3: 110.0 as half float, 4: "mg/dL", 5: 7}
+        assertEquals("a5 01 01 02 c1 1a65e18b00 03 f956e0 04 656d672f644c 05 07".replace(" ", ""),
+                HexFormat.of().formatHex(out.toByteArray()));
+    }
+
+    @Test
+    void reading_shouldAcceptIndefiniteLengthsTextTimestampsAndUnknownKeys() throws IOException {
+        // [_ {_ "level": 110 (int), "extra": [_ 1, h'00'], 9: "x", "timestamp": "2024-03-01T08:00:00Z", 4: null}]
+        byte[] bytes = hex("9f bf 656c6576656c 186e 656578747261 9f 01 41 00 ff 09 6178"
+                + " 6974696d657374616d70 74 323032342d30332d30315430383a30303a30305a 04 f6 ff ff");
+
+        List<BloodSugarReadingDTO> readings = decode(bytes);
+
+        assertEquals(List.of(new BloodSugarReadingDTO(null, LocalDateTime.of(2024, 3, 1, 8, 0), 110.0, null, null)),
+                readings);
+    }
+
+    @Test
+    void reading_withExtendedTimeInMilliseconds_shouldDecode() throws IOException {
+        // [{2: 1001({1: 1709280000, -3: 250})}]
+        byte[] bytes = hex("81 a1 02 d903e9 a2 01 1a65e18b00 22 18fa");
+
+        assertEquals(LocalDateTime.of(2024, 3, 1, 8, 0, 0, 250_000_000), decode(bytes).get(0).getTimestamp());
+    }
+
+    @Test
+    void malformedInput_shouldBeRejected() {
+        // Truncated, wrong type for a field, out-of-range fraction, nesting beyond the skip limit
+        assertThrows(EOFException.class, () -> decode(hex("81 a1 01")));
+        assertThrows(IllegalArgumentException.class, () -> decode(hex("81 a1 01 6131")));
+        assertThrows(IllegalArgumentException.class, () -> decode(hex("81 a1 02 d903e9 a2 01 00 22 1a000f4240")));
+        assertThrows(IllegalArgumentException.class, () -> decode(hex("81 a1 6178" + "81".repeat(40) + "00")));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.concurrency;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestBulkheadTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestBulkhead bulkhead;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bulkhead = new RequestBulkhead(1, Duration.ofMillis(10), 2, 0, meterRegistry);
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void constructor_whenPermitsCouldExhaustThePool_shouldFail() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RequestBulkhead(7, Duration.ofMillis(10), 20, 8, meterRegistry));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RequestBulkhead(40, Duration.ofMillis(10), 20, 0, meterRegistry));
+    }
+
+    @Test
+    void constructor_withShippedConfiguration_shouldLeaveTheReservedConnectionsFree() throws IOException {
+        Properties properties = PropertiesLoaderUtils.loadAllProperties("application.properties");
+        int maxConcurrent = Integer.parseInt(properties.getProperty("api.bulkhead.max-concurrent"));
+        int poolSize = Integer.parseInt(properties.getProperty("spring.datasource.hikari.maximum-pool-size"));
+        int reserved = Integer.parseInt(properties.getProperty("api.bulkhead.reserved-connections"));
+        int exportWorkers = Integer.parseInt(properties.getProperty("readings.cohort-export.workers"));
+
+        // Drainer (with its alert transaction), archival job, export workers
+        assertTrue(reserved >= 2 + 1 + exportWorkers);
+        assertTrue(maxConcurrent * RequestBulkhead.CONNECTIONS_PER_REQUEST + reserved <= poolSize);
+        assertEquals("false", properties.getProperty("spring.jpa.open-in-view"));
+        new RequestBulkhead(maxConcurrent, Duration.ofMillis(10), poolSize, reserved, meterRegistry);
+    }
+
+    @Test
+    void preHandle_whenFull_shouldRejectAfterTimeout() {
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        assertTrue(bulkhead.preHandle(first, response, null));
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> bulkhead.preHandle(new MockHttpServletRequest(), response, null));
+        assertEquals(1.0, meterRegistry.get("http.server.bulkhead.rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("http.server.bulkhead.active").gauge().value());
+    }
+
+    @Test
+    void afterCompletion_shouldReleasePermitOnce() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        bulkhead.preHandle(request, response, null);
+
+        bulkhead.afterCompletion(request, response, null, null);
+        bulkhead.afterCompletion(request, response, null, null);
+
+        assertEquals(1, bulkhead.availablePermits());
+        assertTrue(bulkhead.preHandle(new MockHttpServletRequest(), response, null));
+    }
+
+    @Test
+    void preHandle_onAsyncRedispatch_shouldKeepOriginalPermit() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        bulkhead.preHandle(request, response, null);
+
+        // Same request dispatched again after async processing finished
+        assertTrue(bulkhead.preHandle(request, response, null));
+        assertEquals(0, bulkhead.availablePermits());
+
+        bulkhead.afterCompletion(request, response, null, null);
+        assertEquals(1, bulkhead.availablePermits());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.concurrency;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares platform and virtual request threads under 2k concurrent batch uploads against a real Tomcat.
+ * Excluded from the default build; run with {@code mvn test -Dgroups=load -Dtest.excludedGroups=}.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+    private static final int CONCURRENT_UPLOADS = 2_000;
+    private static final int READINGS_PER_UPLOAD = 10;
+    private static final int PATIENTS = 50;
+
+    private record LoadResult(String mode, int succeeded, double uploadsPerSecond, Duration p99) {
+    }
+
+    @Test
+    void compareThroughputAndP99_platformVersusVirtualThreads() throws Exception {
+        LoadResult platform = run(false);
+        LoadResult virtual = run(true);
+
+        for (LoadResult result : List.of(platform, virtual)) {
+            log.info("{} threads: {} uploads ok, {} uploads/s, p99 {} ms", result.mode(), result.succeeded(),
+                    String.format("%.1f", result.uploadsPerSecond()), result.p99().toMillis());
+        }
+        assertEquals(CONCURRENT_UPLOADS, platform.succeeded());
+        assertEquals(CONCURRENT_UPLOADS, virtual.succeeded());
+    }
+
+    private LoadResult run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(DemoApplication.class)
+                .profiles(virtualThreads ? new String[] {"test", "virtual-threads"} : new String[] {"test"});
+        // Command-line arguments, so they win over application.properties
+        String[] args = {
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+                // Let the bulkhead queue every upload instead of shedding load mid-measurement
+                "--api.bulkhead.acquire-timeout=120s",
+                "--server.tomcat.accept-count=" + CONCURRENT_UPLOADS,
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.demo.concurrency=INFO"
+        };
+
+        try (ConfigurableApplicationContext context = builder.run(args)) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            PatientRepository patientRepository = context.getBean(PatientRepository.class);
+            long[] patientIds = new long[PATIENTS];
+            for (int i = 0; i < PATIENTS; i++) {
+                patientIds[i] = patientRepository.save(new Patient("Load", "Patient" + i, LocalDate.of(1980, 1, 1))).getId();
+            }
+            return upload(mode, port, patientIds);
+        }
+    }
+
+    private LoadResult upload(String mode, int port, long[] patientIds) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> uploads = new ArrayList<>(CONCURRENT_UPLOADS);
+        long began;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENT_UPLOADS; i++) {
+                long patientId = patientIds[i % patientIds.length];
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/api/patients/" + patientId + "/readings:batch"))
+                        .timeout(Duration.ofMinutes(2))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(batchJson(patientId, i)))
+                        .build();
+                uploads.add(clients.submit(() -> {
+                    start.await();
+                    long sent = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        log.warn("{} threads: upload failed with status {}", mode, response.statusCode());
+                        return -1L;
+                    }
+                    return System.nanoTime() - sent;
+                }));
+            }
+            began = System.nanoTime();
+            start.countDown();
+        }
+        double elapsedSeconds = (System.nanoTime() - began) / 1e9;
+
+        long[] latencies = new long[CONCURRENT_UPLOADS];
+        int succeeded = 0;
+        for (Future<Long> upload : uploads) {
+            long latency = upload.get();
+            if (latency >= 0) {
+                latencies[succeeded++] = latency;
+            }
+        }
+        Arrays.sort(latencies, 0, succeeded);
+        long p99 = succeeded == 0 ? 0 : latencies[Math.max(0, (int) Math.ceil(succeeded * 0.99) - 1)];
+        return new LoadResult(mode, succeeded, succeeded / elapsedSeconds, Duration.ofNanos(p99));
+    }
+
+    private static String batchJson(long patientId, int upload) {
+        LocalDateTime start = LocalDateTime.now().minusDays(1).plusSeconds(upload);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < READINGS_PER_UPLOAD; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"timestamp\":\"").append(start.plusMinutes(5L * i))
+                    .append("\",\"level\":").append(90 + (upload + i) % 90)
+                    .append(",\"unit\":\"mg/dL\",\"patientId\":").append(patientId).append('}');
+        }
+        return json.append(']').toString();
+    }
+}
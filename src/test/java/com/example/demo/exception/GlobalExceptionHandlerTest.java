@@ -13,7 +13,6 @@ import org.springframework.web.context.request.WebRequest;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -50,16 +49,14 @@ class GlobalExceptionHandlerTest {
         assertNotNull(response);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         
-        @SuppressWarnings("unchecked")
-        java.util.Map<String, Object> body = (java.util.Map<String, Object>) response.getBody();
+        ErrorBody body = (ErrorBody) response.getBody();
         assertNotNull(body);
         
-        assertEquals(status.value(), body.get("status"));
-        assertEquals("Validation failed", body.get("error"));
-        assertTrue(body.containsKey("timestamp"));
+        assertEquals(status.value(), body.status());
+        assertEquals("Validation failed", body.error());
+        assertNotNull(body.timestamp());
         
-        @SuppressWarnings("unchecked")
-        List<String> errors = (List<String>) body.get("errors");
+        List<String> errors = body.errors();
         assertNotNull(errors);
         assertEquals(2, errors.size());
         assertTrue(errors.contains("must not be null"));
@@ -79,14 +76,13 @@ class GlobalExceptionHandlerTest {
         assertNotNull(response);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         
-        @SuppressWarnings("unchecked")
-        java.util.Map<String, Object> body = (java.util.Map<String, Object>) response.getBody();
+        ErrorBody body = (ErrorBody) response.getBody();
         assertNotNull(body);
         
-        assertEquals(HttpStatus.NOT_FOUND.value(), body.get("status"));
-        assertEquals("Resource Not Found", body.get("error"));
-        assertEquals(errorMessage, body.get("message"));
-        assertTrue(body.containsKey("timestamp"));
+        assertEquals(HttpStatus.NOT_FOUND.value(), body.status());
+        assertEquals("Resource Not Found", body.error());
+        assertEquals(errorMessage, body.message());
+        assertNotNull(body.timestamp());
     }
 
     @Test
@@ -102,14 +98,13 @@ class GlobalExceptionHandlerTest {
         assertNotNull(response);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         
-        @SuppressWarnings("unchecked")
-        java.util.Map<String, Object> body = (java.util.Map<String, Object>) response.getBody();
+        ErrorBody body = (ErrorBody) response.getBody();
         assertNotNull(body);
         
-        assertEquals(HttpStatus.BAD_REQUEST.value(), body.get("status"));
-        assertEquals("Bad Request", body.get("error"));
-        assertEquals(errorMessage, body.get("message"));
-        assertTrue(body.containsKey("timestamp"));
+        assertEquals(HttpStatus.BAD_REQUEST.value(), body.status());
+        assertEquals("Bad Request", body.error());
+        assertEquals(errorMessage, body.message());
+        assertNotNull(body.timestamp());
     }
 
     @Test
@@ -125,13 +120,12 @@ class GlobalExceptionHandlerTest {
         assertNotNull(response);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         
-        @SuppressWarnings("unchecked")
-        Map<String, Object> body = (Map<String, Object>) response.getBody();
+        ErrorBody body = (ErrorBody) response.getBody();
         assertNotNull(body);
         
-        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), body.get("status"));
-        assertEquals("Internal Server Error", body.get("error"));
-        assertEquals("An unexpected error occurred", body.get("message"));
-        assertTrue(body.containsKey("timestamp"));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), body.status());
+        assertEquals("Internal Server Error", body.error());
+        assertEquals("An unexpected error occurred", body.message());
+        assertNotNull(body.timestamp());
     }
 }
@@ -0,0 +1,25 @@
+package com.example.demo.exception;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogRateLimiterTest {
+
+    @Test
+    void tryAcquire_shouldHoldBackLinesOverTheLimitAndReportThem() {
+        long[] now = {0};
+        LogRateLimiter limiter = new LogRateLimiter(2, Duration.ofSeconds(1), () -> now[0]);
+
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+
+        now[0] = Duration.ofSeconds(1).toNanos();
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResourceNotFoundExceptionTest {
+
+    @Test
+    void resourceNotFoundException_shouldSkipStackTraceAndFormatMessageOnRead() {
+        ResourceNotFoundException ex = new ResourceNotFoundException("Patient", "id", 999L);
+
+        assertEquals(0, ex.getStackTrace().length);
+        assertEquals("Patient not found with id : '999'", ex.getMessage());
+    }
+
+    @Test
+    void resourceNotFoundException_withMessage_shouldKeepIt() {
+        assertEquals("Reading missing", new ResourceNotFoundException("Reading missing").getMessage());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.demo.export;
+
+import com.example.demo.archive.ArchivedReading;
+import com.example.demo.archive.ReadingArchive;
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.GlucoseUnit;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the workers read the readings on their own threads and connections
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@ActiveProfiles("test")
+class CohortExportJobTest {
+
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void exportProperties(DynamicPropertyRegistry registry) {
+        registry.add("readings.cohort-export.enabled", () -> "true");
+        registry.add("readings.cohort-export.dir", () -> directory.resolve("export").toString());
+        registry.add("readings.cohort-export.partition-size", () -> "2");
+        registry.add("readings.cohort-export.workers", () -> "3");
+        registry.add("readings.archive.dir", () -> directory.resolve("archive").toString());
+    }
+
+    @Autowired
+    private CohortExportJob cohortExportJob;
+
+    @Autowired
+    private ReadingArchive readingArchive;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    private final List<Patient> patients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        for (int p = 0; p < 5; p++) {
+            Patient patient = patientRepository.save(new Patient("Cohort" + p, "Patient", LocalDate.of(1990, 1, 1)));
+            patients.add(patient);
+            // Stored out of order, exported in order
+            saveReading(patient, LocalDateTime.of(2024, 3, 2, 8, 0), 100.0 + p);
+            saveReading(patient, LocalDateTime.of(2024, 3, 1, 8, 0), 90.0 + p);
+        }
+    }
+
+    private void saveReading(Patient patient, LocalDateTime timestamp, double level) {
+        BloodSugarReading reading = new BloodSugarReading(timestamp, level, "mg/dL");
+        reading.setPatient(patient);
+        bloodSugarReadingRepository.save(reading);
+    }
+
+    private static List<String> lines(Path segment) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(segment))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    private List<String> exportedRows(Path runDirectory, CohortExportManifest manifest) throws IOException {
+        List<String> rows = new ArrayList<>();
+        for (CohortExportManifest.Partition partition : manifest.partitions()) {
+            List<String> lines = lines(runDirectory.resolve(partition.file()));
+            assertEquals(CohortSegmentWriter.HEADER.strip(), lines.get(0));
+            assertEquals(partition.rows(), lines.size() - 1);
+            rows.addAll(lines.subList(1, lines.size()));
+        }
+        return rows;
+    }
+
+    @Test
+    void run_shouldWriteSortedSegmentsPerPatientRangeAndManifest() throws IOException {
+        // One patient's January is archived, with a late reading of January still in the table
+        Patient archived = patients.get(2);
+        readingArchive.merge(YearMonth.of(2024, 1), List.of(
+                new ArchivedReading(900_000L, archived.getId(), LocalDateTime.of(2024, 1, 5, 8, 0), 800,
+                        GlucoseUnit.MG_DL, null, 0L)).iterator());
+        saveReading(archived, LocalDateTime.of(2024, 1, 6, 8, 0), 85.0);
+
+        CohortExportManifest manifest = cohortExportJob.run();
+
+        assertNotNull(manifest.completedAt());
+        assertEquals(3, manifest.partitions().size());
+        assertEquals(12, manifest.rows());
+        assertTrue(manifest.rowsPerSecond() > 0);
+        assertTrue(manifest.partitions().stream().allMatch(CohortExportManifest.Partition::done));
+
+        Path runDirectory = directory.resolve("export").resolve(manifest.runId());
+        assertEquals(manifest, objectMapper.readValue(runDirectory.resolve("manifest.json").toFile(), CohortExportManifest.class));
+        List<String> rows = exportedRows(runDirectory, manifest);
+        assertEquals(12, rows.size());
+        List<String> levelsOfArchived = rows.stream()
+                .filter(row -> row.startsWith(archived.getId() + ","))
+                .map(row -> row.split(",")[3])
+                .toList();
+        assertEquals(List.of("80.0", "85.0", "92.0", "102.0"), levelsOfArchived);
+        assertTrue(rows.get(0).startsWith(patients.get(0).getId() + ","));
+        assertTrue(rows.get(0).contains(",2024-03-01T08:00:00,90.0,mg/dL,"));
+    }
+
+    @Test
+    void run_shouldResumeUnfinishedRunRedoingOnlyMissingPartitions() throws IOException {
+        CohortExportManifest finished = cohortExportJob.run();
+        Path runDirectory = directory.resolve("export").resolve(finished.runId());
+        CohortExportManifest.Partition lost = finished.partitions().get(1);
+        Path kept = runDirectory.resolve(finished.partitions().get(0).file());
+        FileTime keptModified = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(kept, keptModified);
+
+        // As if the job died while the second partition was being written
+        CohortExportManifest interrupted = new CohortExportManifest(finished.runId(), finished.startedAt(), null, null,
+                finished.attempts(), 0, 0, finished.partitions()).withPartition(new CohortExportManifest.Partition(lost.index(),
+                lost.firstPatientId(), lost.endPatientId(), lost.file(), 0, 0, false));
+        objectMapper.writeValue(runDirectory.resolve("manifest.json").toFile(), interrupted);
+        Files.delete(runDirectory.resolve(lost.file()));
+
+        CohortExportManifest resumed = cohortExportJob.run();
+
+        assertEquals(finished.runId(), resumed.runId());
+        assertEquals(finished.partitions(), resumed.partitions());
+        assertEquals(10, resumed.rows());
+        assertEquals(keptModified, Files.getLastModifiedTime(kept));
+        assertEquals(10, exportedRows(runDirectory, resumed).size());
+    }
+
+    @Test
+    void run_whenUnfinishedRunUsedUpItsAttempts_shouldMarkItFailedAndPlanANewRun() throws IOException {
+        CohortExportManifest finished = cohortExportJob.run();
+        Path runDirectory = directory.resolve("export").resolve(finished.runId());
+        CohortExportManifest.Partition stuck = finished.partitions().get(1);
+
+        // As if the second partition had failed on every attempt
+        CohortExportManifest exhausted = new CohortExportManifest(finished.runId(), finished.startedAt(), null, null,
+                3, 0, 0, finished.partitions()).withPartition(new CohortExportManifest.Partition(stuck.index(),
+                stuck.firstPatientId(), stuck.endPatientId(), stuck.file(), 0, 0, false));
+        objectMapper.writeValue(runDirectory.resolve("manifest.json").toFile(), exhausted);
+
+        CohortExportManifest next = cohortExportJob.run();
+
+        assertNotEquals(finished.runId(), next.runId());
+        assertNotNull(next.completedAt());
+        assertEquals(1, next.attempts());
+        assertEquals(10, next.rows());
+        CohortExportManifest abandoned = objectMapper.readValue(runDirectory.resolve("manifest.json").toFile(),
+                CohortExportManifest.class);
+        assertNotNull(abandoned.failedAt());
+        assertNull(abandoned.completedAt());
+    }
+}
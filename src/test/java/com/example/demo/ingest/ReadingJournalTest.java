@@ -0,0 +1,108 @@
+package com.example.demo.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingJournalTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 1, 1, 8, 0, 0, 123_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_shouldBeReadableInSequenceOrder() throws IOException {
+        try (ReadingJournal journal = new ReadingJournal(directory, 4, false)) {
+            assertEquals(1, journal.append(7L, TIMESTAMP, 120.5, (byte) 0, null, null, 1000L));
+            assertEquals(2, journal.append(8L, TIMESTAMP.plusMinutes(5), 6.4, (byte) 1, "meter-1", "upload-42", 2000L));
+
+            List<JournalEntry> entries = journal.read(1, 10);
+            assertEquals(List.of(
+                    new JournalEntry(1, 7L, TIMESTAMP, 120.5, (byte) 0, null, null, 1000L),
+                    new JournalEntry(2, 8L, TIMESTAMP.plusMinutes(5), 6.4, (byte) 1, "meter-1", "upload-42", 2000L)), entries);
+            assertEquals(1, journal.read(2, 10).size());
+            assertTrue(journal.read(3, 10).isEmpty());
+        }
+    }
+
+    @Test
+    void reopen_shouldRecoverAppendsAcrossSegments() throws IOException {
+        try (ReadingJournal journal = new ReadingJournal(directory, 4, false)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(1L, TIMESTAMP.plusMinutes(i), 100 + i, (byte) 0, null, null, i);
+            }
+        }
+        assertEquals(3, segmentCount());
+
+        try (ReadingJournal journal = new ReadingJournal(directory, 4, false)) {
+            assertEquals(10, journal.lastSequence());
+            assertEquals(109.0, journal.read(10, 1).get(0).level());
+            assertEquals(11, journal.append(1L, TIMESTAMP, 50, (byte) 0, null, null, 0));
+        }
+    }
+
+    @Test
+    void reopen_shouldIgnoreTornRecord() throws IOException {
+        try (ReadingJournal journal = new ReadingJournal(directory, 4, false)) {
+            journal.append(1L, TIMESTAMP, 100, (byte) 0, null, null, 0);
+            journal.append(1L, TIMESTAMP.plusMinutes(5), 110, (byte) 0, null, null, 0);
+        }
+        // Half-written second record: its sequence landed but the rest did not
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8), ReadingJournal.RECORD_SIZE + 16);
+        }
+
+        try (ReadingJournal journal = new ReadingJournal(directory, 4, false)) {
+            assertEquals(1, journal.lastSequence());
+            assertEquals(2, journal.append(1L, TIMESTAMP.plusMinutes(5), 110, (byte) 0, null, null, 0));
+        }
+    }
+
+    @Test
+    void releaseUpTo_shouldDeleteFullyDrainedSegments() throws IOException {
+        try (ReadingJournal journal = new ReadingJournal(directory, 4, false)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(1L, TIMESTAMP.plusMinutes(i), 100, (byte) 0, null, null, 0);
+            }
+
+            journal.releaseUpTo(6);
+            assertEquals(2, segmentCount());
+            assertEquals(5, journal.read(5, 1).get(0).sequence());
+
+            journal.releaseUpTo(10);
+            assertEquals(1, segmentCount());
+        }
+    }
+
+    @Test
+    void startAfter_shouldContinueNumberingAfterCheckpoint() throws IOException {
+        try (ReadingJournal journal = new ReadingJournal(directory, 4, false)) {
+            journal.startAfter(41);
+
+            assertEquals(42, journal.append(1L, TIMESTAMP, 100, (byte) 0, null, null, 0));
+            assertEquals(42, journal.read(42, 1).get(0).sequence());
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.ingest;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingBatchService;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: readings are stored by the drainer thread in its own transactions
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WriteBehindIngestionTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void writeBehindProperties(DynamicPropertyRegistry registry) {
+        registry.add("readings.write-behind.enabled", () -> "true");
+        registry.add("readings.write-behind.journal-dir", () -> journalDirectory.resolve("live").toString());
+        registry.add("readings.write-behind.retry-interval", () -> "20ms");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WriteBehindIngestor writeBehindIngestor;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    @Autowired
+    private BloodSugarReadingBatchService bloodSugarReadingBatchService;
+
+    @Autowired
+    private ReadingJournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper objectMapper;
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+    }
+
+    @Test
+    void createReading_shouldAcceptAndStoreInBackground() throws Exception {
+        BloodSugarReadingDTO readingDTO =
+                new BloodSugarReadingDTO(null, LocalDateTime.of(2024, 1, 1, 8, 0), 6.4, "mmol/L", testPatient.getId());
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(readingDTO)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.level", is(6.4)));
+
+        List<BloodSugarReading> stored = awaitReadings(1);
+        assertEquals(6.4, stored.get(0).getLevel());
+        assertEquals("mmol/L", stored.get(0).getUnit());
+        assertEquals(0, writeBehindIngestor.depth());
+    }
+
+    @Test
+    void createReading_withInvalidReading_shouldBeRejectedBeforeJournaling() throws Exception {
+        BloodSugarReadingDTO readingDTO =
+                new BloodSugarReadingDTO(null, LocalDateTime.of(2024, 1, 1, 8, 0), -5.0, "mg/dL", testPatient.getId());
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(readingDTO)))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, writeBehindIngestor.depth());
+    }
+
+    @Test
+    void start_shouldReplayRecordsLeftByPreviousRun() throws Exception {
+        writeBehindIngestor.stop();
+        Path crashedJournal = journalDirectory.resolve("crashed");
+        try {
+            // A previous process journaled two readings and crashed before draining them
+            long checkpoint = checkpointRepository.findById(ReadingJournalCheckpoint.JOURNAL_ID)
+                    .map(ReadingJournalCheckpoint::getLastSequence)
+                    .orElse(0L);
+            try (ReadingJournal journal = new ReadingJournal(crashedJournal, 16, false)) {
+                journal.startAfter(checkpoint);
+                journal.append(testPatient.getId(), LocalDateTime.of(2024, 1, 1, 8, 0), 101, (byte) 0, null, null, 0);
+                journal.append(testPatient.getId(), LocalDateTime.of(2024, 1, 1, 8, 5), 102, (byte) 0, null, null, 0);
+            }
+
+            WriteBehindIngestor restarted = newIngestor(crashedJournal);
+            restarted.start();
+            try {
+                assertEquals(List.of(101.0, 102.0), awaitReadings(2).stream().map(BloodSugarReading::getLevel).sorted().toList());
+            } finally {
+                restarted.stop();
+                restarted.close();
+            }
+
+            // Everything was checkpointed, so a second restart stores nothing again
+            WriteBehindIngestor again = newIngestor(crashedJournal);
+            assertEquals(0, again.depth());
+            again.close();
+        } finally {
+            writeBehindIngestor.start();
+        }
+    }
+
+    @Test
+    void drain_whenReadingIsRejected_shouldSetItAsideAndStoreTheRest() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        saveReading(start, "meter-1", "key-1");
+        saveReading(start.plusMinutes(5), "meter-1", "key-2");
+
+        writeBehindIngestor.stop();
+        Path rejectedJournal = journalDirectory.resolve("rejected");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try {
+            long checkpoint = checkpointRepository.findById(ReadingJournalCheckpoint.JOURNAL_ID)
+                    .map(ReadingJournalCheckpoint::getLastSequence)
+                    .orElse(0L);
+            try (ReadingJournal journal = new ReadingJournal(rejectedJournal, 16, false)) {
+                journal.startAfter(checkpoint);
+                // A retry of the first reading under a new key: stored once
+                journal.append(testPatient.getId(), start, 101, (byte) 0, "meter-1", "key-3", 0);
+                // The first reading's key with the second reading's device timestamp: rejected
+                journal.append(testPatient.getId(), start.plusMinutes(5), 102, (byte) 0, "meter-1", "key-1", 0);
+                journal.append(testPatient.getId(), start.plusMinutes(10), 103, (byte) 0, null, null, 0);
+            }
+
+            WriteBehindIngestor restarted = newIngestor(rejectedJournal, meterRegistry);
+            restarted.start();
+            try {
+                awaitReadings(3);
+                long deadline = System.currentTimeMillis() + 5000;
+                while (restarted.depth() > 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                }
+                assertEquals(0, restarted.depth());
+            } finally {
+                restarted.stop();
+                restarted.close();
+            }
+            assertEquals(1.0, meterRegistry.get("readings.write.behind.set.aside").counter().count());
+            assertEquals(List.of(100.0, 100.0, 103.0),
+                    bloodSugarReadingRepository.findByPatientId(testPatient.getId()).stream()
+                            .map(BloodSugarReading::getLevel).sorted().toList());
+        } finally {
+            writeBehindIngestor.start();
+        }
+    }
+
+    private void saveReading(LocalDateTime timestamp, String deviceId, String idempotencyKey) {
+        BloodSugarReading reading = new BloodSugarReading(timestamp, 100.0, "mg/dL");
+        reading.setPatient(testPatient);
+        reading.setDeviceId(deviceId);
+        reading.setIdempotencyKey(idempotencyKey);
+        bloodSugarReadingRepository.save(reading);
+    }
+
+    private WriteBehindIngestor newIngestor(Path directory) throws IOException {
+        return newIngestor(directory, new SimpleMeterRegistry());
+    }
+
+    private WriteBehindIngestor newIngestor(Path directory, SimpleMeterRegistry meterRegistry) throws IOException {
+        return new WriteBehindIngestor(bloodSugarReadingBatchService, patientRepository, checkpointRepository,
+                transactionManager, meterRegistry, directory, 16, false, 500, 1000, Duration.ofMillis(20));
+    }
+
+    private List<BloodSugarReading> awaitReadings(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<BloodSugarReading> readings = bloodSugarReadingRepository.findByPatientId(testPatient.getId());
+        while (readings.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            readings = bloodSugarReadingRepository.findByPatientId(testPatient.getId());
+        }
+        assertEquals(expected, readings.size());
+        return readings;
+    }
+}
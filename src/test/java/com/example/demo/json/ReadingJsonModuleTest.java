@@ -0,0 +1,111 @@
+package com.example.demo.json;
+
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.PatientDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingJsonModuleTest {
+
+    // The application's Jackson setup, without and with the fast path; Spring Boot writes dates as text
+    private final ObjectMapper defaultMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final ObjectMapper fastMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new ReadingJsonModule())
+            .build();
+
+    private static final List<BloodSugarReadingDTO> READINGS = List.of(
+            new BloodSugarReadingDTO(1L, LocalDateTime.of(2024, 3, 1, 8, 0), 110.0, "mg/dL", 7L, "cgm-01"),
+            new BloodSugarReadingDTO(2L, LocalDateTime.of(2024, 3, 1, 8, 5, 30, 250_000_000), 6.1, "mmol/L", 7L),
+            new BloodSugarReadingDTO(3L, LocalDateTime.of(2024, 3, 2, 0, 0, 0, 1_000), 95.5, "mg/dL", 7L),
+            new BloodSugarReadingDTO(null, LocalDateTime.of(1999, 12, 31, 23, 59, 59, 999_999_999), 80.0, null, null),
+            new BloodSugarReadingDTO(4L, null, null, "mg/dL", 7L));
+
+    @Test
+    void readings_shouldSerializeExactlyLikeBeanSerializer() throws IOException {
+        TypeReference<List<BloodSugarReadingDTO>> type = new TypeReference<>() { };
+
+        String expected = defaultMapper.writerFor(type).writeValueAsString(READINGS);
+        assertEquals(expected, fastMapper.writerFor(type).writeValueAsString(READINGS));
+        assertEquals(READINGS, fastMapper.readValue(expected, type));
+    }
+
+    @Test
+    void patients_shouldSerializeExactlyLikeBeanSerializer() throws IOException {
+        List<PatientDTO> patients = List.of(
+                new PatientDTO(7L, "Ada", "Lovelace", LocalDate.of(1815, 12, 10), READINGS),
+                new PatientDTO(8L, "Grace \"Amazing\"", "Hopper", LocalDate.of(1906, 12, 9), List.of()),
+                new PatientDTO(9L, "Alan", "Turing", null, null));
+
+        for (PatientDTO patient : patients) {
+            assertEquals(defaultMapper.writeValueAsString(patient), fastMapper.writeValueAsString(patient));
+        }
+    }
+
+    @Test
+    void readings_withDatesAsTimestamps_shouldFollowConfiguredShape() throws IOException {
+        ObjectMapper defaultNumeric = defaultMapper.copy().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ObjectMapper fastNumeric = fastMapper.copy().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        PatientDTO patient = new PatientDTO(7L, "Ada", "Lovelace", LocalDate.of(1815, 12, 10), READINGS);
+
+        assertEquals(defaultNumeric.writeValueAsString(patient), fastNumeric.writeValueAsString(patient));
+    }
+
+    @Test
+    void isoTimestamps_shouldMatchDateTimeFormatterAcrossDaysAndFractions() {
+        char[] buffer = new char[IsoTimestamps.MAX_LENGTH];
+        LocalDateTime timestamp = LocalDateTime.of(2023, 12, 31, 23, 58, 0);
+        int[] nanos = {0, 1, 10, 120_000, 5_000_000, 999_999_999, 100_000_000};
+        for (int i = 0; i < 200; i++) {
+            timestamp = timestamp.plusSeconds(37).withNano(nanos[i % nanos.length]);
+            int length = IsoTimestamps.format(timestamp, buffer);
+            assertEquals(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp), new String(buffer, 0, length));
+        }
+        LocalDateTime farFuture = LocalDateTime.of(12345, 1, 2, 3, 4, 5);
+        int length = IsoTimestamps.format(farFuture, buffer);
+        assertEquals(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(farFuture), new String(buffer, 0, length));
+        assertEquals("0042-07-04", IsoTimestamps.format(LocalDate.of(42, 7, 4)));
+    }
+
+    @Test
+    void decimalLevels_shouldMatchDoubleToString() {
+        char[] buffer = new char[DecimalLevels.MAX_LENGTH];
+        for (int hundredths = 0; hundredths <= 100_000; hundredths++) {
+            double level = hundredths / 100.0;
+            int length = DecimalLevels.format(level, buffer);
+            if (hundredths > 0) {
+                assertEquals(Double.toString(level), new String(buffer, 0, length));
+            }
+        }
+        assertEquals(-1, DecimalLevels.format(0.001, buffer));
+        assertEquals(-1, DecimalLevels.format(5.5051, buffer));
+        assertEquals(-1, DecimalLevels.format(1e7, buffer));
+        assertEquals(-1, DecimalLevels.format(Double.NaN, buffer));
+    }
+
+    @Test
+    void compactConverter_shouldWriteEpochMillisAndMgDl() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new CompactReadingsHttpMessageConverter().writeTo(READINGS.subList(0, 3), out);
+
+        // 6.1 mmol/L is stored as 109.9 mg/dL
+        assertEquals("[[1709280000000,110.0],[1709280330250,109.9],[1709337600000,95.5]]",
+                out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.metrics;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: the ingest counter only moves after a commit
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    private ObjectMapper objectMapper;
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+    }
+
+    private double ingested(String unit) {
+        return meterRegistry.get("readings.ingested").tag("unit", unit).counter().count();
+    }
+
+    @Test
+    void ingestedReadings_areCountedPerUnit() throws Exception {
+        double mgDlBefore = ingested("mg/dL");
+        double mmolBefore = ingested("mmol/L");
+        List<BloodSugarReadingDTO> readings = List.of(
+                new BloodSugarReadingDTO(null, LocalDateTime.now().minusMinutes(10), 110.0, "mg/dL", testPatient.getId()),
+                new BloodSugarReadingDTO(null, LocalDateTime.now().minusMinutes(5), 120.0, "mg/dL", testPatient.getId()));
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(readings)))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BloodSugarReadingDTO(
+                        null, LocalDateTime.now().minusMinutes(1), 6.1, "mmol/L", testPatient.getId()))))
+                .andExpect(status().isCreated());
+
+        assertEquals(mgDlBefore + 2, ingested("mg/dL"));
+        assertEquals(mmolBefore + 1, ingested("mmol/L"));
+    }
+
+    @Test
+    void readingList_recordsPayloadSizeAndQueryCount() throws Exception {
+        bloodSugarReadingRepository.save(buildReading(LocalDateTime.now().minusMinutes(20)));
+        bloodSugarReadingRepository.save(buildReading(LocalDateTime.now().minusMinutes(10)));
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId()))
+                .andExpect(status().isOk());
+
+        String uri = "/api/patients/{patientId}/readings";
+        assertTrue(meterRegistry.get("readings.payload.size").tag("uri", uri).tag("direction", "response")
+                .summary().max() >= 2);
+        assertTrue(meterRegistry.get("http.server.requests.queries").tag("uri", uri).tag("method", "GET")
+                .summary().count() >= 1);
+    }
+
+    @Test
+    void prometheusEndpoint_exposesRequestRepositoryAndHibernateMeters() throws Exception {
+        mockMvc.perform(get("/api/patients/{id}", testPatient.getId())).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds")))
+                .andExpect(content().string(containsString("method=\"findById\"")))
+                .andExpect(content().string(containsString("readings_ingested_total")))
+                .andExpect(content().string(containsString("hibernate_query_executions")))
+                .andExpect(content().string(containsString("http_server_requests_queries")));
+    }
+
+    private BloodSugarReading buildReading(LocalDateTime timestamp) {
+        BloodSugarReading reading =
+                new BloodSugarReading(timestamp, 100.0, "mg/dL");
+        reading.setPatient(testPatient);
+        return reading;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demo.patient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@Transactional
+@ActiveProfiles("test")
+class BloodSugarReadingBatchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    private ObjectMapper objectMapper;
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+    }
+
+    @Test
+    void createReadings_whenAllValid_shouldAcceptAll() throws Exception {
+        // More readings than one JDBC batch to exercise intermediate flushes
+        List<BloodSugarReadingDTO> readings = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 120; i++) {
+            readings.add(new BloodSugarReadingDTO(null, start.plusMinutes(5L * i), 100.0 + i % 50, "mg/dL", testPatient.getId()));
+        }
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(readings)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(120)))
+                .andExpect(jsonPath("$.rejected", hasSize(0)));
+
+        assertEquals(120, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReadings_withInvalidElements_shouldReportRejectionsByIndex() throws Exception {
+        List<BloodSugarReadingDTO> readings = List.of(
+                new BloodSugarReadingDTO(null, LocalDateTime.now().minusMinutes(10), 110.0, "mg/dL", testPatient.getId()),
+                new BloodSugarReadingDTO(null, LocalDateTime.now().minusMinutes(5), -1.0, "mg/dL", testPatient.getId()),
+                new BloodSugarReadingDTO(null, LocalDateTime.now().minusMinutes(1), 6.1, "mmol/L", testPatient.getId() + 1));
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(readings)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(1)))
+                .andExpect(jsonPath("$.rejected", hasSize(2)))
+                .andExpect(jsonPath("$.rejected[0].index", is(1)))
+                .andExpect(jsonPath("$.rejected[0].errors", hasItem("Level must be a positive number")))
+                .andExpect(jsonPath("$.rejected[1].index", is(2)))
+                .andExpect(jsonPath("$.rejected[1].errors",
+                        hasItem("Patient ID in the path does not match the patient ID in the request body")));
+
+        assertEquals(1, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReadings_whenPatientDoesNotExist_shouldReturnNotFound() throws Exception {
+        List<BloodSugarReadingDTO> readings = List.of(
+                new BloodSugarReadingDTO(null, LocalDateTime.now(), 110.0, "mg/dL", 999L));
+
+        mockMvc.perform(post("/api/patients/999/readings:batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(readings)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createReadings_withEmptyArray_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("At least one reading is required")));
+    }
+
+    @Test
+    void importReadings_withNdjson_shouldStreamValidRecordsAndReportErrors() throws Exception {
+        LocalDateTime time = LocalDateTime.now().minusHours(1).withNano(0);
+        String body = objectMapper.writeValueAsString(new BloodSugarReadingDTO(null, time, 110.0, "mg/dL", null)) + "\n"
+                + "{not json}\n"
+                + "\n"
+                + objectMapper.writeValueAsString(new BloodSugarReadingDTO(null, time.plusMinutes(5), 6.2, "mmol/L", testPatient.getId())) + "\n"
+                + objectMapper.writeValueAsString(new BloodSugarReadingDTO(null, time.plusMinutes(10), 110.0, "mg", null)) + "\n";
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed", is(4)))
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.rejectedCount", is(2)))
+                .andExpect(jsonPath("$.chunksCommitted", is(1)))
+                .andExpect(jsonPath("$.rejected[0].index", is(1)))
+                .andExpect(jsonPath("$.rejected[0].errors", hasItem("Record could not be parsed")))
+                .andExpect(jsonPath("$.rejected[1].index", is(3)))
+                .andExpect(jsonPath("$.rejected[1].errors", hasItem("Unit must be either 'mg/dL' or 'mmol/L'")));
+
+        assertEquals(2, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void importReadings_withCsv_shouldSkipHeaderAndImportRows() throws Exception {
+        String body = "timestamp,level,unit\n"
+                + "2024-01-01T08:00:00,105.0,mg/dL\n"
+                + "2024-01-01T08:05:00,5.9,mmol/L\n"
+                + "2024-01-01T08:10:00,abc,mg/dL\n";
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .contentType("text/csv")
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed", is(3)))
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.rejected[0].index", is(2)));
+
+        assertEquals(2, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+}
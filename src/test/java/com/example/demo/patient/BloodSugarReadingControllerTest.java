@@ -1,5 +1,6 @@
 package com.example.demo.patient;
 
+import com.example.demo.constants.ApiConstants;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,18 +8,26 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -72,7 +81,11 @@ class BloodSugarReadingControllerTest {
         mockMvc.perform(post("/api/patients/999/readings")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(readingDTO)))
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status", is(404)))
+                .andExpect(jsonPath("$.error", is("Resource Not Found")))
+                .andExpect(jsonPath("$.message", is("Patient not found with id : '999'")))
+                .andExpect(jsonPath("$.errors").doesNotExist());
     }
 
     @Test
@@ -92,6 +105,228 @@ class BloodSugarReadingControllerTest {
                 .andExpect(jsonPath("$[1].level", is(115.0)));
     }
 
+    @Test
+    void getAllReadingsForPatient_withCompactMediaType_shouldReturnEpochMillisAndLevelPairs() throws Exception {
+        BloodSugarReading reading1 = new BloodSugarReading(LocalDateTime.of(2024, 3, 1, 8, 0), 110.0, "mg/dL");
+        reading1.setPatient(testPatient);
+        bloodSugarReadingRepository.save(reading1);
+
+        BloodSugarReading reading2 = new BloodSugarReading(LocalDateTime.of(2024, 3, 1, 8, 5), 6.1, "mmol/L");
+        reading2.setPatient(testPatient);
+        bloodSugarReadingRepository.save(reading2);
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                .accept(ApiConstants.MediaTypes.READINGS_COMPACT))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ApiConstants.MediaTypes.READINGS_COMPACT))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andExpect(content().string("[[1709280000000,110.0],[1709280300000,109.9]]"));
+
+        // Anything less specific still gets the full JSON
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[1].unit", is("mmol/L")));
+    }
+
+    @Test
+    void getAllReadingsForPatient_withMatchingETag_shouldReturnNotModifiedUntilReadingsChange() throws Exception {
+        BloodSugarReading reading = new BloodSugarReading(LocalDateTime.now().minusHours(1), 110.0, "mg/dL");
+        reading.setPatient(testPatient);
+        bloodSugarReadingRepository.save(reading);
+
+        String eTag = mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        BloodSugarReadingDTO newReading = new BloodSugarReadingDTO(null, LocalDateTime.now(), 120.0, "mg/dL", testPatient.getId());
+        mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newReading)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void getAllReadingsForPatient_shouldServeADistinctETagPerMediaType() throws Exception {
+        BloodSugarReading reading = new BloodSugarReading(LocalDateTime.now().minusHours(1), 110.0, "mg/dL");
+        reading.setPatient(testPatient);
+        bloodSugarReadingRepository.save(reading);
+
+        List<String> accepts = List.of(MediaType.APPLICATION_JSON_VALUE, "application/vnd.bloodsugar.readings-compact",
+                MediaType.APPLICATION_CBOR_VALUE);
+        List<String> eTags = new ArrayList<>();
+        for (String accept : accepts) {
+            eTags.add(mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId()).header(HttpHeaders.ACCEPT, accept))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+        }
+        assertEquals(3, Set.copyOf(eTags).size());
+
+        for (int i = 0; i < accepts.size(); i++) {
+            mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                            .header(HttpHeaders.ACCEPT, accepts.get(i))
+                            .header(HttpHeaders.IF_NONE_MATCH, eTags.get(i)))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, eTags.get(i)));
+            // Another representation's ETag does not validate this one
+            mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                            .header(HttpHeaders.ACCEPT, accepts.get(i))
+                            .header(HttpHeaders.IF_NONE_MATCH, eTags.get((i + 1) % accepts.size())))
+                    .andExpect(status().isOk());
+        }
+
+        // CBOR preferred by quality value
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTags.get(2)))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getReadingById_shouldServeADistinctETagForCbor() throws Exception {
+        BloodSugarReading reading = new BloodSugarReading(LocalDateTime.now().minusHours(1), 110.0, "mg/dL");
+        reading.setPatient(testPatient);
+        reading = bloodSugarReadingRepository.save(reading);
+
+        String jsonETag = mockMvc.perform(get("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), reading.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cborETag = mockMvc.perform(get("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), reading.getId())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(jsonETag, cborETag);
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), reading.getId())
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, cborETag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), reading.getId())
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getReadingById_withMatchingETag_shouldReturnNotModified() throws Exception {
+        BloodSugarReading reading = new BloodSugarReading(LocalDateTime.now().minusHours(1), 110.0, "mg/dL");
+        reading.setPatient(testPatient);
+        reading = bloodSugarReadingRepository.save(reading);
+
+        String eTag = mockMvc.perform(get("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), reading.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), reading.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getAllReadingsForPatient_withLimit_shouldPageByCursor() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < 5; i++) {
+            BloodSugarReading reading = new BloodSugarReading(start.plusMinutes(5L * i), 100.0 + i, "mg/dL");
+            reading.setPatient(testPatient);
+            bloodSugarReadingRepository.save(reading);
+        }
+
+        MvcResult firstPage = mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].level", is(100.0)))
+                .andExpect(jsonPath("$[1].level", is(101.0)))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn();
+        String cursor = firstPage.getResponse().getHeader("X-Next-Cursor");
+
+        MvcResult secondPage = mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("limit", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].level", is(102.0)))
+                .andExpect(jsonPath("$[1].level", is(103.0)))
+                .andReturn();
+        cursor = secondPage.getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("limit", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].level", is(104.0)))
+                .andExpect(header().doesNotExist("Link"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void getAllReadingsForPatient_withTimeWindow_shouldReturnOnlyReadingsInRange() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 6; i++) {
+            BloodSugarReading reading = new BloodSugarReading(start.plusHours(i), 100.0 + i, "mg/dL");
+            reading.setPatient(testPatient);
+            bloodSugarReadingRepository.save(reading);
+        }
+
+        MvcResult firstPage = mockMvc.perform(get("/api/patients/{patientId}/readings?from={from}&to={to}&limit=3",
+                        testPatient.getId(), "2024-01-01T01:00:00", "2024-01-01T04:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].level", is(101.0)))
+                .andExpect(jsonPath("$[2].level", is(103.0)))
+                .andExpect(header().string("Link", containsString("to=2024-01-01T04")))
+                .andReturn();
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("from", "2024-01-01T01:00:00")
+                        .param("to", "2024-01-01T04:00:00")
+                        .param("limit", "3")
+                        .param("cursor", firstPage.getResponse().getHeader("X-Next-Cursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].level", is(104.0)));
+    }
+
+    @Test
+    void getAllReadingsForPatient_withFromAfterTo_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("from", "2024-01-02T00:00:00")
+                        .param("to", "2024-01-01T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("'from' must not be after 'to'")));
+    }
+
+    @Test
+    void getAllReadingsForPatient_withInvalidCursor_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Cursor is invalid")));
+    }
+
+    @Test
+    void getAllReadingsForPatient_withLimitTooLarge_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings", testPatient.getId())
+                        .param("limit", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getReadingById_whenReadingExistsAndBelongsToPatient_shouldReturnReading() throws Exception {
         BloodSugarReading reading = new BloodSugarReading(LocalDateTime.now(), 130.0, "mg/dL");
@@ -25,8 +25,7 @@ class BloodSugarReadingDTOTest {
         BloodSugarReading reading = new BloodSugarReading();
         reading.setId(1L);
         reading.setTimestamp(LocalDateTime.of(2023, 1, 1, 12, 0));
-        reading.setLevel(100.0);
-        reading.setUnit("mg/dL");
+        reading.setLevel(100.0, "mg/dL");
         reading.setPatient(patient);
 
         // When
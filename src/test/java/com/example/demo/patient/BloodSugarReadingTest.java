@@ -18,14 +18,15 @@ class BloodSugarReadingTest {
         // Act
         reading.setId(1L);
         reading.setTimestamp(now);
-        reading.setLevel(5.5);
-        reading.setUnit("mg/dL");
+        reading.setLevel(5.5, "mg/dL");
         
         // Assert
         assertEquals(1L, reading.getId());
         assertEquals(now, reading.getTimestamp());
         assertEquals(5.5, reading.getLevel());
         assertEquals("mg/dL", reading.getUnit());
+        assertEquals(55, reading.getLevelTenthsMgDl());
+        assertEquals(GlucoseUnit.MG_DL, reading.getEntryUnit());
     }
 
     @Test
@@ -35,8 +36,7 @@ class BloodSugarReadingTest {
         BloodSugarReading reading = BloodSugarReading.builder()
                 .id(1L)
                 .timestamp(now)
-                .level(5.5)
-                .unit("mg/dL")
+                .levelTenthsMgDl(55)
                 .build();
         
         // Assert
@@ -67,8 +67,8 @@ class BloodSugarReadingTest {
         BloodSugarReading reading = BloodSugarReading.builder()
                 .id(1L)
                 .timestamp(now)
-                .level(5.5)
-                .unit("mg/dL")
+                .levelTenthsMgDl(55)
+                .entryUnit(GlucoseUnit.MG_DL)
                 .build();
 
         // Act
@@ -77,8 +77,19 @@ class BloodSugarReadingTest {
         // Assert
         assertTrue(result.contains("id=1"));
         assertTrue(result.contains("timestamp=2023-01-01T12:00"));
-        assertTrue(result.contains("level=5.5"));
-        assertTrue(result.contains("unit=mg/dL"));
+        assertTrue(result.contains("levelTenthsMgDl=55"));
+        assertTrue(result.contains("entryUnit=MG_DL"));
+    }
+
+    @Test
+    void testMmolPerLitreIsStoredCanonically() {
+        BloodSugarReading reading = new BloodSugarReading(LocalDateTime.now(), 5.5, "mmol/L");
+
+        assertEquals(991, reading.getLevelTenthsMgDl());
+        assertEquals(99.1, reading.getLevelMgDl(), 0.001);
+        assertEquals(GlucoseUnit.MMOL_L, reading.getEntryUnit());
+        assertEquals(5.5, reading.getLevel());
+        assertEquals("mmol/L", reading.getUnit());
     }
 
     @Test
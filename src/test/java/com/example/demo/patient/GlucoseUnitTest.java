@@ -0,0 +1,40 @@
+package com.example.demo.patient;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlucoseUnitTest {
+
+    @Test
+    void mgPerDecilitre_shouldRoundTripTenths() {
+        assertEquals(1205, GlucoseUnit.MG_DL.toTenthsMgDl(120.5));
+        assertEquals(120.5, GlucoseUnit.MG_DL.fromTenthsMgDl(1205));
+    }
+
+    @Test
+    void mmolPerLitre_shouldRoundTripTwoDecimals() {
+        for (int hundredths = 100; hundredths <= 3500; hundredths++) {
+            double level = hundredths / 100.0;
+            assertEquals(level, GlucoseUnit.MMOL_L.fromTenthsMgDl(GlucoseUnit.MMOL_L.toTenthsMgDl(level)), "level " + level);
+        }
+    }
+
+    @Test
+    void fromSymbol_shouldResolveKnownUnitsAndDefaultToMgPerDecilitre() {
+        assertEquals(GlucoseUnit.MG_DL, GlucoseUnit.fromSymbol("mg/dL"));
+        assertEquals(GlucoseUnit.MMOL_L, GlucoseUnit.fromSymbol("mmol/L"));
+        assertEquals(GlucoseUnit.MG_DL, GlucoseUnit.fromSymbol(null));
+        assertThrows(IllegalArgumentException.class, () -> GlucoseUnit.fromSymbol("mg"));
+    }
+
+    @Test
+    void converter_shouldMapToOneByteCode() {
+        GlucoseUnitConverter converter = new GlucoseUnitConverter();
+
+        assertEquals((byte) 1, converter.convertToDatabaseColumn(GlucoseUnit.MMOL_L));
+        assertEquals(GlucoseUnit.MG_DL, converter.convertToEntityAttribute((byte) 0));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertThrows(IllegalArgumentException.class, () -> GlucoseUnit.fromCode((byte) 7));
+    }
+}
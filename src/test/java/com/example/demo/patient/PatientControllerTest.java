@@ -1,5 +1,6 @@
 package com.example.demo.patient;
 
+import com.example.demo.constants.ApiConstants;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,16 +8,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -32,6 +37,9 @@ class PatientControllerTest {
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
     private ObjectMapper objectMapper;
 
     @BeforeEach
@@ -66,6 +74,83 @@ class PatientControllerTest {
                 .andExpect(jsonPath("$[1].firstName", is(patient2.getFirstName())));
     }
 
+    @Test
+    void getAllPatients_byDefault_shouldNotIncludeReadings() throws Exception {
+        Patient patient = patientRepository.save(new Patient("Jane", "Doe", LocalDate.of(1985, 5, 5)));
+        BloodSugarReading reading = new BloodSugarReading(LocalDateTime.now(), 110.0, "mg/dL");
+        reading.setPatient(patient);
+        bloodSugarReadingRepository.save(reading);
+
+        mockMvc.perform(get("/api/patients"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].firstName", is("Jane")))
+                .andExpect(jsonPath("$[0].bloodSugarReadings").doesNotExist());
+    }
+
+    @Test
+    void getAllPatients_withExpandReadings_shouldIncludeReadingsOfEachPatient() throws Exception {
+        Patient patient1 = patientRepository.save(new Patient("Jane", "Doe", LocalDate.of(1985, 5, 5)));
+        patientRepository.save(new Patient("Jim", "Beam", LocalDate.of(1970, 3, 15)));
+        BloodSugarReading reading1 = new BloodSugarReading(LocalDateTime.now().minusMinutes(5), 110.0, "mg/dL");
+        reading1.setPatient(patient1);
+        bloodSugarReadingRepository.save(reading1);
+        BloodSugarReading reading2 = new BloodSugarReading(LocalDateTime.now(), 115.0, "mg/dL");
+        reading2.setPatient(patient1);
+        bloodSugarReadingRepository.save(reading2);
+
+        mockMvc.perform(get("/api/patients").param("expand", "readings"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].bloodSugarReadings", hasSize(2)))
+                .andExpect(jsonPath("$[0].bloodSugarReadings[0].level", is(110.0)))
+                .andExpect(jsonPath("$[1].bloodSugarReadings", hasSize(0)));
+    }
+
+    @Test
+    void getAllPatients_withExpandReadings_shouldEmbedOnlyLatestReadingsOfEachPatient() throws Exception {
+        Patient patient = patientRepository.save(new Patient("Jane", "Doe", LocalDate.of(1985, 5, 5)));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<BloodSugarReading> readings = new ArrayList<>();
+        for (int i = 0; i < ApiConstants.Paging.MAX_EXPANDED_READINGS + 5; i++) {
+            BloodSugarReading reading = new BloodSugarReading(start.plusMinutes(5L * i), 100.0 + i, "mg/dL");
+            reading.setPatient(patient);
+            readings.add(reading);
+        }
+        bloodSugarReadingRepository.saveAll(readings);
+
+        mockMvc.perform(get("/api/patients").param("expand", "readings"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bloodSugarReadings", hasSize(ApiConstants.Paging.MAX_EXPANDED_READINGS)))
+                .andExpect(jsonPath("$[0].bloodSugarReadings[0].level", is(105.0)))
+                .andExpect(jsonPath("$[0].bloodSugarReadings[" + (ApiConstants.Paging.MAX_EXPANDED_READINGS - 1) + "].level",
+                        is(100.0 + ApiConstants.Paging.MAX_EXPANDED_READINGS + 4)));
+    }
+
+    @Test
+    void getAllPatients_withPageSize_shouldReturnPageAndNextLink() throws Exception {
+        patientRepository.save(new Patient("A", "One", LocalDate.of(1980, 1, 1)));
+        patientRepository.save(new Patient("B", "Two", LocalDate.of(1981, 1, 1)));
+        patientRepository.save(new Patient("C", "Three", LocalDate.of(1982, 1, 1)));
+
+        mockMvc.perform(get("/api/patients?page=0&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string("Link", containsString("page=1")));
+
+        mockMvc.perform(get("/api/patients?page=1&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].firstName", is("C")))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void getAllPatients_withUnsupportedExpand_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/patients").param("expand", "everything"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getPatientById_whenPatientExists_shouldReturnPatient() throws Exception {
         Patient patient = patientRepository.save(new Patient("Alice", "Smith", LocalDate.of(2000, 10, 10)));
@@ -103,6 +188,29 @@ class PatientControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getPatientById_withMatchingETag_shouldReturnNotModifiedUntilPatientChanges() throws Exception {
+        Patient patient = patientRepository.save(new Patient("Etag", "Patient", LocalDate.of(1990, 1, 1)));
+
+        String eTag = mockMvc.perform(get("/api/patients/" + patient.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/patients/" + patient.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        PatientDTO updatedDetails = new PatientDTO(patient.getId(), "Renamed", "Patient", LocalDate.of(1990, 1, 1), new ArrayList<>());
+        mockMvc.perform(put("/api/patients/" + patient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedDetails)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/patients/" + patient.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName", is("Renamed")));
+    }
+
     @Test
     void deletePatient_whenPatientExists_shouldReturnNoContent() throws Exception {
         Patient patient = patientRepository.save(new Patient("Delete", "Me", LocalDate.now()));
@@ -113,6 +221,20 @@ class PatientControllerTest {
                 .andExpect(status().isNotFound()); // Verify patient is actually deleted
     }
 
+    @Test
+    void deletePatient_shouldEvictPatientFromReadingEndpoints() throws Exception {
+        Patient patient = patientRepository.save(new Patient("Cached", "Patient", LocalDate.now()));
+        // Export checks the patient through the existence cache; the first call caches it as existing
+        mockMvc.perform(get("/api/patients/{patientId}/readings/export", patient.getId()).param("format", "csv"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/patients/" + patient.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings/export", patient.getId()).param("format", "csv"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void deletePatient_whenPatientDoesNotExist_shouldReturnNotFound() throws Exception {
         mockMvc.perform(delete("/api/patients/999"))
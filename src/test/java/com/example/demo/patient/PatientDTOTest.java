@@ -57,6 +57,28 @@ class PatientDTOTest {
     }
 
 
+    @Test
+    void fromSummary_shouldMapFieldsAndKeepGivenReadings() {
+        // Given
+        PatientSummary summary = new PatientSummary() {
+            public Long getId() { return 1L; }
+            public String getFirstName() { return "John"; }
+            public String getLastName() { return "Doe"; }
+            public LocalDate getDateOfBirth() { return LocalDate.of(1990, 1, 1); }
+        };
+
+        // When
+        PatientDTO dto = PatientDTO.fromSummary(summary, null);
+
+        // Then
+        assertEquals(1L, dto.getId());
+        assertEquals("John", dto.getFirstName());
+        assertEquals("Doe", dto.getLastName());
+        assertEquals(LocalDate.of(1990, 1, 1), dto.getDateOfBirth());
+        assertNull(dto.getBloodSugarReadings());
+        assertNull(PatientDTO.fromSummary(null, null));
+    }
+
     @Test
     void builder_shouldCreateInstance() {
         // Given & When
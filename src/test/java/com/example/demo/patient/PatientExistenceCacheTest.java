@@ -0,0 +1,62 @@
+package com.example.demo.patient;
+
+import com.example.demo.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PatientExistenceCacheTest {
+
+    private PatientRepository patientRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private PatientExistenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        patientRepository = Mockito.mock(PatientRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new PatientExistenceCache(patientRepository, meterRegistry, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void ensureExists_shouldQueryOnlyOnFirstCall() {
+        when(patientRepository.existsById(1L)).thenReturn(true);
+
+        cache.ensureExists(1L);
+        cache.ensureExists(1L);
+        cache.ensureExists(1L);
+
+        verify(patientRepository, times(1)).existsById(1L);
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "patients.existence").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "patients.existence").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void ensureExists_whenMissing_shouldThrowAndNotCache() {
+        when(patientRepository.existsById(2L)).thenReturn(false, true);
+
+        assertThrows(ResourceNotFoundException.class, () -> cache.ensureExists(2L));
+        // A missing id is looked up again, so a patient created later is found
+        cache.ensureExists(2L);
+
+        verify(patientRepository, times(2)).existsById(2L);
+    }
+
+    @Test
+    void invalidate_shouldForceNextLookup() {
+        when(patientRepository.existsById(3L)).thenReturn(true, false);
+        cache.ensureExists(3L);
+
+        cache.onPatientDeleted(new PatientDeletedEvent(3L));
+
+        assertThrows(ResourceNotFoundException.class, () -> cache.ensureExists(3L));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.patient;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingCursorTest {
+
+    @Test
+    void encodeAndDecode_shouldRoundTrip() {
+        ReadingCursor cursor = new ReadingCursor(LocalDateTime.of(2024, 1, 1, 8, 5, 30), 42L);
+
+        ReadingCursor decoded = ReadingCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void encode_shouldBeUrlSafe() {
+        String token = new ReadingCursor(LocalDateTime.of(2024, 1, 1, 8, 5), 7L).encode();
+
+        assertFalse(token.contains("|"));
+        assertFalse(token.contains("="));
+        assertFalse(token.contains("/"));
+    }
+
+    @Test
+    void decode_withGarbage_shouldThrowIllegalArgumentException() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> ReadingCursor.decode("%%%"));
+        assertEquals("Cursor is invalid", ex.getMessage());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.patient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: the export is written on an async thread that must see the committed readings
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadingExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+        Patient otherPatient = patientRepository.save(new Patient("Other", "Patient", LocalDate.of(1980, 1, 1)));
+        saveReading(testPatient, LocalDateTime.of(2024, 3, 2, 8, 0), 6.5, "mmol/L", "cgm-1");
+        saveReading(testPatient, LocalDateTime.of(2024, 3, 1, 8, 0), 120.0, "mg/dL", null);
+        saveReading(otherPatient, LocalDateTime.of(2024, 3, 1, 9, 0), 99.0, "mg/dL", null);
+    }
+
+    private void saveReading(Patient patient, LocalDateTime timestamp, double level, String unit, String deviceId) {
+        BloodSugarReading reading = new BloodSugarReading(timestamp, level, unit);
+        reading.setPatient(patient);
+        reading.setDeviceId(deviceId);
+        bloodSugarReadingRepository.save(reading);
+    }
+
+    private MvcResult export(String format, String acceptEncoding) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/patients/{patientId}/readings/export", testPatient.getId())
+                        .param("format", format)
+                        .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    @Test
+    void exportCsv_shouldStreamHistoryInOrder() throws Exception {
+        MvcResult result = export("csv", "identity");
+
+        assertEquals("text/csv", result.getResponse().getContentType());
+        assertEquals(null, result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,timestamp,level,unit,deviceId", lines[0]);
+        assertEquals(",2024-03-01T08:00:00,120.0,mg/dL,", lines[1].substring(lines[1].indexOf(',')));
+        assertEquals(",2024-03-02T08:00:00,6.5,mmol/L,cgm-1", lines[2].substring(lines[2].indexOf(',')));
+    }
+
+    @Test
+    void exportNdjson_shouldGzipWhenAccepted() throws Exception {
+        MvcResult result = export("ndjson", "br;q=1.0, gzip;q=0.8");
+
+        assertEquals("gzip", result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        String body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(120.0, first.get("level").asDouble());
+        assertEquals(testPatient.getId(), first.get("patientId").asLong());
+        assertEquals("mmol/L", second.get("unit").asText());
+        assertEquals("cgm-1", second.get("deviceId").asText());
+    }
+
+    @Test
+    void export_shouldRejectUnknownFormatAndPatient() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings/export", testPatient.getId())
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/patients/{patientId}/readings/export", 999_999L)
+                        .param("format", "csv"))
+                .andExpect(status().isNotFound());
+    }
+}
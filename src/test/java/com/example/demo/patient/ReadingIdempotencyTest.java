@@ -0,0 +1,235 @@
+package com.example.demo.patient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: recent keys are only remembered once the inserting transaction commits
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadingIdempotencyTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    @Autowired
+    private ReadingDeduplicator readingDeduplicator;
+
+    private ObjectMapper objectMapper;
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+        readingDeduplicator.clear();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+    }
+
+    private ResultActions postReading(BloodSugarReadingDTO reading, String idempotencyKey) throws Exception {
+        var request = post("/api/patients/{patientId}/readings", testPatient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(reading));
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private long createdId(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    @Test
+    void createReading_withRepeatedIdempotencyKey_shouldReturnOriginal() throws Exception {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO(null, TIMESTAMP, 120.0, "mg/dL", testPatient.getId());
+        long id = createdId(postReading(reading, "upload-1").andExpect(status().isCreated()));
+
+        // The retry carries a different body; the key alone identifies the upload
+        reading.setLevel(130.0);
+        postReading(reading, "upload-1")
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id", is((int) id)))
+                .andExpect(jsonPath("$.level", is(120.0)));
+
+        assertEquals(1, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReading_withRepeatedDeviceAndTimestamp_shouldReturnOriginal() throws Exception {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO(null, TIMESTAMP, 6.4, "mmol/L", testPatient.getId(), "meter-7");
+        long id = createdId(postReading(reading, null).andExpect(status().isCreated()));
+
+        postReading(reading, null)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is((int) id)))
+                .andExpect(jsonPath("$.deviceId", is("meter-7")));
+
+        // Another device may report the same instant
+        reading.setDeviceId("meter-8");
+        postReading(reading, null).andExpect(status().isCreated());
+
+        assertEquals(2, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReading_whenOriginalNoLongerCached_shouldFallBackToUniqueIndex() throws Exception {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO(null, TIMESTAMP, 120.0, "mg/dL", testPatient.getId());
+        long id = createdId(postReading(reading, "upload-2").andExpect(status().isCreated()));
+
+        readingDeduplicator.clear();
+        postReading(reading, "upload-2")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is((int) id)));
+
+        assertEquals(1, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReading_withNewIdempotencyKeyForStoredDeviceReading_shouldReturnOriginal() throws Exception {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO(null, TIMESTAMP, 120.0, "mg/dL", testPatient.getId(), "meter-7");
+        long id = createdId(postReading(reading, "upload-3").andExpect(status().isCreated()));
+
+        // Answered from the recent keys, then from the natural-key index
+        postReading(reading, "upload-4")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is((int) id)));
+        readingDeduplicator.clear();
+        postReading(reading, "upload-5")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is((int) id)));
+
+        assertEquals(1, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReading_whenKeysMatchDifferentStoredReadings_shouldReturnConflict() throws Exception {
+        BloodSugarReadingDTO first = new BloodSugarReadingDTO(null, TIMESTAMP, 120.0, "mg/dL", testPatient.getId(), "meter-7");
+        BloodSugarReadingDTO second = new BloodSugarReadingDTO(null, TIMESTAMP.plusMinutes(5), 125.0, "mg/dL", testPatient.getId(), "meter-7");
+        postReading(first, "upload-6").andExpect(status().isCreated());
+        postReading(second, "upload-7").andExpect(status().isCreated());
+
+        // The key of the first reading with the natural key of the second, from the recent keys and from the table
+        postReading(second, "upload-6").andExpect(status().isConflict());
+        readingDeduplicator.clear();
+        postReading(second, "upload-6")
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status", is(409)));
+
+        assertEquals(2, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReadings_whenBatchResent_shouldReportDuplicates() throws Exception {
+        List<BloodSugarReadingDTO> readings = List.of(
+                new BloodSugarReadingDTO(null, TIMESTAMP, 110.0, "mg/dL", testPatient.getId()),
+                new BloodSugarReadingDTO(null, TIMESTAMP.plusMinutes(5), 115.0, "mg/dL", testPatient.getId()));
+        String body = objectMapper.writeValueAsString(readings);
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .header("Idempotency-Key", "batch-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.duplicates", hasSize(0)));
+
+        readingDeduplicator.clear();
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                .header("Idempotency-Key", "batch-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(0)))
+                .andExpect(jsonPath("$.duplicates", hasSize(2)))
+                .andExpect(jsonPath("$.duplicates[1].index", is(1)));
+
+        assertEquals(2, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReading_afterOriginalWasDeleted_shouldStoreItAgain() throws Exception {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO(null, TIMESTAMP, 120.0, "mg/dL", testPatient.getId(), "meter-7");
+        long id = createdId(postReading(reading, "upload-5").andExpect(status().isCreated()));
+
+        mockMvc.perform(delete("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), id))
+                .andExpect(status().isNoContent());
+
+        long again = createdId(postReading(reading, "upload-5").andExpect(status().isCreated()));
+        assertNotEquals(id, again);
+        assertEquals(1, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReading_whenRememberedOriginalIsGone_shouldStoreItAgain() throws Exception {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO(null, TIMESTAMP, 120.0, "mg/dL", testPatient.getId(), "meter-7");
+        long id = createdId(postReading(reading, null).andExpect(status().isCreated()));
+
+        // Removed without an event, so the key is still remembered
+        bloodSugarReadingRepository.deleteById(id);
+
+        postReading(reading, null).andExpect(status().isCreated());
+        assertEquals(1, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReading_atTimestampAnUpdateMovedAway_shouldStoreNewReading() throws Exception {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO(null, TIMESTAMP, 120.0, "mg/dL", testPatient.getId(), "meter-7");
+        long id = createdId(postReading(reading, null).andExpect(status().isCreated()));
+
+        BloodSugarReadingDTO moved = new BloodSugarReadingDTO(id, TIMESTAMP.plusMinutes(5), 120.0, "mg/dL", testPatient.getId());
+        mockMvc.perform(put("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(moved)))
+                .andExpect(status().isOk());
+
+        reading.setLevel(140.0);
+        postReading(reading, null)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.level", is(140.0)));
+        assertEquals(2, bloodSugarReadingRepository.findByPatientId(testPatient.getId()).size());
+    }
+
+    @Test
+    void createReading_withMalformedIdempotencyKey_shouldReturnBadRequest() throws Exception {
+        BloodSugarReadingDTO reading = new BloodSugarReadingDTO(null, TIMESTAMP, 120.0, "mg/dL", testPatient.getId());
+        postReading(reading, "has spaces").andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.demo.rollup;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@Transactional
+@ActiveProfiles("test")
+class ReadingRollupControllerTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    @Autowired
+    private ReadingRollupRepository readingRollupRepository;
+
+    @Autowired
+    private ReadingRollupService readingRollupService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private ObjectMapper objectMapper;
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        readingRollupRepository.deleteAll();
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+    }
+
+    @Test
+    void getRollups_afterCreatingReadings_shouldReturnHourlyAggregates() throws Exception {
+        createReading(DAY.plusHours(8), 60.0, "mg/dL");
+        createReading(DAY.plusHours(8).plusMinutes(5), 100.0, "mg/dL");
+        createReading(DAY.plusHours(9), 11.1, "mmol/L"); // ~200 mg/dL
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings/rollups", testPatient.getId())
+                        .param("granularity", "hour")
+                        .param("from", "2024-03-01T00:00:00")
+                        .param("to", "2024-03-01T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].bucketStart", is("2024-03-01T08:00:00")))
+                .andExpect(jsonPath("$[0].count", is(2)))
+                .andExpect(jsonPath("$[0].mean", is(80.0)))
+                .andExpect(jsonPath("$[0].min", is(60.0)))
+                .andExpect(jsonPath("$[0].max", is(100.0)))
+                .andExpect(jsonPath("$[0].belowRangeCount", is(1)))
+                .andExpect(jsonPath("$[0].inRangeCount", is(1)))
+                .andExpect(jsonPath("$[1].aboveRangeCount", is(1)))
+                .andExpect(jsonPath("$[1].unit", is("mg/dL")));
+
+        mockMvc.perform(get("/api/patients/{patientId}/readings/rollups", testPatient.getId())
+                        .param("granularity", "day")
+                        .param("from", "2024-03-01T00:00:00")
+                        .param("to", "2024-03-01T23:59:59"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].count", is(3)));
+    }
+
+    @Test
+    void updateAndDeleteReading_shouldKeepRollupsExact() throws Exception {
+        createReading(DAY.plusHours(8), 60.0, "mg/dL");
+        Long readingId = createReading(DAY.plusHours(8).plusMinutes(5), 100.0, "mg/dL");
+
+        // Move the extreme reading to another hour: min/max of both buckets must follow
+        BloodSugarReadingDTO update = new BloodSugarReadingDTO(readingId, DAY.plusHours(10), 150.0, "mg/dL", testPatient.getId());
+        mockMvc.perform(put("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), readingId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        ReadingRollup eight = hourRollup(DAY.plusHours(8));
+        assertEquals(1, eight.getCount());
+        assertEquals(60.0, eight.getMax(), 0.001);
+        assertEquals(150.0, hourRollup(DAY.plusHours(10)).getMin(), 0.001);
+
+        mockMvc.perform(delete("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), readingId))
+                .andExpect(status().isNoContent());
+
+        assertTrue(readingRollupRepository.findLockedByPatientIdAndGranularityAndBucketStart(
+                testPatient.getId(), RollupGranularity.HOUR, DAY.plusHours(10)).isEmpty());
+        assertEquals(1, readingRollupRepository.findLockedByPatientIdAndGranularityAndBucketStart(
+                testPatient.getId(), RollupGranularity.DAY, DAY).orElseThrow().getCount());
+    }
+
+    @Test
+    void batchIngest_shouldUpdateRollups() throws Exception {
+        List<BloodSugarReadingDTO> readings = List.of(
+                new BloodSugarReadingDTO(null, DAY.plusHours(8), 90.0, "mg/dL", testPatient.getId()),
+                new BloodSugarReadingDTO(null, DAY.plusHours(8).plusMinutes(5), 110.0, "mg/dL", testPatient.getId()));
+
+        mockMvc.perform(post("/api/patients/{patientId}/readings:batch", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(readings)))
+                .andExpect(status().isOk());
+
+        ReadingRollup eight = hourRollup(DAY.plusHours(8));
+        assertEquals(2, eight.getCount());
+        assertEquals(200.0, eight.getSum(), 0.001);
+    }
+
+    @Test
+    void rebuildAll_shouldRecreateRollupsFromRawReadings() {
+        BloodSugarReading reading = new BloodSugarReading(DAY.plusHours(8), 120.0, "mg/dL");
+        reading.setPatient(testPatient);
+        bloodSugarReadingRepository.save(reading);
+        BloodSugarReading other = new BloodSugarReading(DAY.plusDays(1).plusHours(1), 3.0, "mmol/L");
+        other.setPatient(testPatient);
+        bloodSugarReadingRepository.save(other);
+
+        long buckets = readingRollupService.rebuildAll();
+
+        assertEquals(4, buckets);
+        assertEquals(120.0, hourRollup(DAY.plusHours(8)).getMax(), 0.001);
+        assertEquals(1, hourRollup(DAY.plusDays(1).plusHours(1)).getBelowRangeCount());
+    }
+
+    @Test
+    void getRollups_withInvalidGranularity_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings/rollups", testPatient.getId())
+                        .param("granularity", "week")
+                        .param("from", "2024-03-01T00:00:00")
+                        .param("to", "2024-03-02T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Granularity must be either 'hour' or 'day'")));
+    }
+
+    @Test
+    void getRollups_whenPatientDoesNotExist_shouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/api/patients/999/readings/rollups")
+                        .param("granularity", "day")
+                        .param("from", "2024-03-01T00:00:00")
+                        .param("to", "2024-03-02T00:00:00"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void deletePatient_shouldRemoveRollups() throws Exception {
+        createReading(DAY.plusHours(8), 100.0, "mg/dL");
+        // Start from a fresh persistence context so the patient's readings are cascaded like in a real request
+        entityManager.flush();
+        entityManager.clear();
+
+        mockMvc.perform(delete("/api/patients/{id}", testPatient.getId()))
+                .andExpect(status().isNoContent());
+
+        assertTrue(readingRollupRepository.findAll().isEmpty());
+    }
+
+    private Long createReading(LocalDateTime timestamp, double level, String unit) throws Exception {
+        BloodSugarReadingDTO readingDTO = new BloodSugarReadingDTO(null, timestamp, level, unit, testPatient.getId());
+        String response = mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(readingDTO)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, BloodSugarReadingDTO.class).getId();
+    }
+
+    private ReadingRollup hourRollup(LocalDateTime bucketStart) {
+        return readingRollupRepository.findLockedByPatientIdAndGranularityAndBucketStart(
+                testPatient.getId(), RollupGranularity.HOUR, bucketStart).orElseThrow();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingRollupTest {
+
+    @Test
+    void add_shouldAccumulateStatisticsAndRangeCounts() {
+        ReadingRollup rollup = new ReadingRollup(1L, RollupGranularity.HOUR, LocalDateTime.of(2024, 1, 1, 8, 0));
+
+        rollup.add(60.0);
+        rollup.add(120.0);
+        rollup.add(200.0);
+
+        assertEquals(3, rollup.getCount());
+        assertEquals(380.0, rollup.getSum(), 0.001);
+        assertEquals(60.0 * 60.0 + 120.0 * 120.0 + 200.0 * 200.0, rollup.getSumOfSquares(), 0.001);
+        assertEquals(60.0, rollup.getMin(), 0.001);
+        assertEquals(200.0, rollup.getMax(), 0.001);
+        assertEquals(1, rollup.getBelowRangeCount());
+        assertEquals(1, rollup.getInRangeCount());
+        assertEquals(1, rollup.getAboveRangeCount());
+    }
+
+    @Test
+    void add_shouldTreatRangeBoundsAsInRange() {
+        ReadingRollup rollup = new ReadingRollup(1L, RollupGranularity.DAY, LocalDateTime.of(2024, 1, 1, 0, 0));
+
+        rollup.add(70.0);
+        rollup.add(180.0);
+
+        assertEquals(2, rollup.getInRangeCount());
+    }
+
+    @Test
+    void reset_shouldClearAllStatistics() {
+        ReadingRollup rollup = new ReadingRollup(1L, RollupGranularity.HOUR, LocalDateTime.of(2024, 1, 1, 8, 0));
+        rollup.add(100.0);
+
+        rollup.reset();
+
+        assertEquals(0, rollup.getCount());
+        assertEquals(0.0, rollup.getSum());
+        assertEquals(0, rollup.getInRangeCount());
+    }
+
+    @Test
+    void granularity_shouldTruncateToBucketStart() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 8, 47, 12);
+
+        assertEquals(LocalDateTime.of(2024, 1, 1, 8, 0), RollupGranularity.HOUR.bucketStart(time));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0), RollupGranularity.DAY.bucketStart(time));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 0, 0), RollupGranularity.DAY.bucketEnd(LocalDateTime.of(2024, 1, 1, 0, 0)));
+        assertEquals(RollupGranularity.HOUR, RollupGranularity.fromParameter("hour"));
+        assertThrows(IllegalArgumentException.class, () -> RollupGranularity.fromParameter("week"));
+    }
+}
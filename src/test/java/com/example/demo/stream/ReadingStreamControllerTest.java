@@ -0,0 +1,186 @@
+package com.example.demo.stream;
+
+import com.example.demo.patient.BloodSugarReading;
+import com.example.demo.patient.BloodSugarReadingDTO;
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.Patient;
+import com.example.demo.patient.PatientDeletedEvent;
+import com.example.demo.patient.PatientRepository;
+import com.example.demo.patient.ReadingCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: readings are only pushed to streams after their transaction commits
+@SpringBootTest(classes = com.example.demo.DemoApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadingStreamControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private BloodSugarReadingRepository bloodSugarReadingRepository;
+
+    @Autowired
+    private ReadingStreamHub readingStreamHub;
+
+    private ObjectMapper objectMapper;
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        bloodSugarReadingRepository.deleteAll();
+        patientRepository.deleteAll();
+
+        testPatient = patientRepository.save(new Patient("Test", "Patient", LocalDate.of(1990, 1, 1)));
+    }
+
+    @AfterEach
+    void closeStreams() {
+        readingStreamHub.onPatientDeleted(new PatientDeletedEvent(testPatient.getId()));
+    }
+
+    @Test
+    void streamReadings_shouldPushCreatedReading() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/patients/{patientId}/readings/stream", testPatient.getId())
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        BloodSugarReadingDTO readingDTO =
+                new BloodSugarReadingDTO(null, LocalDateTime.of(2024, 1, 1, 8, 0), 131.5, "mg/dL", testPatient.getId(), "cgm-01");
+        mockMvc.perform(post("/api/patients/{patientId}/readings", testPatient.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(readingDTO)))
+                .andExpect(status().isCreated());
+
+        String events = awaitContent(stream.getResponse(), "131.5");
+        BloodSugarReading saved = bloodSugarReadingRepository.findByPatientId(testPatient.getId()).get(0);
+        assertTrue(events.contains("event:reading"));
+        assertTrue(events.contains("id:" + saved.getId()));
+        assertTrue(events.contains("\"deviceId\":\"cgm-01\""));
+    }
+
+    @Test
+    void streamReadings_shouldPushUpdatedReadingWithoutMovingTheCursor() throws Exception {
+        BloodSugarReading saved = saveReading(LocalDateTime.of(2024, 1, 1, 8, 0), 101.0);
+        MvcResult stream = mockMvc.perform(get("/api/patients/{patientId}/readings/stream", testPatient.getId())
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        BloodSugarReadingDTO update = new BloodSugarReadingDTO(saved.getId(), saved.getTimestamp(), 142.5, "mg/dL",
+                testPatient.getId());
+        mockMvc.perform(put("/api/patients/{patientId}/readings/{readingId}", testPatient.getId(), saved.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        String events = awaitContent(stream.getResponse(), "142.5");
+        assertTrue(events.contains("event:reading-updated"));
+        assertFalse(events.contains("id:"));
+    }
+
+    @Test
+    void streamReadings_withLastEventId_shouldReplayReadingsAfterIt() throws Exception {
+        BloodSugarReading first = saveReading(LocalDateTime.of(2024, 1, 1, 8, 0), 101.0);
+        saveReading(LocalDateTime.of(2024, 1, 1, 8, 5), 102.0);
+        saveReading(LocalDateTime.of(2024, 1, 1, 8, 10), 103.0);
+
+        MvcResult stream = mockMvc.perform(get("/api/patients/{patientId}/readings/stream", testPatient.getId())
+                        .header("Last-Event-ID", first.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String events = awaitContent(stream.getResponse(), "103.0");
+        assertFalse(events.contains("101.0"));
+        assertTrue(events.indexOf("102.0") < events.indexOf("103.0"));
+    }
+
+    @Test
+    void streamReadings_withLastEventId_shouldReplayBackfilledReadingStoredAfterIt() throws Exception {
+        BloodSugarReading seen = saveReading(LocalDateTime.of(2024, 1, 1, 8, 10), 103.0);
+        // Uploaded late: older than the last reading the client saw, but stored after it
+        saveReading(LocalDateTime.of(2024, 1, 1, 7, 0), 97.0);
+
+        MvcResult stream = mockMvc.perform(get("/api/patients/{patientId}/readings/stream", testPatient.getId())
+                        .header("Last-Event-ID", seen.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String events = awaitContent(stream.getResponse(), "97.0");
+        assertFalse(events.contains("103.0"));
+    }
+
+    @Test
+    void streamReadings_withLastEventIdFromReadingCursor_shouldResumeAfterItsReading() throws Exception {
+        BloodSugarReading first = saveReading(LocalDateTime.of(2024, 1, 1, 8, 0), 101.0);
+        saveReading(LocalDateTime.of(2024, 1, 1, 8, 5), 102.0);
+
+        MvcResult stream = mockMvc.perform(get("/api/patients/{patientId}/readings/stream", testPatient.getId())
+                        .header("Last-Event-ID", ReadingCursor.of(first).encode()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String events = awaitContent(stream.getResponse(), "102.0");
+        assertFalse(events.contains("101.0"));
+    }
+
+    @Test
+    void streamReadings_whenPatientDoesNotExist_shouldReturn404() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings/stream", 999999L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void streamReadings_withInvalidLastEventId_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/patients/{patientId}/readings/stream", testPatient.getId())
+                        .header("Last-Event-ID", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private BloodSugarReading saveReading(LocalDateTime timestamp, double level) {
+        BloodSugarReading reading = new BloodSugarReading(timestamp, level, "mg/dL");
+        reading.setPatient(testPatient);
+        return bloodSugarReadingRepository.save(reading);
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = response.getContentAsString();
+        }
+        assertTrue(content.contains(expected), "Stream did not deliver " + expected + ": " + content);
+        return content;
+    }
+}
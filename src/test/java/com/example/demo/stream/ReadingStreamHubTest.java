@@ -0,0 +1,80 @@
+package com.example.demo.stream;
+
+import com.example.demo.patient.BloodSugarReadingRepository;
+import com.example.demo.patient.GlucoseUnit;
+import com.example.demo.patient.PatientDeletedEvent;
+import com.example.demo.patient.ReadingSnapshot;
+import com.example.demo.patient.ReadingsChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ReadingStreamHubTest {
+
+    private static final Long PATIENT_ID = 1L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReadingStreamHub hub;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // The mocked dispatcher never runs a drain, so every published reading stays buffered
+        hub = new ReadingStreamHub(mock(BloodSugarReadingRepository.class), meterRegistry,
+                mock(ExecutorService.class), mock(ScheduledExecutorService.class), 2, 100, Duration.ofMinutes(1));
+    }
+
+    private static ReadingSnapshot snapshot(long id) {
+        return new ReadingSnapshot(id, LocalDateTime.of(2024, 1, 1, 8, 0).plusMinutes(5 * id), 1000, GlucoseUnit.MG_DL, null, null);
+    }
+
+    @Test
+    void onReadingsChanged_whenBufferOverflows_shouldDisconnectSlowConsumer() {
+        hub.subscribe(PATIENT_ID, null);
+        hub.subscribe(2L, null);
+
+        hub.onReadingsChanged(ReadingsChangedEvent.created(PATIENT_ID, List.of(snapshot(1), snapshot(2))));
+        assertEquals(1, hub.subscriberCount(PATIENT_ID));
+
+        hub.onReadingsChanged(ReadingsChangedEvent.created(PATIENT_ID, List.of(snapshot(3))));
+        assertEquals(0, hub.subscriberCount(PATIENT_ID));
+        assertEquals(1, hub.subscriberCount(2L));
+        assertEquals(1.0, meterRegistry.get("readings.stream.slow.consumers").counter().count());
+        assertEquals(1.0, meterRegistry.get("readings.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void onReadingsChanged_shouldBufferUpdatesButNotDeletes() {
+        hub.subscribe(PATIENT_ID, null);
+
+        for (int i = 0; i < 3; i++) {
+            hub.onReadingsChanged(ReadingsChangedEvent.deleted(PATIENT_ID, snapshot(1)));
+        }
+        assertEquals(1, hub.subscriberCount(PATIENT_ID));
+
+        for (int i = 0; i < 3; i++) {
+            hub.onReadingsChanged(ReadingsChangedEvent.updated(PATIENT_ID, snapshot(1), snapshot(1)));
+        }
+        assertEquals(0, hub.subscriberCount(PATIENT_ID));
+    }
+
+    @Test
+    void onPatientDeleted_shouldCloseStreams() {
+        hub.subscribe(PATIENT_ID, null);
+        hub.subscribe(PATIENT_ID, null);
+
+        hub.onPatientDeleted(new PatientDeletedEvent(PATIENT_ID));
+
+        assertEquals(0, hub.subscriberCount(PATIENT_ID));
+        assertEquals(0.0, meterRegistry.get("readings.stream.slow.consumers").counter().count());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlycemicMetricsAccumulatorTest {
+
+    @Test
+    void result_withNoReadings_shouldBeNull() {
+        assertNull(new GlycemicMetricsAccumulator().result());
+    }
+
+    @Test
+    void result_shouldComputeStandardMetrics() {
+        GlycemicMetricsAccumulator accumulator = new GlycemicMetricsAccumulator();
+        accumulator.addMgDl(60.0);
+        accumulator.addMgDl(100.0);
+        accumulator.addMgDl(140.0);
+        accumulator.addMgDl(200.0);
+
+        GlycemicMetrics metrics = accumulator.result();
+
+        assertEquals(4, metrics.count());
+        assertEquals(125.0, metrics.meanGlucose(), 0.001);
+        // population standard deviation of {60, 100, 140, 200}
+        assertEquals(Math.sqrt(2675.0), metrics.standardDeviation(), 0.001);
+        assertEquals(100.0 * Math.sqrt(2675.0) / 125.0, metrics.coefficientOfVariation(), 0.001);
+        assertEquals(3.31 + 0.02392 * 125.0, metrics.glucoseManagementIndicator(), 0.001);
+        assertEquals((125.0 + 46.7) / 28.7, metrics.estimatedA1c(), 0.001);
+        assertEquals(25.0, metrics.timeBelowRange(), 0.001);
+        assertEquals(50.0, metrics.timeInRange(), 0.001);
+        assertEquals(25.0, metrics.timeAboveRange(), 0.001);
+    }
+
+    @Test
+    void add_shouldNormaliseMmolPerLitre() {
+        GlycemicMetricsAccumulator accumulator = new GlycemicMetricsAccumulator();
+        accumulator.add(5.0, "mmol/L");
+        accumulator.add(90.0, "mg/dL");
+
+        assertEquals(90.0, accumulator.result().meanGlucose(), 0.1);
+    }
+
+    @Test
+    void reset_shouldStartANewWindow() {
+        GlycemicMetricsAccumulator accumulator = new GlycemicMetricsAccumulator();
+        accumulator.addMgDl(300.0);
+        accumulator.reset();
+        accumulator.addMgDl(100.0);
+
+        assertEquals(1, accumulator.getCount());
+        assertEquals(100.0, accumulator.result().meanGlucose(), 0.001);
+        assertEquals(0.0, accumulator.result().timeAboveRange(), 0.001);
+    }
+}
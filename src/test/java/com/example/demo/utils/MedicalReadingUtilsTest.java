@@ -40,4 +40,10 @@ class MedicalReadingUtilsTest {
         LocalDateTime t2 = LocalDateTime.of(2025, 5, 31, 15, 0);
         assertEquals(-60, MedicalReadingUtils.calculateTimeDifferenceMinutes(t1, t2));
     }
+
+    @Test
+    void testToMgPerDl() {
+        assertEquals(100.0, MedicalReadingUtils.toMgPerDl(100.0, "mg/dL"), 0.001);
+        assertEquals(180.16, MedicalReadingUtils.toMgPerDl(10.0, "mmol/L"), 0.1);
+    }
 }
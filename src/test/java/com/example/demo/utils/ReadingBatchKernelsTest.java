@@ -0,0 +1,130 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingBatchKernelsTest {
+
+    // Odd size so the vector kernels also run their scalar tail
+    private static final int SIZE = 1_037;
+
+    static Stream<ReadingBatchKernels> kernels() {
+        return Stream.of(new ScalarReadingBatchKernels(), new VectorReadingBatchKernels());
+    }
+
+    @ParameterizedTest
+    @MethodSource("kernels")
+    void adjustedReadings_matchScalarMethod(ReadingBatchKernels kernels) {
+        Random random = new Random(42);
+        long[] seconds = new long[SIZE];
+        double[] raw = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            // Spans dates before and after the epoch to cover negative seconds
+            seconds[i] = random.nextLong(-3_000_000_000L, 3_000_000_000L);
+            raw[i] = random.nextDouble(20.0, 400.0);
+        }
+        seconds[0] = LocalDateTime.of(1969, 12, 31, 23, 59, 59).toEpochSecond(ZoneOffset.UTC);
+        seconds[1] = LocalDateTime.of(2025, 5, 31, 22, 0).toEpochSecond(ZoneOffset.UTC);
+        seconds[2] = LocalDateTime.of(2025, 5, 31, 6, 0).toEpochSecond(ZoneOffset.UTC);
+        seconds[3] = LocalDateTime.of(2025, 5, 31, 5, 59, 59).toEpochSecond(ZoneOffset.UTC);
+
+        double[] out = new double[SIZE];
+        kernels.adjustedReadings(seconds, raw, out, SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            LocalDateTime time = LocalDateTime.ofEpochSecond(seconds[i], 0, ZoneOffset.UTC);
+            assertEquals(MedicalReadingUtils.calculateAdjustedReading(time, raw[i]), out[i], "index " + i);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("kernels")
+    void differences_matchScalarMethod(ReadingBatchKernels kernels) {
+        Random random = new Random(7);
+        double[] first = random.doubles(SIZE, 20.0, 400.0).toArray();
+        double[] second = random.doubles(SIZE, 20.0, 400.0).toArray();
+        double[] out = new double[SIZE];
+
+        kernels.differences(first, second, out, SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(MedicalReadingUtils.calculateDifference(first[i], second[i]), out[i], "index " + i);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("kernels")
+    void floatDifferences_matchScalarSubtraction(ReadingBatchKernels kernels) {
+        Random random = new Random(11);
+        float[] first = new float[SIZE];
+        float[] second = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            first[i] = random.nextFloat(20f, 400f);
+            second[i] = random.nextFloat(20f, 400f);
+        }
+        float[] out = new float[SIZE];
+
+        kernels.differences(first, second, out, SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(second[i] - first[i], out[i], "index " + i);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("kernels")
+    void timeDifferencesMinutes_matchScalarMethod(ReadingBatchKernels kernels) {
+        Random random = new Random(13);
+        long[] first = new long[SIZE];
+        long[] second = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            first[i] = random.nextLong(-3_000_000_000L, 3_000_000_000L);
+            // Mixes forward and backward gaps with partial minutes
+            second[i] = first[i] + random.nextLong(-1_000_000L, 1_000_000L);
+        }
+        long[] out = new long[SIZE];
+
+        kernels.timeDifferencesMinutes(first, second, out, SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            LocalDateTime t1 = LocalDateTime.ofEpochSecond(first[i], 0, ZoneOffset.UTC);
+            LocalDateTime t2 = LocalDateTime.ofEpochSecond(second[i], 0, ZoneOffset.UTC);
+            assertEquals(MedicalReadingUtils.calculateTimeDifferenceMinutes(t1, t2), out[i], "index " + i);
+        }
+    }
+
+    @Test
+    void create_usesVectorKernelsWhenModuleIsPresent() {
+        assertTrue(ModuleLayer.boot().findModule(ReadingBatchKernels.VECTOR_MODULE).isPresent());
+        assertInstanceOf(VectorReadingBatchKernels.class, ReadingBatchKernels.create());
+    }
+
+    @Test
+    void batchMethods_onlyWriteRequestedLength() {
+        long[] seconds = {LocalDateTime.of(2025, 5, 31, 23, 0).toEpochSecond(ZoneOffset.UTC), 0L};
+        double[] raw = {100.0, 100.0};
+        double[] out = {-1.0, -1.0};
+
+        MedicalReadingUtils.calculateAdjustedReadings(seconds, raw, out, 1);
+
+        assertEquals(110.0, out[0], 0.001);
+        assertEquals(-1.0, out[1]);
+    }
+
+    @Test
+    void batchMethods_rejectShortArrays() {
+        double[] values = new double[4];
+        double[] out = new double[3];
+
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> MedicalReadingUtils.calculateDifferences(values, values, out, 4));
+    }
+}